@@ -0,0 +1,72 @@
+package com.calculator.UI;
+
+import java.awt.Color;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JButton;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A burst of clicks across the calculator's 20 buttons, run on the event
+ * dispatch thread: flashes through one FlashScheduler, and through a new
+ * Timer per flash as the UI did before it. Ticks ending the flashes also run
+ * on the dispatch thread and are part of what slows each burst down.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class FlashSchedulerBenchmark {
+
+    private static final Color FLASH = new Color(57, 255, 20);
+    private static final int DURATION = 100;
+
+    @Param({"20"})
+    private int clicks;
+
+    private final JButton[] buttons = new JButton[20];
+    private final FlashScheduler scheduler = new FlashScheduler(FLASH, DURATION);
+    private Runnable schedulerBurst;
+    private Runnable timerBurst;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < buttons.length; i++) {
+            buttons[i] = new JButton(String.valueOf(i));
+            scheduler.register(buttons[i]);
+        }
+        schedulerBurst = () -> {
+            for (int i = 0; i < clicks; i++) {
+                scheduler.flash(buttons[i % buttons.length]);
+            }
+        };
+        timerBurst = () -> {
+            for (int i = 0; i < clicks; i++) {
+                flashWithTimer(buttons[i % buttons.length]);
+            }
+        };
+    }
+
+    private static void flashWithTimer(JButton button) {
+        Color original = button.getBackground();
+        button.setBackground(FLASH);
+        new Timer(DURATION, e -> {
+            button.setBackground(original);
+            ((Timer) e.getSource()).stop();
+        }).start();
+    }
+
+    @Benchmark
+    public void scheduler() throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(schedulerBurst);
+    }
+
+    @Benchmark
+    public void timerPerFlash() throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(timerBurst);
+    }
+}
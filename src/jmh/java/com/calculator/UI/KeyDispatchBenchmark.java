@@ -0,0 +1,89 @@
+package com.calculator.UI;
+
+import com.calculator.logic.CalculatorController;
+import com.calculator.logic.CalculatorLogic;
+import com.calculator.logic.MemoryDisplayModel;
+import java.awt.Color;
+import java.awt.event.KeyEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JButton;
+import javax.swing.SwingUtilities;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Typing {@code 12.5*3=} on the event dispatch thread, as key presses reach
+ * the UI: through the key command table, and through JButton.doClick as the
+ * UI did before it. The time per operation is how long the dispatch thread is
+ * held, during which nothing else on screen updates.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class KeyDispatchBenchmark {
+
+    private static final String KEYS = "12.5*3=";
+
+    private final MemoryDisplayModel displayModel = new MemoryDisplayModel();
+    private final CalculatorController controller = new CalculatorController(new CalculatorLogic(), displayModel);
+    private final FlashScheduler flashes = new FlashScheduler(new Color(57, 255, 20), 100);
+    private final KeyCommandTable keyCommands = new KeyCommandTable();
+    private final JButton[] buttons = new JButton[KEYS.length()];
+    private final int[] keyCodes = new int[KEYS.length()];
+    private final boolean[] shifted = new boolean[KEYS.length()];
+    private Runnable commandTyping;
+    private Runnable doClickTyping;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < KEYS.length(); i++) {
+            char key = KEYS.charAt(i);
+            JButton button = new JButton(String.valueOf(key));
+            Runnable action = switch (key) {
+                case '*' -> () -> controller.handleOperation("*");
+                case '=' -> controller::calculateResult;
+                default -> () -> controller.appendToDisplay(button.getText());
+            };
+            flashes.register(button);
+            Runnable command = () -> {
+                flashes.flash(button);
+                action.run();
+            };
+            button.addActionListener(e -> command.run());
+            buttons[i] = button;
+            keyCodes[i] = key == '*' ? KeyEvent.VK_8 : key == '.' ? KeyEvent.VK_PERIOD
+                    : key == '=' ? KeyEvent.VK_ENTER : KeyEvent.VK_0 + (key - '0');
+            shifted[i] = key == '*';
+            if (shifted[i]) {
+                keyCommands.bindShifted(command, keyCodes[i]);
+            } else {
+                keyCommands.bind(command, keyCodes[i]);
+            }
+        }
+        commandTyping = () -> {
+            for (int i = 0; i < keyCodes.length; i++) {
+                keyCommands.dispatch(keyCodes[i], shifted[i]);
+            }
+        };
+        doClickTyping = () -> {
+            for (JButton button : buttons) {
+                button.doClick();
+            }
+        };
+    }
+
+    @Benchmark
+    public CharSequence commandTable() throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(commandTyping);
+        return displayModel.getDisplay();
+    }
+
+    @Benchmark
+    public CharSequence doClick() throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(doClickTyping);
+        return displayModel.getDisplay();
+    }
+}
@@ -0,0 +1,97 @@
+package com.calculator.UI;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup-time harness: launches the calculator in a fresh JVM again and
+ * again, with the startup probe typing {@code 12.5*3=}, and reports the time
+ * from launch to the first frame and to the first result on screen. It compares
+ * the plain JDK with the AppCDS archive and jlink image built by the
+ * {@code startup} profile, each with and without the background warm-up.
+ * Configurations whose files are missing are skipped.
+ *
+ * It needs a display; on a server run it under a virtual framebuffer:
+ * {@code xvfb-run -a java -cp target/benchmarks.jar com.calculator.UI.StartupTest [runs] [target]}
+ */
+public class StartupTest {
+
+    private static final String KEYS = "12.5*3=";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("No display; run under xvfb-run or with DISPLAY set");
+            System.exit(2);
+        }
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Path target = Path.of(args.length > 1 ? args[1] : "target").toAbsolutePath();
+        Path jar = target.resolve("Calculator-1.0-SNAPSHOT.jar");
+        Path jdk = Path.of(System.getProperty("java.home"), "bin", "java");
+        Path runtime = target.resolve("runtime/bin/java");
+        Path archive = target.resolve("calculator.jsa");
+
+        System.out.printf("%-24s %16s %16s%n", "", "first frame ms", "first result ms");
+        for (boolean warmup : new boolean[]{false, true}) {
+            String suffix = warmup ? " + warm-up" : "";
+            measure("JDK" + suffix, runs, command(jdk, jar, null, warmup));
+            if (Files.exists(runtime) && Files.exists(archive)) {
+                measure("jlink + AppCDS" + suffix, runs, command(runtime, jar, archive, warmup));
+            }
+        }
+    }
+
+    private static List<String> command(Path java, Path jar, Path archive, boolean warmup) {
+        List<String> command = new ArrayList<>(List.of(java.toString()));
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.add("-Dcalculator.warmup=" + warmup);
+        command.add("-Dcalculator.startupProbe=" + KEYS);
+        command.addAll(List.of("-cp", jar.toString(), "com.calculator.Calculator"));
+        return command;
+    }
+
+    private static void measure(String name, int runs, List<String> command) throws IOException, InterruptedException {
+        long[] frames = new long[runs];
+        long[] results = new long[runs];
+        // One untimed launch so the files are in the page cache
+        launch(command, new long[1], new long[1], 0);
+        for (int i = 0; i < runs; i++) {
+            launch(command, frames, results, i);
+        }
+        System.out.printf("%-24s %16s %16s%n", name, summary(frames), summary(results));
+    }
+
+    private static void launch(List<String> command, long[] frames, long[] results, int run)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.equals("first-frame")) {
+                    frames[run] = System.nanoTime() - start;
+                } else if (line.startsWith("first-result")) {
+                    results[run] = System.nanoTime() - start;
+                }
+            }
+        }
+        if (process.waitFor() != 0 || results[run] == 0) {
+            throw new IllegalStateException("Probe failed (exit " + process.exitValue() + "): " + command);
+        }
+    }
+
+    // Median and minimum in milliseconds
+    private static String summary(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("%d (min %d)", sorted[sorted.length / 2] / 1_000_000, sorted[0] / 1_000_000);
+    }
+}
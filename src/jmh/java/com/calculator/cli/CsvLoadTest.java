@@ -0,0 +1,96 @@
+package com.calculator.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Throughput test for CsvCalculator on a generated file of several gigabytes:
+ * order rows with an id, a price, a quantity, a discount in percent and a text
+ * field. Reports rows and megabytes per second and the peak heap in use during
+ * the run, which should not depend on the file size. The file is generated once
+ * and reused by later runs.
+ *
+ * Usage: {@code java -Xmx64m -cp target/benchmarks.jar com.calculator.cli.CsvLoadTest [gigabytes] [file] [threads]}
+ */
+public class CsvLoadTest {
+
+    private static final String EXPRESSION = "$2 * $3 - $2 * $3 * $4 / 100";
+
+    public static void main(String[] args) throws IOException {
+        double gigabytes = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        Path input = Path.of(args.length > 1 ? args[1] : "target/orders.csv");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Path output = input.resolveSibling(input.getFileName() + ".out");
+
+        long size = (long) (gigabytes * (1L << 30));
+        if (!Files.exists(input) || Files.size(input) < size) {
+            System.out.printf("generating %s (%.1f GB)%n", input, gigabytes);
+            generate(input, size);
+        }
+
+        CsvCalculator calculator = new CsvCalculator(EXPRESSION, (byte) ',', true, threads);
+        // One untimed pass over a copy of the start of the file, so the measured run is compiled code
+        Path sample = Files.createTempFile("orders", ".csv");
+        try {
+            try (FileChannel in = FileChannel.open(input); FileChannel out = FileChannel.open(sample, StandardOpenOption.WRITE)) {
+                in.transferTo(0, 64 << 20, out);
+            }
+            calculator.run(sample, output);
+        } finally {
+            Files.delete(sample);
+        }
+
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long begin = System.nanoTime();
+        long rows = calculator.run(input, output);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        System.out.printf("file=%s size=%.2f GB threads=%d rows=%d elapsed=%.2f s%n",
+                input, Files.size(input) / (double) (1L << 30), threads, rows, seconds);
+        System.out.printf("throughput=%.0f rows/s %.0f MB/s%n", rows / seconds, Files.size(input) / seconds / (1 << 20));
+        System.out.printf("peak heap=%.1f MB%n", peakHeap / (double) (1 << 20));
+    }
+
+    private static void generate(Path path, long size) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        long written = 0;
+        StringBuilder row = new StringBuilder(64);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 20)) {
+            byte[] header = "id,price,quantity,discount,note\n".getBytes(StandardCharsets.US_ASCII);
+            out.write(header);
+            written += header.length;
+            for (long id = 1; written < size; id++) {
+                row.setLength(0);
+                long cents = random.nextLong(100, 10_000_000);
+                row.append(id).append(',')
+                        .append(cents / 100).append('.').append(cents % 100 / 10).append(cents % 10).append(',')
+                        .append(random.nextInt(1, 500)).append(',')
+                        .append(random.nextInt(0, 40) / 2.0).append(',')
+                        .append(random.nextBoolean() ? "\"express, signed\"" : "standard").append('\n');
+                for (int i = 0; i < row.length(); i++) {
+                    out.write(row.charAt(i));
+                }
+                written += row.length();
+            }
+        }
+    }
+}
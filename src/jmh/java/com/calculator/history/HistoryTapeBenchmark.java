@@ -0,0 +1,60 @@
+package com.calculator.history;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The history tape at full size, a million entries in native memory:
+ * appending one entry, reading one back, and searching the whole tape by
+ * expression prefix and by result when nothing matches.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class HistoryTapeBenchmark {
+
+    private final StringBuilder expression = new StringBuilder("12.5*3-4/2");
+    private final StringBuilder result = new StringBuilder("35.5");
+    private HistoryTape tape;
+    private long entry;
+
+    @Setup
+    public void setUp() {
+        tape = HistoryTape.allocate(HistoryTape.DEFAULT_SLOTS, HistoryTape.DEFAULT_TEXT_BYTES);
+        for (int i = 0; i < HistoryTape.DEFAULT_SLOTS; i++) {
+            tape.append(expression, i, result);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tape.close();
+    }
+
+    @Benchmark
+    public long append() {
+        tape.append(expression, 35.5, result);
+        return tape.end();
+    }
+
+    @Benchmark
+    public String text() {
+        entry = entry + 7919 < tape.end() && entry >= tape.first() ? entry + 7919 : tape.first();
+        return tape.text(entry);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long findPrefixMiss() {
+        return tape.findPrefix("99", tape.end());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long findValueMiss() {
+        return tape.findValue(-2, -1, tape.end());
+    }
+}
@@ -0,0 +1,79 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * One expression over columns of rows: SIMD through BatchExpression, a scalar
+ * loop running the same postfix program row by row, and CalculatorLogic per row.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class BatchExpressionBenchmark {
+
+    private static final String SHAPE = "+*-/+*-";
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private final CalculatorLogic logic = new CalculatorLogic();
+    private final BatchExpression batch = BatchExpression.compile(SHAPE);
+    private final PostfixProgram program = PostfixProgram.compile(SHAPE);
+    private final String[] operators = new String[SHAPE.length()];
+    private double[][] columns;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        columns = new double[SHAPE.length() + 1][rows];
+        for (double[] column : columns) {
+            for (int i = 0; i < rows; i++) {
+                // Some zero divisors so the NaN rule is exercised
+                column[i] = random.nextInt(50) == 0 ? 0 : 1 + random.nextInt(999) / 10.0;
+            }
+        }
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = String.valueOf(SHAPE.charAt(i));
+        }
+        out = new double[rows];
+    }
+
+    @Benchmark
+    public double[] vector() {
+        batch.evaluate(columns, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalar() {
+        double[] operands = new double[columns.length];
+        double[] stack = new double[program.maxDepth];
+        for (int row = 0; row < rows; row++) {
+            for (int c = 0; c < columns.length; c++) {
+                operands[c] = columns[c][row];
+            }
+            out[row] = program.evaluate(operands, stack);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] engine() {
+        for (int row = 0; row < rows; row++) {
+            logic.pushOperand(columns[0][row]);
+            for (int i = 0; i < operators.length; i++) {
+                logic.pushOperator(operators[i]);
+                logic.pushOperand(columns[i + 1][row]);
+            }
+            out[row] = logic.getResult();
+            logic.clear();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,89 @@
+package com.calculator.logic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Keystrokes, result calculation and operand parsing in CalculatorController,
+ * driven headless through an in-memory display.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CalculatorControllerBenchmark {
+
+    /**
+     * Operand pairs whose product lands on each display path: plain integer,
+     * fixed-point decimal, too large for 15 digits, and below the underflow threshold.
+     */
+    @Param({"integer", "decimal", "large", "tiny"})
+    private String result;
+
+    private final MemoryDisplayModel displayModel = new MemoryDisplayModel();
+    private final CalculatorController controller = new CalculatorController(new CalculatorLogic(), displayModel);
+    private String[] lhs;
+    private String[] rhs;
+    private String[] exponent;
+
+    @Setup
+    public void setUp() {
+        switch (result) {
+            case "integer" -> {
+                lhs = keys("1234");
+                rhs = keys("5678");
+            }
+            case "decimal" -> {
+                lhs = keys("3.14159265");
+                rhs = keys("2.71828");
+            }
+            case "large" -> {
+                lhs = keys("98765432109876");
+                rhs = keys("123456789");
+            }
+            default -> {
+                lhs = keys("0.0000001234567");
+                rhs = keys("0.0000000987654");
+            }
+        }
+        exponent = keys("large".equals(result) ? "12" : "tiny".equals(result) ? "9" : "");
+
+        // Display state read by parseOperandFromFields; the other benchmarks reset it each call
+        type(lhs);
+        if (exponent.length > 0) {
+            controller.handleExp();
+            type(exponent);
+        }
+    }
+
+    @Benchmark
+    public CharSequence calculateResult() {
+        controller.handleAllClear();
+        type(lhs);
+        controller.handleOperation("*");
+        type(rhs);
+        controller.calculateResult();
+        return displayModel.getDisplay();
+    }
+
+    @Benchmark
+    public double parseOperandFromFields() {
+        return controller.parseOperandFromFields();
+    }
+
+    private void type(String[] keys) {
+        for (String key : keys) {
+            controller.appendToDisplay(key);
+        }
+    }
+
+    private static String[] keys(String text) {
+        String[] keys = new String[text.length()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = String.valueOf(text.charAt(i));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,52 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Chained expressions of mixed precedence fed through pushOperand/pushOperator
+ * and drained with getResult, the way CalculatorController drives the engine.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CalculatorLogicBenchmark {
+
+    private static final String[] OPERATORS = {"+", "*", "-", "/"};
+
+    @Param({"16", "256", "4096"})
+    private int terms;
+
+    private final CalculatorLogic logic = new CalculatorLogic();
+    private double[] operands;
+    private String[] operators;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        operands = new double[terms];
+        operators = new String[terms - 1];
+        for (int i = 0; i < terms; i++) {
+            operands[i] = 1 + random.nextInt(999) / 10.0;
+        }
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = OPERATORS[random.nextInt(OPERATORS.length)];
+        }
+    }
+
+    @Benchmark
+    public double chainedExpression() {
+        logic.pushOperand(operands[0]);
+        for (int i = 0; i < operators.length; i++) {
+            logic.pushOperator(operators[i]);
+            logic.pushOperand(operands[i + 1]);
+        }
+        double result = logic.getResult();
+        logic.clear();
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.calculator.logic;
+
+import java.math.MathContext;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The same chained expressions in binary and decimal mode. Money amounts with
+ * two decimals, multiplied by quantities and rates, keep decimal mode on its
+ * long path; 25-digit operands push every operation through BigDecimal.
+ * Decimal operands are pushed as text, the way the controller pushes them.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class DecimalModeBenchmark {
+
+    private static final String[] OPERATORS = {"+", "-", "*", "+"};
+
+    @Param({"money", "wide"})
+    private String operands;
+
+    @Param({"16"})
+    private int terms;
+
+    private final CalculatorLogic binary = new CalculatorLogic();
+    private final CalculatorLogic decimal = new CalculatorLogic(MathContext.DECIMAL128);
+    private String[] text;
+    private double[] values;
+    private String[] operators;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        text = new String[terms];
+        values = new double[terms];
+        operators = new String[terms - 1];
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = OPERATORS[random.nextInt(OPERATORS.length)];
+        }
+        for (int i = 0; i < terms; i++) {
+            if ("money".equals(operands)) {
+                // Amounts, multiplied only by quantities or rates such as 1.07
+                boolean factor = i > 0 && "*".equals(operators[i - 1]);
+                text[i] = factor
+                        ? (random.nextBoolean() ? String.valueOf(1 + random.nextInt(20)) : "1.0" + random.nextInt(10))
+                        : random.nextInt(100_000) + "." + random.nextInt(10) + random.nextInt(10);
+            } else {
+                StringBuilder digits = new StringBuilder().append(1 + random.nextInt(9));
+                for (int d = 1; d < 25; d++) {
+                    digits.append(random.nextInt(10));
+                }
+                text[i] = digits.insert(5, '.').toString();
+            }
+            values[i] = Double.parseDouble(text[i]);
+        }
+    }
+
+    @Benchmark
+    public double binary() {
+        binary.pushOperand(values[0]);
+        for (int i = 0; i < operators.length; i++) {
+            binary.pushOperator(operators[i]);
+            binary.pushOperand(values[i + 1]);
+        }
+        double result = binary.getResult();
+        binary.clear();
+        return result;
+    }
+
+    @Benchmark
+    public Object decimal() {
+        decimal.pushOperand(text[0]);
+        for (int i = 0; i < operators.length; i++) {
+            decimal.pushOperator(operators[i]);
+            decimal.pushOperand(text[i + 1]);
+        }
+        Object result = decimal.getDecimalResult();
+        decimal.clear();
+        return result;
+    }
+}
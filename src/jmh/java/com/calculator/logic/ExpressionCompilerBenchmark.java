@@ -0,0 +1,65 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The same expression shape evaluated with fresh operands each call, through a
+ * compiled expression and through CalculatorLogic.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ExpressionCompilerBenchmark {
+
+    private static final String OPERATORS = "+*-/";
+
+    @Param({"2", "8", "32", "256"})
+    private int operators;
+
+    private final CalculatorLogic logic = new CalculatorLogic();
+    private CompiledExpression compiled;
+    private String[] shape;
+    private double[] operands;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        shape = new String[operators];
+        for (int i = 0; i < operators; i++) {
+            char operator = OPERATORS.charAt(random.nextInt(OPERATORS.length()));
+            builder.append(operator);
+            shape[i] = String.valueOf(operator);
+        }
+        compiled = new ExpressionCompiler(16).compile(builder.toString());
+        operands = new double[operators + 1];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = 1 + random.nextInt(999) / 10.0;
+        }
+    }
+
+    @Benchmark
+    public double compiled() {
+        operands[0] = counter++;
+        return compiled.eval(operands);
+    }
+
+    @Benchmark
+    public double interpreted() {
+        operands[0] = counter++;
+        logic.pushOperand(operands[0]);
+        for (int i = 0; i < shape.length; i++) {
+            logic.pushOperator(shape[i]);
+            logic.pushOperand(operands[i + 1]);
+        }
+        double result = logic.getResult();
+        logic.clear();
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Expressions with parentheses of about {@code tokens} tokens: {@code nested}
+ * opens a group after every operator, so groups nest tokens / 4 deep, and
+ * {@code shallow} has random groups nested a few deep. Parsed and evaluated
+ * through {@link ExpressionTree}, and evaluated again from the parsed tree.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ExpressionTreeBenchmark {
+
+    private static final String OPERATORS = "+*-/";
+
+    @Param({"10000", "1000000"})
+    private int tokens;
+
+    @Param({"nested", "shallow"})
+    private String shape;
+
+    private final ExpressionTree tree = new ExpressionTree();
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        int open = 0;
+        for (int count = 0; count < tokens; count += 2) {
+            if ("nested".equals(shape) || (open < 4 && random.nextInt(4) == 0)) {
+                builder.append('(');
+                open++;
+                count++;
+            }
+            builder.append(1 + random.nextInt(99999) / 100.0);
+            if (open > 0 && !"nested".equals(shape) && random.nextInt(3) == 0) {
+                builder.append(')');
+                open--;
+                count++;
+            }
+            builder.append(OPERATORS.charAt(random.nextInt(OPERATORS.length())));
+        }
+        builder.append('1');
+        builder.append(")".repeat(open));
+        text = builder.toString();
+        tree.parse(text);
+    }
+
+    @Benchmark
+    public double parse() {
+        return tree.parse(text).evaluate();
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return tree.evaluate();
+    }
+}
@@ -0,0 +1,85 @@
+package com.calculator.logic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Parsing 1,000 numbers of one kind: FastDoubleParser on a StringBuilder and on
+ * bytes, versus Double.parseDouble on a String built from the StringBuilder the
+ * way the controller used to.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class FastDoubleParserBenchmark {
+
+    private static final int COUNT = 1_000;
+
+    /**
+     * Keypad entries such as {@code 1234.5}, prices with a large exponent such
+     * as {@code 123.45E+30}, and shortest round-trip digits of random doubles
+     * as Double.toString prints them.
+     */
+    @Param({"keypad", "exponent", "roundTrip"})
+    private String kind;
+
+    private StringBuilder[] texts;
+    private byte[] bytes;
+    private int[] ends;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        texts = new StringBuilder[COUNT];
+        ends = new int[COUNT];
+        StringBuilder all = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            String text = switch (kind) {
+                case "keypad" ->
+                    random.nextInt(100_000) + "." + random.nextInt(10);
+                case "exponent" ->
+                    random.nextInt(1_000, 100_000) / 100.0 + "E+" + random.nextInt(23, 300);
+                default ->
+                    Double.toString(Double.longBitsToDouble(random.nextLong(0x0010_0000_0000_0000L, 0x7FE0_0000_0000_0000L)));
+            };
+            texts[i] = new StringBuilder(text);
+            all.append(text);
+            ends[i] = all.length();
+        }
+        bytes = all.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public double fastCharSequence() {
+        double sum = 0;
+        for (StringBuilder text : texts) {
+            sum += FastDoubleParser.parseDouble(text);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double fastBytes() {
+        double sum = 0;
+        int start = 0;
+        for (int end : ends) {
+            sum += FastDoubleParser.parseDouble(bytes, start, end);
+            start = end;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double parseDouble() {
+        double sum = 0;
+        for (StringBuilder text : texts) {
+            sum += Double.parseDouble(text.toString());
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,94 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of the metrics and JFR instrumentation. Each workload runs in a fork with
+ * everything off, one with {@code -Dcalculator.metrics=true} and one with a JFR
+ * recording using the default settings. Compare the {@code off} forks with
+ * CalculatorLogicBenchmark and CalculatorControllerBenchmark numbers from before
+ * the instrumentation to see what it costs when disabled.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class InstrumentationBenchmark {
+
+    private static final String[] OPERATORS = {"+", "*", "-", "/"};
+    private static final String METRICS = "-Dcalculator.metrics=true";
+    private static final String RECORDING = "-XX:StartFlightRecording:settings=default";
+
+    private final CalculatorLogic logic = new CalculatorLogic();
+    private final MemoryDisplayModel displayModel = new MemoryDisplayModel();
+    private final CalculatorController controller = new CalculatorController(new CalculatorLogic(), displayModel);
+    private double[] operands;
+    private String[] operators;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        operands = new double[16];
+        operators = new String[operands.length - 1];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = 1 + random.nextInt(999) / 10.0;
+        }
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = OPERATORS[random.nextInt(OPERATORS.length)];
+        }
+    }
+
+    private double evaluate() {
+        logic.pushOperand(operands[0]);
+        for (int i = 0; i < operators.length; i++) {
+            logic.pushOperator(operators[i]);
+            logic.pushOperand(operands[i + 1]);
+        }
+        double result = logic.getResult();
+        logic.clear();
+        return result;
+    }
+
+    private CharSequence type() {
+        Keystrokes.replay(controller, "12.5*3-4/2=");
+        return displayModel.getDisplay();
+    }
+
+    @Benchmark
+    public double engineOff() {
+        return evaluate();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", METRICS})
+    public double engineMetrics() {
+        return evaluate();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", RECORDING})
+    public double engineRecording() {
+        return evaluate();
+    }
+
+    @Benchmark
+    public CharSequence controllerOff() {
+        return type();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", METRICS})
+    public CharSequence controllerMetrics() {
+        return type();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", RECORDING})
+    public CharSequence controllerRecording() {
+        return type();
+    }
+}
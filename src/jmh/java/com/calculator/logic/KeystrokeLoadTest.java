@@ -0,0 +1,261 @@
+package com.calculator.logic;
+
+import com.calculator.metrics.LatencyHistogram;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Sustained mixed load on CalculatorController and CalculatorLogic. Each thread
+ * owns a controller and replays a script of randomly generated keystroke
+ * sessions in a loop: operands typed digit by digit with decimal points,
+ * exponents, sign changes and deletes, operators sometimes replaced by a second
+ * operator, equals, and now and then all clear. After a warm-up it measures for
+ * the given time and reports throughput, keystroke and equals latency
+ * percentiles, the allocation rate and GC pauses.
+ *
+ * The scripts depend only on the seed and thread count, and their checksum is
+ * printed, so two versions run with the same arguments do exactly the same
+ * work and their reports can be compared directly.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar com.calculator.logic.KeystrokeLoadTest [threads] [seconds] [seed] [warmupSeconds]}
+ */
+public class KeystrokeLoadTest {
+
+    private static final int SCRIPT_KEYS = 1 << 20;
+    private static final char[] OPERATORS = {'+', '-', '*', '/'};
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 180;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 15;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        char[][] scripts = new char[threads][];
+        long checksum = 0;
+        for (int t = 0; t < threads; t++) {
+            scripts[t] = script(random.split());
+            checksum = checksum * 31 + Arrays.hashCode(scripts[t]);
+        }
+        System.out.printf("threads=%d seconds=%d seed=%d script checksum=%016x%n", threads, seconds, seed, checksum);
+
+        Worker[] workers = new Worker[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Worker(scripts[t]);
+        }
+        GcPauses pauses = new GcPauses();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (Worker worker : workers) {
+            Thread thread = new Thread(() -> {
+                worker.run();
+                done.countDown();
+            }, "load");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Thread.sleep(warmupSeconds * 1000L);
+        for (Worker worker : workers) {
+            worker.measure.set(true);
+        }
+        pauses.start();
+        long begin = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        for (Worker worker : workers) {
+            worker.stop.set(true);
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        pauses.stop();
+
+        LatencyHistogram keys = new LatencyHistogram("Keystroke");
+        LatencyHistogram equals = new LatencyHistogram("Equals");
+        long allocated = 0;
+        long sessions = 0;
+        long rejected = 0;
+        for (Worker worker : workers) {
+            keys.add(worker.keys);
+            equals.add(worker.equals);
+            allocated += worker.allocated;
+            sessions += worker.sessions;
+            rejected += worker.rejected;
+        }
+        System.out.printf("elapsed=%.1f s keystrokes=%d sessions=%d rejected=%d%n", elapsed, keys.count(), sessions, rejected);
+        System.out.printf("throughput=%.0f keystrokes/s %.0f sessions/s%n", keys.count() / elapsed, sessions / elapsed);
+        print(keys);
+        print(equals);
+        System.out.printf("allocation=%.1f MB/s %.1f B/keystroke%n",
+                allocated / elapsed / (1 << 20), (double) allocated / Math.max(1, keys.count()));
+        System.out.printf("gc pauses=%d total=%d ms max=%d ms%n", pauses.count.get(), pauses.totalMillis.get(), pauses.maxMillis.get());
+    }
+
+    private static void print(LatencyHistogram histogram) {
+        System.out.printf("%s latency p50=%.2f us p99=%.2f us p99.9=%.2f us p99.99=%.2f us max=%.2f us%n",
+                histogram.name(), histogram.percentile(0.50) / 1e3, histogram.percentile(0.99) / 1e3,
+                histogram.percentile(0.999) / 1e3, histogram.percentile(0.9999) / 1e3, histogram.max() / 1e3);
+    }
+
+    /**
+     * Keys for one thread: whole sessions, each ending with equals, until the
+     * script is full.
+     */
+    static char[] script(SplittableRandom random) {
+        StringBuilder keys = new StringBuilder(SCRIPT_KEYS + 64);
+        while (keys.length() < SCRIPT_KEYS) {
+            // Most sessions start fresh; some carry on from the last result
+            boolean fromResult = keys.length() > 0 && random.nextInt(4) == 0;
+            int operands = 1 + random.nextInt(6);
+            for (int i = 0; i < operands; i++) {
+                if (i > 0 || fromResult) {
+                    keys.append(OPERATORS[random.nextInt(4)]);
+                    if (random.nextInt(10) == 0) {
+                        // Change of mind: replaces the operator just pressed
+                        keys.append(OPERATORS[random.nextInt(4)]);
+                    }
+                }
+                operand(random, keys);
+            }
+            keys.append('=');
+            if (random.nextInt(5) == 0) {
+                keys.append('C');
+            }
+        }
+        return keys.toString().toCharArray();
+    }
+
+    private static void operand(SplittableRandom random, StringBuilder keys) {
+        int digits = 1 + random.nextInt(8);
+        int point = random.nextInt(4) == 0 ? random.nextInt(digits) : -1;
+        for (int d = 0; d < digits; d++) {
+            keys.append((char) ('0' + (d == 0 ? 1 + random.nextInt(9) : random.nextInt(10))));
+            if (d == point) {
+                keys.append('.');
+            }
+        }
+        if (digits > 1 && random.nextInt(12) == 0) {
+            // Typo: delete and retype, before any sign change so a lone minus never remains
+            keys.append('D').append((char) ('0' + random.nextInt(10)));
+        }
+        if (random.nextInt(10) == 0) {
+            keys.append('N');
+        }
+        if (random.nextInt(10) == 0) {
+            keys.append('E');
+            int exponentDigits = 1 + random.nextInt(2);
+            for (int d = 0; d < exponentDigits; d++) {
+                keys.append((char) ('1' + random.nextInt(9)));
+            }
+            if (random.nextInt(3) == 0) {
+                keys.append('N');
+            }
+        }
+    }
+
+    /**
+     * One thread's controller and its measurements.
+     */
+    private static final class Worker {
+
+        final char[] script;
+        final CalculatorController controller = new CalculatorController(new CalculatorLogic(), new MemoryDisplayModel());
+        final LatencyHistogram keys = new LatencyHistogram("Keystroke");
+        final LatencyHistogram equals = new LatencyHistogram("Equals");
+        final AtomicBoolean measure = new AtomicBoolean();
+        final AtomicBoolean stop = new AtomicBoolean();
+        long allocated;
+        long sessions;
+        long rejected;
+
+        Worker(char[] script) {
+            this.script = script;
+        }
+
+        void run() {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            boolean measuring = false;
+            long allocatedBefore = 0;
+            int i = 0;
+            while (!stop.get()) {
+                if (!measuring && measure.get()) {
+                    measuring = true;
+                    allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+                }
+                // Check the flags once per batch so the loop itself stays out of the timings
+                for (int batch = 0; batch < 1024; batch++) {
+                    char key = script[i];
+                    i = i + 1 == script.length ? 0 : i + 1;
+                    long start = System.nanoTime();
+                    try {
+                        Keystrokes.press(controller, key);
+                    } catch (RuntimeException e) {
+                        rejected++;
+                        controller.handleAllClear();
+                    }
+                    long nanos = System.nanoTime() - start;
+                    if (measuring) {
+                        keys.record(nanos);
+                        if (key == '=') {
+                            equals.record(nanos);
+                            sessions++;
+                        }
+                    }
+                }
+            }
+            allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+    }
+
+    /**
+     * Stop-the-world collections reported while measuring. Concurrent cycles
+     * are left out; only their pauses stop the load threads.
+     */
+    private static final class GcPauses {
+
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalMillis = new AtomicLong();
+        final AtomicLong maxMillis = new AtomicLong();
+        private final List<Runnable> removals = new ArrayList<>();
+
+        void start() {
+            NotificationListener listener = (notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                if (!info.getGcName().contains("Concurrent")) {
+                    long millis = info.getGcInfo().getDuration();
+                    count.incrementAndGet();
+                    totalMillis.addAndGet(millis);
+                    maxMillis.accumulateAndGet(millis, Math::max);
+                }
+            };
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                NotificationEmitter emitter = (NotificationEmitter) bean;
+                emitter.addNotificationListener(listener, null, null);
+                removals.add(() -> {
+                    try {
+                        emitter.removeNotificationListener(listener);
+                    } catch (ListenerNotFoundException e) {
+                        // Already gone
+                    }
+                });
+            }
+        }
+
+        void stop() {
+            removals.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.calculator.logic;
+
+/**
+ * The String.format-based display formatting ResultFormatter replaced, kept as a
+ * baseline for ResultFormatterBenchmark.
+ */
+public class LegacyResultFormatter {
+
+    private static final String SCIENTIFIC_FORMAT = "%.13e"; // Constant for scientific notation
+    private static final double UNDERFLOW_THRESHOLD = 1e-13;
+
+    private final StringBuilder digits = new StringBuilder(32);
+    private final StringBuilder exponent = new StringBuilder(8);
+
+    /**
+     * Formats a result into {@link #digits()} and {@link #exponent()}. The exponent
+     * is empty when the result fits the display in fixed point.
+     */
+    public void format(double result) {
+        digits.setLength(0);
+        exponent.setLength(0);
+
+        if (Math.abs(result) < UNDERFLOW_THRESHOLD && result != 0) {
+            splitExponent(formatToScientific(result));
+        } else {
+            String resultString = formatForStandardDisplay(result);
+
+            if (shouldUseScientificNotation(resultString)) {
+                splitExponent(formatToScientific(result));
+            } else {
+                digits.append(resultString);
+            }
+        }
+    }
+
+    /**
+     * Display digits of the last formatted result.
+     */
+    public CharSequence digits() {
+        return digits;
+    }
+
+    /**
+     * Exponent of the last formatted result, such as {@code E-20}, or empty.
+     */
+    public CharSequence exponent() {
+        return exponent;
+    }
+
+    public static String formatForStandardDisplay(double value) {
+        if (value == (int) value) {
+            return Integer.toString((int) value);
+        }
+        String valueStr = String.format("%.15f", value);
+        return removeTrailingDecimalPoint(trimTrailingZeros(valueStr));
+    }
+
+    public static String formatToScientific(double value) {
+        String formatted = String.format(SCIENTIFIC_FORMAT, value);
+        return removeTrailingDecimalPoint(trimTrailingZeros(formatted));
+    }
+
+    private static boolean shouldUseScientificNotation(String resultString) {
+        String[] integerAndDecimal = resultString.split("\\.");
+        String integerPart = integerAndDecimal[0];
+        return (integerPart.length() > 15 || (integerPart.equals("0") && integerAndDecimal.length > 1 && integerAndDecimal[1].startsWith("0000000000000")));
+    }
+
+    private void splitExponent(String resultString) {
+        String[] parts = resultString.split("e");
+        digits.append(trimTrailingZeros(parts[0]).replaceAll("\\.$", "")); // Ensure no trailing dot
+        exponent.append('E').append(formatExponent(Integer.parseInt(parts[1]))); // Correct formatting for exponent
+    }
+
+    private static String trimTrailingZeros(String value) {
+        // Check if value is in exponential form
+        int eIndex = value.indexOf('E');
+
+        if (eIndex == -1) {
+            eIndex = value.indexOf('e');
+        }
+
+        if (eIndex == -1) {
+            // If not in exponential form, trim as usual
+            int i = value.length() - 1;
+            while (i > 0 && value.charAt(i) == '0') {
+                i--;
+            }
+            return value.substring(0, i + 1);
+        } else {
+            // If in exponential form, separate mantissa and exponent
+            String mantissa = value.substring(0, eIndex);
+            String exponent = value.substring(eIndex);
+
+            // Trim trailing zeros from mantissa
+            int i = mantissa.length() - 1;
+            while (i > 0 && mantissa.charAt(i) == '0') {
+                i--;
+            }
+            mantissa = mantissa.substring(0, i + 1);
+
+            // Ensure no trailing decimal point in mantissa
+            if (mantissa.endsWith(".")) {
+                mantissa = mantissa.substring(0, mantissa.length() - 1);
+            }
+
+            // Reassemble mantissa and exponent
+            return mantissa + exponent;
+        }
+    }
+
+    private static String removeTrailingDecimalPoint(String value) {
+        return value.endsWith(".") ? value.substring(0, value.length() - 1) : value;
+    }
+
+    private static String formatExponent(int exponent) {
+        return String.format("%+d", Math.min(Math.max(exponent, -999), 999));
+    }
+}
@@ -0,0 +1,102 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Applying 1,000 operators picked at random from a set: the engine's dispatch,
+ * which switches over the built-in opcodes and indexes the registry for added
+ * ones, against the hard-coded switch it replaced, and whole expressions through
+ * pushOperator. The built-in set shows what the registry costs {@code + - * /};
+ * the set with the added {@code % ^} what an added operator costs.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class OperatorDispatchBenchmark {
+
+    private static final int COUNT = 1_000;
+    // Terms per expression for the engine benchmark
+    private static final int TERMS = 16;
+
+    @Param({"+-*/", "+-*/%^"})
+    private String operators;
+
+    private final CalculatorLogic logic = new CalculatorLogic();
+    private byte[] opcodes;
+    private String[] symbols;
+    private double[] left;
+    private double[] right;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        opcodes = new byte[COUNT];
+        symbols = new String[COUNT];
+        left = new double[COUNT];
+        right = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            char symbol = operators.charAt(random.nextInt(operators.length()));
+            opcodes[i] = CalculatorLogic.opcode(symbol);
+            symbols[i] = String.valueOf(symbol);
+            // Between 1 and 2, so powers and long chains stay finite
+            left[i] = 1 + random.nextInt(1000) / 1000.0;
+            right[i] = 1 + random.nextInt(1000) / 1000.0;
+        }
+    }
+
+    @Benchmark
+    public double registry() {
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += CalculatorLogic.apply(opcodes[i], left[i], right[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * The dispatch before the registry; added operators give 0 here.
+     */
+    @Benchmark
+    public double hardCodedSwitch() {
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += hardCoded(opcodes[i], left[i], right[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double engine() {
+        double sum = 0;
+        for (int start = 0; start + TERMS <= COUNT; start += TERMS) {
+            logic.pushOperand(left[start]);
+            for (int i = start + 1; i < start + TERMS; i++) {
+                logic.pushOperator(symbols[i]);
+                logic.pushOperand(left[i]);
+            }
+            sum += logic.getResult();
+            logic.clear();
+        }
+        return sum;
+    }
+
+    private static double hardCoded(byte opcode, double operand1, double operand2) {
+        return switch (opcode) {
+            case CalculatorLogic.ADD ->
+                operand1 + operand2;
+            case CalculatorLogic.SUBTRACT ->
+                operand1 - operand2;
+            case CalculatorLogic.MULTIPLY ->
+                operand1 * operand2;
+            case CalculatorLogic.DIVIDE ->
+                (operand2 != 0) ? operand1 / operand2 : Double.NaN;
+            default ->
+                0;
+        };
+    }
+}
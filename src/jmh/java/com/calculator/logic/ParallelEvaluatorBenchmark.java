@@ -0,0 +1,76 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A generated expression of mixed precedence, sequentially through
+ * CalculatorLogic and through ParallelEvaluator on pools of increasing size.
+ * Scaling is bounded by the cores the machine actually has.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ParallelEvaluatorBenchmark {
+
+    private static final String OPERATORS = "+*-/";
+
+    @Param({"4000000"})
+    private int terms;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private final CalculatorLogic logic = new CalculatorLogic();
+    private ForkJoinPool pool;
+    private ParallelEvaluator evaluator;
+    private double[] operands;
+    private String operators;
+    private String[] operatorStrings;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        operands = new double[terms];
+        StringBuilder builder = new StringBuilder(terms - 1);
+        operatorStrings = new String[terms - 1];
+        for (int i = 0; i < terms; i++) {
+            operands[i] = 1 + random.nextInt(999) / 10.0;
+        }
+        for (int i = 0; i < terms - 1; i++) {
+            char operator = OPERATORS.charAt(random.nextInt(OPERATORS.length()));
+            builder.append(operator);
+            operatorStrings[i] = String.valueOf(operator);
+        }
+        operators = builder.toString();
+        pool = new ForkJoinPool(parallelism);
+        evaluator = new ParallelEvaluator(pool, ParallelEvaluator.DEFAULT_THRESHOLD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double sequential() {
+        logic.pushOperand(operands[0]);
+        for (int i = 0; i < operatorStrings.length; i++) {
+            logic.pushOperator(operatorStrings[i]);
+            logic.pushOperand(operands[i + 1]);
+        }
+        double result = logic.getResult();
+        logic.clear();
+        return result;
+    }
+
+    @Benchmark
+    public double parallel() {
+        return evaluator.evaluate(operands, operators);
+    }
+}
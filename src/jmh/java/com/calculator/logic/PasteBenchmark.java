@@ -0,0 +1,50 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Entering a long expression with an in-memory display: pasted, tokenized in
+ * one pass and applied at once, against pressing one key per character.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PasteBenchmark {
+
+    private static final String OPERATORS = "+*-/";
+
+    @Param({"1000", "100000"})
+    private int terms;
+
+    private final MemoryDisplayModel displayModel = new MemoryDisplayModel();
+    private final CalculatorController controller = new CalculatorController(new CalculatorLogic(), displayModel);
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            builder.append(1 + random.nextInt(99999) / 100.0);
+            builder.append(i < terms - 1 ? OPERATORS.charAt(random.nextInt(OPERATORS.length())) : '=');
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public CharSequence paste() {
+        controller.paste(PastedExpression.parse(text));
+        return displayModel.getDisplay();
+    }
+
+    @Benchmark
+    public CharSequence keystrokes() {
+        Keystrokes.replay(controller, text);
+        return displayModel.getDisplay();
+    }
+}
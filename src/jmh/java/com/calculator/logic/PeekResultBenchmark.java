@@ -0,0 +1,64 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The preview after one keystroke, with an expression of the given length
+ * pending: peekResult against evaluating the whole expression again. Products
+ * followed by {@code +} or {@code -} keep an operator pending per term, so the
+ * engine's stack grows with the expression.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PeekResultBenchmark {
+
+    private static final String[] OPERATORS = {"*", "+", "*", "-"};
+
+    @Param({"16", "1024", "65536"})
+    private int terms;
+
+    private final CalculatorLogic pending = new CalculatorLogic();
+    private final CalculatorLogic scratch = new CalculatorLogic();
+    private double[] operands;
+    private String[] operators;
+    private double typed;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        operands = new double[terms];
+        operators = new String[terms];
+        for (int i = 0; i < terms; i++) {
+            operands[i] = 1 + random.nextInt(999) / 10.0;
+            operators[i] = OPERATORS[i % OPERATORS.length];
+        }
+        // Every operand but the last is pushed, each followed by its operator
+        for (int i = 0; i < terms - 1; i++) {
+            pending.pushOperand(operands[i]);
+            pending.pushOperator(operators[i]);
+        }
+    }
+
+    @Benchmark
+    public double peek() {
+        typed += 0.5;
+        return pending.peekResult(typed);
+    }
+
+    @Benchmark
+    public double reevaluate() {
+        typed += 0.5;
+        for (int i = 0; i < terms - 1; i++) {
+            scratch.pushOperand(operands[i]);
+            scratch.pushOperator(operators[i]);
+        }
+        scratch.pushOperand(typed);
+        return scratch.getResult();
+    }
+}
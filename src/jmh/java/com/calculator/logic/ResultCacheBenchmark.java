@@ -0,0 +1,103 @@
+package com.calculator.logic;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Batch-style traffic where a fixed fraction of expressions repeat from a hot
+ * set and the rest are new, evaluated with and without a shared ResultCache.
+ * The cache outlives iterations, so the measured hit ratio settles at hitRatio.
+ * Run with {@code -t} to put several engines in front of the one cache.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ResultCacheBenchmark {
+
+    private static final String[] OPERATORS = {"+", "*", "-", "/"};
+    private static final int HOT_EXPRESSIONS = 512;
+    private static final int PATTERN_LENGTH = 1 << 14;
+
+    @State(Scope.Benchmark)
+    public static class SharedCache {
+        final ResultCache cache = new ResultCache(4096);
+
+        @TearDown
+        public void report() {
+            System.out.printf("%nhit ratio %.3f, %d evictions%n", cache.hitRatio(), cache.evictionCount());
+        }
+    }
+
+    @Param({"0.5", "0.9", "0.99"})
+    private double hitRatio;
+
+    @Param({"8", "32"})
+    private int terms;
+
+    private CalculatorLogic uncached;
+    private CalculatorLogic cached;
+    private double[][] operands;
+    private String[][] operators;
+    private boolean[] repeat;
+    private double[] fresh;
+    private int next;
+    private double unique;
+
+    @Setup
+    public void setUp(SharedCache shared) {
+        Random random = new Random(42);
+        uncached = new CalculatorLogic();
+        cached = new CalculatorLogic(shared.cache);
+        operands = new double[HOT_EXPRESSIONS][terms];
+        operators = new String[HOT_EXPRESSIONS][terms - 1];
+        for (int e = 0; e < HOT_EXPRESSIONS; e++) {
+            for (int i = 0; i < terms; i++) {
+                operands[e][i] = 1 + random.nextInt(999) / 10.0;
+            }
+            for (int i = 0; i < terms - 1; i++) {
+                operators[e][i] = OPERATORS[random.nextInt(OPERATORS.length)];
+            }
+        }
+        repeat = new boolean[PATTERN_LENGTH];
+        for (int i = 0; i < PATTERN_LENGTH; i++) {
+            repeat[i] = random.nextDouble() < hitRatio;
+        }
+        fresh = new double[terms];
+        // Per-thread range, exact as long as it stays below 2^53
+        unique = (double) (Thread.currentThread().threadId() << 40);
+    }
+
+    @Benchmark
+    public double uncached() {
+        return evaluate(uncached);
+    }
+
+    @Benchmark
+    public double cached() {
+        return evaluate(cached);
+    }
+
+    private double evaluate(CalculatorLogic logic) {
+        int i = next++ & PATTERN_LENGTH - 1;
+        String[] shape = operators[i & HOT_EXPRESSIONS - 1];
+        double[] values = operands[i & HOT_EXPRESSIONS - 1];
+        if (!repeat[i]) {
+            // A first operand never seen before makes the expression new
+            System.arraycopy(values, 0, fresh, 0, terms);
+            fresh[0] = unique++;
+            values = fresh;
+        }
+        logic.pushOperand(values[0]);
+        for (int t = 0; t < shape.length; t++) {
+            logic.pushOperator(shape[t]);
+            logic.pushOperand(values[t + 1]);
+        }
+        double result = logic.getResult();
+        logic.clear();
+        return result;
+    }
+}
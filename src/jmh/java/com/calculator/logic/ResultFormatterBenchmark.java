@@ -0,0 +1,42 @@
+package com.calculator.logic;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Display formatting of a result through ResultFormatter and through the
+ * String.format-based implementation it replaced.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ResultFormatterBenchmark {
+
+    /**
+     * One value per display path: integer, fixed-point decimal, too large for 15
+     * digits, and below the underflow threshold.
+     */
+    @Param({"7006652", "8.539734222673566", "1.2193263112449E20", "1.2188081E-14"})
+    private double value;
+
+    private final ResultFormatter formatter = new ResultFormatter();
+    private final LegacyResultFormatter legacy = new LegacyResultFormatter();
+
+    @Benchmark
+    public void format(Blackhole blackhole) {
+        formatter.format(value);
+        blackhole.consume(formatter.digits());
+        blackhole.consume(formatter.exponent());
+    }
+
+    @Benchmark
+    public void legacyFormat(Blackhole blackhole) {
+        legacy.format(value);
+        blackhole.consume(legacy.digits());
+        blackhole.consume(legacy.exponent());
+    }
+}
@@ -0,0 +1,84 @@
+package com.calculator.logic;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * One function over 1,000 arguments of the size typed on a calculator, in each
+ * {@link FunctionMode}, and through Math for comparison: its intrinsics are
+ * faster still but may give different bits on different platforms.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ScientificFunctionBenchmark {
+
+    private static final int COUNT = 1_000;
+
+    @Param({"SIN", "COS", "TAN", "EXP", "LN", "LOG10", "SQRT"})
+    private ScientificFunction function;
+
+    private double[] arguments;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        arguments = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            arguments[i] = switch (function) {
+                case SIN, COS, TAN ->
+                    random.nextDouble(-100, 100);
+                case EXP ->
+                    random.nextDouble(-50, 50);
+                default ->
+                    random.nextDouble(0, 1e6);
+            };
+        }
+    }
+
+    @Benchmark
+    public double strict() {
+        double sum = 0;
+        for (double x : arguments) {
+            sum += function.apply(x, FunctionMode.STRICT);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double fast() {
+        double sum = 0;
+        for (double x : arguments) {
+            sum += function.apply(x, FunctionMode.FAST);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double math() {
+        double sum = 0;
+        for (double x : arguments) {
+            sum += switch (function) {
+                case SIN ->
+                    Math.sin(x);
+                case COS ->
+                    Math.cos(x);
+                case TAN ->
+                    Math.tan(x);
+                case EXP ->
+                    Math.exp(x);
+                case LN ->
+                    Math.log(x);
+                case LOG10 ->
+                    Math.log10(x);
+                case SQRT ->
+                    Math.sqrt(x);
+            };
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,83 @@
+package com.calculator.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for CalculatorService: many concurrent stand-in clients, each on its
+ * own virtual thread with its own session, sending keystroke requests as fast as
+ * they can. Reports throughput and latency percentiles.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar com.calculator.service.ServiceLoadTest [sessions] [requestsPerSession]}
+ */
+public class ServiceLoadTest {
+
+    private static final String[] REQUESTS = {
+        "12", "+", "345", "*", "6.5", "=", "7E3N", "/", "0", "=", "C", "98765D", "-", "1.25N", "="
+    };
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int requestsPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        // One warm-up round so the measured run is not dominated by the interpreter
+        run(sessions / 10, requestsPerSession, false);
+        run(sessions, requestsPerSession, true);
+    }
+
+    private static void run(int sessions, int requestsPerSession, boolean report) throws InterruptedException {
+        long[][] latencies = new long[sessions][requestsPerSession];
+        CountDownLatch ready = new CountDownLatch(sessions);
+        CountDownLatch start = new CountDownLatch(1);
+        long elapsed;
+        try (CalculatorService service = new CalculatorService(1, TimeUnit.MINUTES, sessions);
+                ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < sessions; c++) {
+                long[] clientLatencies = latencies[c];
+                SplittableRandom random = new SplittableRandom(c);
+                clients.submit(() -> {
+                    long session = service.openSession();
+                    ready.countDown();
+                    start.await();
+                    for (int i = 0; i < requestsPerSession; i++) {
+                        String keys = REQUESTS[random.nextInt(REQUESTS.length)];
+                        long begin = System.nanoTime();
+                        service.press(session, keys);
+                        clientLatencies[i] = System.nanoTime() - begin;
+                        // Let other clients in, as a real client would between requests
+                        Thread.yield();
+                    }
+                    service.closeSession(session);
+                    return null;
+                });
+            }
+            ready.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.HOURS);
+            elapsed = System.nanoTime() - begin;
+        }
+        if (!report) {
+            return;
+        }
+
+        long[] all = new long[sessions * requestsPerSession];
+        for (int c = 0; c < sessions; c++) {
+            System.arraycopy(latencies[c], 0, all, c * requestsPerSession, requestsPerSession);
+        }
+        Arrays.sort(all);
+        System.out.printf("sessions=%d requests=%d elapsed=%.2f s%n", sessions, all.length, elapsed / 1e9);
+        System.out.printf("throughput=%.0f requests/s%n", all.length / (elapsed / 1e9));
+        System.out.printf("latency p50=%.2f us p99=%.2f us p99.9=%.2f us max=%.2f us%n",
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), all[all.length - 1] / 1e3);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)] / 1e3;
+    }
+}
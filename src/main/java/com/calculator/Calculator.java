@@ -0,0 +1,29 @@
+package com.calculator;
+
+import com.calculator.UI.CalculatorUI;
+import com.calculator.cli.CalculatorCli;
+import com.calculator.cli.CsvCalculator;
+import com.calculator.journal.JournalReplay;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Application entry point. Starts the Swing calculator, or with {@code --cli}
+ * the headless batch mode, which never loads AWT or Swing. {@code --csv}
+ * evaluates an expression over the columns of a CSV file, and {@code --replay}
+ * replays a journal recorded with {@code -Dcalculator.journal=file}.
+ */
+public class Calculator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && "--cli".equals(args[0])) {
+            CalculatorCli.main(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && "--csv".equals(args[0])) {
+            CsvCalculator.main(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0 && "--replay".equals(args[0])) {
+            JournalReplay.main(Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            CalculatorUI.main(args);
+        }
+    }
+}
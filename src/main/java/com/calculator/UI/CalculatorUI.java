@@ -4,13 +4,29 @@
  */
 package com.calculator.UI;
 
+import com.calculator.history.HistoryTape;
+import com.calculator.journal.ControllerJournal;
 import com.calculator.logic.CalculatorLogic;
 import com.calculator.logic.CalculatorController;
+import com.calculator.logic.FunctionMode;
+import com.calculator.logic.Keystrokes;
+import com.calculator.logic.Operators;
+import com.calculator.logic.PastedExpression;
+import com.calculator.logic.ScientificFunction;
+import com.calculator.logic.StartupWarmup;
+import com.calculator.metrics.CalculatorMetrics;
+import com.calculator.metrics.KeyPressEvent;
 import java.awt.Color;
 import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.event.*;
 import java.awt.Toolkit;
+import java.io.IOException;
+import java.math.MathContext;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 
 /**
@@ -20,6 +36,16 @@ import javax.swing.*;
 public class CalculatorUI extends javax.swing.JFrame implements KeyListener {
 
     private final CalculatorController controller;
+    private final JTextField previewField = new JTextField();
+    private final FlashScheduler flashes = new FlashScheduler(new Color(57, 255, 20), 100);
+    private final KeyCommandTable keyCommands = new KeyCommandTable();
+    // Reused for every key, as the engine and controller reuse theirs
+    private final KeyPressEvent keyPressEvent = new KeyPressEvent();
+    // Commands of the parenthesis buttons, which pressKey runs by character
+    private Runnable openGroup;
+    private Runnable closeGroup;
+    private HistoryTape history;
+    private HistoryDialog historyDialog;
 
     /**
      * Creates new form CalculatorUI
@@ -27,74 +53,126 @@ public class CalculatorUI extends javax.swing.JFrame implements KeyListener {
     public CalculatorUI() {
 
         initComponents();
+        initializePreview();
         CalculatorLogic calculatorLogic = new CalculatorLogic();
-        controller = new CalculatorController(calculatorLogic, displayField, operatorField, expField);
+        controller = new CalculatorController(calculatorLogic,
+                new SwingDisplayModel(displayField, operatorField, expField, previewField));
         attachListeners();  // Attach button listeners for UI buttons
+        initializeFunctions();
         initializeKeyListener();  // Set up KeyListener separately
         initializeCopyMenu();
+        initializeJournal();
+        initializeHistory();
+        initializeStartupProbe();
     }
 
-    @Override
-    public void keyPressed(KeyEvent e) {
-        int keyCode = e.getKeyCode();
-        switch (keyCode) {
-            case KeyEvent.VK_0, KeyEvent.VK_NUMPAD0 ->
-                zeroButton.doClick();
-            case KeyEvent.VK_1, KeyEvent.VK_NUMPAD1 ->
-                oneButton.doClick();
-            case KeyEvent.VK_2, KeyEvent.VK_NUMPAD2 ->
-                twoButton.doClick();
-            case KeyEvent.VK_3, KeyEvent.VK_NUMPAD3 ->
-                threeButton.doClick();
-            case KeyEvent.VK_4, KeyEvent.VK_NUMPAD4 ->
-                fourButton.doClick();
-            case KeyEvent.VK_5, KeyEvent.VK_NUMPAD5 ->
-                fiveButton.doClick();
-            case KeyEvent.VK_6, KeyEvent.VK_NUMPAD6 ->
-                sixButton.doClick();
-            case KeyEvent.VK_7, KeyEvent.VK_NUMPAD7 ->
-                sevenButton.doClick();
-
-            case KeyEvent.VK_8 -> {
-                if (e.isShiftDown()) {
-                    multiplyButton.doClick(); // Handles '*' on the main keyboard (Shift + 8)
-                } else {
-                    eightButton.doClick();    // Regular '8' when Shift is not pressed
+    private void initializeJournal() {
+        // -Dcalculator.journal=file records the session for replay with --replay
+        String path = System.getProperty("calculator.journal");
+        if (path == null) {
+            return;
+        }
+        try {
+            ControllerJournal journal = ControllerJournal.attach(controller, Path.of(path),
+                    ControllerJournal.DEFAULT_SNAPSHOT_INTERVAL);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    // Records already written are in the file either way
                 }
+            }));
+        } catch (IOException e) {
+            java.util.logging.Logger.getLogger(CalculatorUI.class.getName())
+                    .log(java.util.logging.Level.WARNING, "Cannot open journal " + path, e);
+        }
+    }
+
+    private void initializeHistory() {
+        // -Dcalculator.history=file keeps the tape in a mapped file, so it survives restarts;
+        // otherwise a smaller one lives in native memory for the session
+        String path = System.getProperty("calculator.history");
+        if (path != null) {
+            try {
+                history = HistoryTape.open(Path.of(path), HistoryTape.DEFAULT_SLOTS, HistoryTape.DEFAULT_TEXT_BYTES);
+            } catch (IOException e) {
+                java.util.logging.Logger.getLogger(CalculatorUI.class.getName())
+                        .log(java.util.logging.Level.WARNING, "Cannot open history " + path, e);
             }
-            case KeyEvent.VK_NUMPAD8 ->
-                eightButton.doClick();
-            case KeyEvent.VK_9, KeyEvent.VK_NUMPAD9 ->
-                nineButton.doClick();
-            case KeyEvent.VK_PLUS, KeyEvent.VK_ADD ->
-                plusButton.doClick();
-            case KeyEvent.VK_MINUS, KeyEvent.VK_SUBTRACT ->
-                minusButton.doClick();
-            case KeyEvent.VK_MULTIPLY ->
-                multiplyButton.doClick();
-            case KeyEvent.VK_DIVIDE, KeyEvent.VK_SLASH -> {
-                if (e.isShiftDown()) {
-                    equalsButton.doClick();  // Shift + '/' triggers '?', acting as equals
-                } else {
-                    divideButton.doClick();  // '/' triggers divide
-                }
+        }
+        if (history == null) {
+            history = HistoryTape.allocate(HistoryTape.DEFAULT_SLOTS / 16, HistoryTape.DEFAULT_TEXT_BYTES / 16);
+        }
+        controller.setResultListener((expression, value, result) -> {
+            history.append(expression, value, result);
+            if (historyDialog != null && historyDialog.isVisible()) {
+                historyDialog.refresh();
+            }
+        });
+    }
+
+    private void showHistory() {
+        if (historyDialog == null) {
+            historyDialog = new HistoryDialog(this, history, controller);
+        }
+        historyDialog.refresh();
+        historyDialog.setVisible(true);
+    }
+
+    private void initializeStartupProbe() {
+        // -Dcalculator.startupProbe=keys types the keys as soon as the window opens, reports
+        // each milestone on stdout and exits; StartupTest times the lines, and the startup
+        // profile uses it as the AppCDS training run
+        String keys = System.getProperty("calculator.startupProbe");
+        if (keys == null) {
+            return;
+        }
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                System.out.println("first-frame");
+                Keystrokes.replay(controller, keys);
+                // Queued behind the repaint of the display
+                java.awt.EventQueue.invokeLater(() -> {
+                    System.out.println("first-result " + displayField.getText() + expField.getText());
+                    System.exit(0);
+                });
             }
+        });
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        KeyPressEvent event = keyPressEvent;
+        event.begin();
+        long start = CalculatorMetrics.start();
+        int keyCode = e.getKeyCode();
+        pressKey(e, keyCode);
+        CalculatorMetrics.KEY_PRESSES.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.keyCode = keyCode;
+            event.commit();
+        }
+    }
 
-            case KeyEvent.VK_ENTER, KeyEvent.VK_EQUALS ->
-                equalsButton.doClick();
-            case KeyEvent.VK_BACK_SPACE, KeyEvent.VK_DELETE ->
-                delButton.doClick(); // Both Backspace and Delete trigger DEL
-            case KeyEvent.VK_ESCAPE ->
-                allClearButton.doClick();
-            case KeyEvent.VK_PERIOD ->
-                decimalButton.doClick();
-            case KeyEvent.VK_P, KeyEvent.VK_N ->
-                signChangeButton.doClick();
-            case KeyEvent.VK_E ->
-                expButton.doClick();
-
-            // Other keys are ignored
+    private void pressKey(KeyEvent e, int keyCode) {
+        char typed = e.getKeyChar();
+        // Parentheses are on different keys in different layouts, so they too go by the character typed
+        if (typed == '(' || typed == ')') {
+            (typed == '(' ? openGroup : closeGroup).run();
+            return;
         }
+        // Added operators have no button, so they go by the character typed, whatever the layout
+        if (typed != KeyEvent.CHAR_UNDEFINED && !Operators.isBuiltIn(typed)) {
+            String operator = Operators.symbol(typed);
+            if (operator != null) {
+                controller.handleOperation(operator);
+                return;
+            }
+        }
+        // Other keys are ignored
+        keyCommands.dispatch(keyCode, e.isShiftDown());
     }
 
     @Override
@@ -113,94 +191,123 @@ public class CalculatorUI extends javax.swing.JFrame implements KeyListener {
         this.requestFocusInWindow();
     }
 
-    private boolean isFlashing = false;
+    private void attachListeners() {
+        JButton[] numberButtons = {zeroButton, oneButton, twoButton, threeButton, fourButton,
+            fiveButton, sixButton, sevenButton, eightButton, nineButton};
+        Runnable[] digits = new Runnable[numberButtons.length];
+        for (int digit = 0; digit < numberButtons.length; digit++) {
+            String text = numberButtons[digit].getText();
+            digits[digit] = bind(numberButtons[digit], () -> controller.appendToDisplay(text));
+        }
+        Runnable[] operators = {
+            bind(plusButton, () -> controller.handleOperation("+")),
+            bind(minusButton, () -> controller.handleOperation("-")),
+            bind(multiplyButton, () -> controller.handleOperation("*")),
+            bind(divideButton, () -> controller.handleOperation("/"))
+        };
+        bindKeypad(keyCommands, digits, bind(decimalButton, () -> controller.appendToDisplay(".")), operators,
+                bind(equalsButton, controller::calculateResult), bind(delButton, controller::handleDelete),
+                bind(signChangeButton, controller::handleSignChange), bind(expButton, controller::handleExp),
+                bind(allClearButton, controller::handleAllClear));
+    }
 
-    private void flashButton(JButton button, Color flashColor, int duration) {
-        if (isFlashing) {
-            return; // Skip if flash is already in progress
+    /**
+     * Binds the keys of the keypad buttons to their commands: digits 0 to 9,
+     * then {@code + - * /}.
+     */
+    static void bindKeypad(KeyCommandTable keyCommands, Runnable[] digits, Runnable decimal, Runnable[] operators,
+            Runnable equals, Runnable delete, Runnable signChange, Runnable exp, Runnable allClear) {
+        int[] mainKeys = {KeyEvent.VK_0, KeyEvent.VK_1, KeyEvent.VK_2, KeyEvent.VK_3, KeyEvent.VK_4,
+            KeyEvent.VK_5, KeyEvent.VK_6, KeyEvent.VK_7, KeyEvent.VK_8, KeyEvent.VK_9};
+        for (int digit = 0; digit < digits.length; digit++) {
+            keyCommands.bind(digits[digit], mainKeys[digit], KeyEvent.VK_NUMPAD0 + digit);
         }
-        isFlashing = true;
+        keyCommands.bind(decimal, KeyEvent.VK_PERIOD);
+
+        keyCommands.bind(operators[0], KeyEvent.VK_PLUS, KeyEvent.VK_ADD);
+        keyCommands.bind(operators[1], KeyEvent.VK_MINUS, KeyEvent.VK_SUBTRACT);
+        keyCommands.bind(operators[2], KeyEvent.VK_MULTIPLY);
+        keyCommands.bindShifted(operators[2], KeyEvent.VK_8);  // '*' on the main keyboard
+        keyCommands.bind(operators[3], KeyEvent.VK_DIVIDE, KeyEvent.VK_SLASH);
+
+        keyCommands.bind(equals, KeyEvent.VK_ENTER, KeyEvent.VK_EQUALS);
+        keyCommands.bindShifted(equals, KeyEvent.VK_SLASH);  // '?' acts as equals
+        keyCommands.bindShifted(equals, KeyEvent.VK_DIVIDE);
+        keyCommands.bind(delete, KeyEvent.VK_BACK_SPACE, KeyEvent.VK_DELETE);
+        keyCommands.bind(signChange, KeyEvent.VK_P, KeyEvent.VK_N);
+        keyCommands.bind(exp, KeyEvent.VK_E);
+        keyCommands.bind(allClear, KeyEvent.VK_ESCAPE);
+    }
 
-        Color originalColor = button.getBackground();
-        button.setBackground(flashColor);
+    private void initializeFunctions() {
+        // A row of parentheses and function buttons between the display and the keypad, each
+        // function also on its letter key
+        ScientificFunction[] functions = ScientificFunction.values();
+        JPanel functionPanel = new JPanel(new java.awt.GridLayout(1, functions.length + 2, 2, 2));
+        functionPanel.setBorder(javax.swing.BorderFactory.createEmptyBorder(2, 2, 0, 2));
+        openGroup = bind(functionButton("(", functionPanel), controller::handleOpenGroup);
+        closeGroup = bind(functionButton(")", functionPanel), controller::handleCloseGroup);
+        for (ScientificFunction function : functions) {
+            JButton button = functionButton(function.label(), functionPanel);
+            keyCommands.bind(bind(button, () -> controller.handleFunction(function)), Character.toUpperCase(function.key()));
+        }
+        getContentPane().add(functionPanel, java.awt.BorderLayout.CENTER);
 
-        new javax.swing.Timer(duration, e -> {
-            button.setBackground(originalColor);
-            isFlashing = false; // Reset flash flag when done
-            ((javax.swing.Timer) e.getSource()).stop();
-        }).start();
+        java.awt.Dimension size = new java.awt.Dimension(getMinimumSize().width, getMinimumSize().height + 30);
+        setMinimumSize(size);
+        setMaximumSize(size);
+        pack();
     }
 
-    private void attachListeners() {
-        Color flashColor = new Color(57, 255, 20);  // Custom flash color
-        int flashDuration = 100;                    // Flash duration in milliseconds
+    private static JButton functionButton(String label, JPanel panel) {
+        JButton button = new JButton(label);
+        button.setBackground(new Color(0, 0, 0));
+        button.setForeground(new Color(255, 255, 255));
+        button.setFont(new java.awt.Font("Segoe UI", 1, 12));
+        button.setBorder(new javax.swing.border.SoftBevelBorder(javax.swing.border.BevelBorder.RAISED));
+        button.setPreferredSize(new java.awt.Dimension(36, 28));
+        button.setFocusable(false);
+        panel.add(button);
+        return button;
+    }
 
-        ActionListener numberButtonListener = e -> {
-            JButton sourceButton = (JButton) e.getSource();
-            flashButton(sourceButton, flashColor, flashDuration);
-            controller.appendToDisplay(sourceButton.getText());
-            this.requestFocusInWindow(); // Refocus on main window after click
+    /**
+     * Makes the button flash and run the action when clicked, and returns the
+     * same as a command for keys. A key runs it directly rather than through
+     * doClick, which holds the event dispatch thread for the press animation.
+     */
+    private Runnable bind(JButton button, Runnable action) {
+        flashes.register(button);
+        Runnable command = () -> {
+            flashes.flash(button);
+            action.run();
         };
-
-        // Array of all number buttons
-        JButton[] numberButtons = {zeroButton, oneButton, twoButton, threeButton, fourButton,
-            fiveButton, sixButton, sevenButton, eightButton, nineButton,
-            decimalButton};
-
-        // Add action listener to each number button
-        for (JButton button : numberButtons) {
-            button.addActionListener(numberButtonListener);
-        }
-
-        // Specific action listeners for operations
-        plusButton.addActionListener(e -> {
-            flashButton(plusButton, flashColor, flashDuration);
-            controller.handleOperation("+");
-            this.requestFocusInWindow(); // Refocus after operation
-        });
-        minusButton.addActionListener(e -> {
-            flashButton(minusButton, flashColor, flashDuration);
-            controller.handleOperation("-");
-            this.requestFocusInWindow();
-        });
-        multiplyButton.addActionListener(e -> {
-            flashButton(multiplyButton, flashColor, flashDuration);
-            controller.handleOperation("*");
-            this.requestFocusInWindow();
-        });
-        divideButton.addActionListener(e -> {
-            flashButton(divideButton, flashColor, flashDuration);
-            controller.handleOperation("/");
-            this.requestFocusInWindow();
-        });
-
-        equalsButton.addActionListener(e -> {
-            flashButton(equalsButton, flashColor, flashDuration);
-            controller.calculateResult();
-            this.requestFocusInWindow();
-        });
-        delButton.addActionListener(e -> {
-            flashButton(delButton, flashColor, flashDuration); // Corrected button to `delButton`
-            controller.handleDelete();
-            this.requestFocusInWindow();
-        });
-        signChangeButton.addActionListener(e -> {
-            flashButton(signChangeButton, flashColor, flashDuration);
-            controller.handleSignChange();
-            this.requestFocusInWindow();
-        });
-        expButton.addActionListener(e -> {
-            flashButton(expButton, flashColor, flashDuration);
-            controller.handleExp();
-            this.requestFocusInWindow();
-        });
-        allClearButton.addActionListener(e -> {
-            flashButton(allClearButton, flashColor, flashDuration); // Corrected button to `allClearButton`
-            controller.handleAllClear();
-            this.requestFocusInWindow();
+        button.addActionListener(e -> {
+            command.run();
+            this.requestFocusInWindow(); // Refocus on main window after click
         });
+        return command;
     }
     
+    private void initializePreview() {
+        // A small line above the display showing the result so far while typing
+        previewField.setEditable(false);
+        previewField.setBackground(displayField.getBackground());
+        previewField.setForeground(new Color(90, 110, 90));
+        previewField.setFont(new java.awt.Font("Monospaced", 0, 12));
+        previewField.setHorizontalAlignment(JTextField.RIGHT);
+        previewField.setBorder(null);
+        previewField.setFocusable(false);
+        previewField.setPreferredSize(new java.awt.Dimension(65, 16));
+        fieldPanel.add(previewField, java.awt.BorderLayout.NORTH);
+
+        // The generated form fixes the frame size, so make room for the extra line
+        java.awt.Dimension size = new java.awt.Dimension(getMinimumSize().width, getMinimumSize().height + 16);
+        setMinimumSize(size);
+        setMaximumSize(size);
+        pack();
+    }
+
     void initializeCopyMenu() {
         // Add the right-click copy functionality to the displayField
         JPopupMenu popupMenu = new JPopupMenu();
@@ -217,9 +324,75 @@ public class CalculatorUI extends javax.swing.JFrame implements KeyListener {
             clipboard.setContents(stringSelection, null);
         });
         popupMenu.add(copyItem);
+
+        JMenuItem pasteItem = new JMenuItem("Paste");
+        pasteItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_V, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+        pasteItem.addActionListener(e -> paste());
+        popupMenu.add(pasteItem);
+        // The popup's accelerator only works while it is showing, so bind Ctrl+V for the whole window
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(pasteItem.getAccelerator(), "paste");
+        getRootPane().getActionMap().put("paste", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                paste();
+            }
+        });
+
+        JMenuItem historyItem = new JMenuItem("History...");
+        historyItem.addActionListener(e -> showHistory());
+        popupMenu.add(historyItem);
+
+        // Decimal arithmetic avoids binary rounding such as 0.1 + 0.2
+        JCheckBoxMenuItem decimalItem = new JCheckBoxMenuItem("Decimal Arithmetic");
+        decimalItem.addActionListener(e -> controller.setMathContext(decimalItem.isSelected() ? MathContext.DECIMAL128 : null));
+        popupMenu.add(decimalItem);
+
+        // Approximations within a few ulp instead of StrictMath, see FunctionMode
+        JCheckBoxMenuItem fastFunctionsItem = new JCheckBoxMenuItem("Fast Functions");
+        fastFunctionsItem.addActionListener(e -> controller.setFunctionMode(
+                fastFunctionsItem.isSelected() ? FunctionMode.FAST : FunctionMode.STRICT));
+        popupMenu.add(fastFunctionsItem);
+        if (CalculatorMetrics.ENABLED) {
+            JMenuItem metricsItem = new JMenuItem("Dump Metrics");
+            metricsItem.addActionListener(e -> CalculatorMetrics.dump(System.out));
+            popupMenu.add(metricsItem);
+        }
         displayField.setComponentPopupMenu(popupMenu);  // Attach popup to displayField
     }
 
+    /**
+     * Enters the expression on the clipboard. A long paste is tokenized on a
+     * worker thread and then entered in one step, so the window stays
+     * responsive; keys typed meanwhile are handled before it.
+     */
+    private void paste() {
+        String text;
+        try {
+            text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+        } catch (UnsupportedFlavorException | IOException e) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        new SwingWorker<PastedExpression, Void>() {
+            @Override
+            protected PastedExpression doInBackground() {
+                return PastedExpression.parse(text);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    controller.paste(get());
+                } catch (ExecutionException e) {
+                    // Not an expression; leave the calculator as it was
+                    Toolkit.getDefaultToolkit().beep();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -616,6 +789,11 @@ public class CalculatorUI extends javax.swing.JFrame implements KeyListener {
      * @param args the command line arguments
      */
     public static void main(String args[]) {
+        // -Dcalculator.warmup=true compiles the calculator paths while Swing loads
+        if (Boolean.getBoolean("calculator.warmup")) {
+            StartupWarmup.start();
+        }
+
         /* Set the Nimbus look and feel */
         //<editor-fold defaultstate="collapsed" desc=" Look and feel setting code (optional) ">
         /* If Nimbus (introduced in Java SE 6) is not available, stay with the default look and feel.
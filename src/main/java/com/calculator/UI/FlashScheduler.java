@@ -0,0 +1,102 @@
+package com.calculator.UI;
+
+import java.awt.Color;
+import java.util.Arrays;
+import javax.swing.JButton;
+import javax.swing.Timer;
+
+/**
+ * Flashes buttons as feedback for clicks and keys, with one timer for all of
+ * them. Each registered button has its own deadline, so a burst of keys
+ * flashes every button pressed and a button pressed again stays lit until its
+ * latest deadline. All buttons whose flash has ended are restored on the same
+ * tick, so their repaints are coalesced into one paint.
+ *
+ * Flashing a button only writes its deadline; nothing is allocated per click.
+ * The timer runs only while some button is lit, and must be used on the event
+ * dispatch thread like the buttons themselves.
+ */
+public final class FlashScheduler {
+
+    // About one frame; a flash ends at most this late
+    static final int TICK_MILLIS = 16;
+
+    private final Color flashColor;
+    private final long durationNanos;
+    // The only timer; package-private for the tests
+    final Timer timer;
+    private JButton[] buttons = new JButton[0];
+    private Color[] originals = new Color[0];
+    // Zero when the button is not lit
+    private long[] deadlines = new long[0];
+    private int lit = 0;
+
+    public FlashScheduler(Color flashColor, int durationMillis) {
+        this.flashColor = flashColor;
+        this.durationNanos = durationMillis * 1_000_000L;
+        this.timer = new Timer(TICK_MILLIS, e -> tick(System.nanoTime()));
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Makes a button flashable; call once per button, before flashing it.
+     */
+    public void register(JButton button) {
+        int n = buttons.length;
+        buttons = Arrays.copyOf(buttons, n + 1);
+        originals = Arrays.copyOf(originals, n + 1);
+        deadlines = Arrays.copyOf(deadlines, n + 1);
+        buttons[n] = button;
+    }
+
+    /**
+     * Lights the button, or keeps it lit, until the flash duration from now.
+     */
+    public void flash(JButton button) {
+        int i = indexOf(button);
+        if (i < 0) {
+            throw new IllegalArgumentException("Button not registered: " + button.getText());
+        }
+        if (deadlines[i] == 0) {
+            originals[i] = button.getBackground();
+            button.setBackground(flashColor);
+            lit++;
+        }
+        // Never 0, which marks an unlit button
+        deadlines[i] = (System.nanoTime() + durationNanos) | 1;
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Number of buttons lit right now.
+     */
+    public int litCount() {
+        return lit;
+    }
+
+    private int indexOf(JButton button) {
+        // A calculator has a couple of dozen buttons at most
+        for (int i = 0; i < buttons.length; i++) {
+            if (buttons[i] == button) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void tick(long now) {
+        for (int i = 0; i < deadlines.length; i++) {
+            if (deadlines[i] != 0 && deadlines[i] - now <= 0) {
+                buttons[i].setBackground(originals[i]);
+                originals[i] = null;
+                deadlines[i] = 0;
+                lit--;
+            }
+        }
+        if (lit == 0) {
+            timer.stop();
+        }
+    }
+}
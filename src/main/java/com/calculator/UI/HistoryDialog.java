@@ -0,0 +1,180 @@
+package com.calculator.UI;
+
+import com.calculator.history.HistoryTape;
+import com.calculator.logic.CalculatorController;
+import com.calculator.logic.PastedExpression;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.Frame;
+import java.awt.Toolkit;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import javax.swing.AbstractListModel;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Scrollable view of the history tape, newest first, with a search by the
+ * start of the expression or by result. Rows are read from the tape only as
+ * they scroll into view, so a tape of millions of entries opens instantly.
+ * Double-clicking a row enters its result on the calculator.
+ */
+class HistoryDialog extends JDialog {
+
+    // Most matches a search lists
+    private static final int MAX_MATCHES = 100_000;
+    // Results within this relative distance of the value searched for match it
+    private static final double VALUE_TOLERANCE = 1e-12;
+
+    private final HistoryTape tape;
+    private final CalculatorController controller;
+    private final EntryModel model = new EntryModel();
+    private final JTextField searchField = new JTextField();
+    private final JComboBox<String> searchMode = new JComboBox<>(new String[]{"Starts with", "Result"});
+    private final JList<String> list = new JList<>(model);
+
+    HistoryDialog(Frame owner, HistoryTape tape, CalculatorController controller) {
+        super(owner, "History", false);
+        this.tape = tape;
+        this.controller = controller;
+
+        list.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        // A fixed row height keeps the list from measuring every row
+        list.setPrototypeCellValue("X".repeat(40));
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && list.getSelectedIndex() >= 0) {
+                    enterResult(model.entry(list.getSelectedIndex()));
+                }
+            }
+        });
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                refresh();
+            }
+        });
+        searchMode.addActionListener(e -> refresh());
+
+        JPanel searchPanel = new JPanel(new BorderLayout());
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        searchPanel.add(searchMode, BorderLayout.EAST);
+        add(searchPanel, BorderLayout.NORTH);
+        add(new JScrollPane(list), BorderLayout.CENTER);
+        setSize(360, 420);
+        setLocationRelativeTo(owner);
+    }
+
+    /**
+     * Shows the tape as it is now, searched by what is in the search field.
+     */
+    void refresh() {
+        String search = searchField.getText().trim();
+        if (search.isEmpty()) {
+            model.showAll();
+        } else if (searchMode.getSelectedIndex() == 0) {
+            model.showMatches(search, Double.NaN);
+        } else {
+            try {
+                model.showMatches(null, Double.parseDouble(search));
+            } catch (NumberFormatException e) {
+                model.showMatches(null, Double.NaN);
+            }
+        }
+    }
+
+    private void enterResult(long entry) {
+        String text = tape.text(entry);
+        String result = text.substring(text.lastIndexOf('=') + 1);
+        boolean negative = result.startsWith("-");
+        try {
+            controller.paste(PastedExpression.parse(negative ? result.substring(1) : result));
+        } catch (IllegalArgumentException e) {
+            // NaN and overflow are not numbers the calculator can take
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        if (negative) {
+            controller.handleSignChange();
+        }
+    }
+
+    /**
+     * Rows of the list: every entry on the tape, or the entries a search
+     * matched, newest first.
+     */
+    private final class EntryModel extends AbstractListModel<String> {
+
+        private boolean all = true;
+        private long newest;
+        private int size;
+        private long[] matches = new long[0];
+
+        void showAll() {
+            all = true;
+            newest = tape.end() - 1;
+            size = tape.size();
+            fireContentsChanged(this, 0, Integer.MAX_VALUE);
+        }
+
+        void showMatches(String prefix, double value) {
+            all = false;
+            long[] found = new long[64];
+            int count = 0;
+            if (prefix != null || !Double.isNaN(value)) {
+                double tolerance = Math.abs(value) * VALUE_TOLERANCE;
+                long entry = tape.end();
+                while (count < MAX_MATCHES) {
+                    entry = prefix != null ? tape.findPrefix(prefix, entry)
+                            : tape.findValue(value - tolerance, value + tolerance, entry);
+                    if (entry < 0) {
+                        break;
+                    }
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = entry;
+                }
+            }
+            matches = found;
+            size = count;
+            fireContentsChanged(this, 0, Integer.MAX_VALUE);
+        }
+
+        long entry(int index) {
+            return all ? newest - index : matches[index];
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            long entry = entry(index);
+            // An entry dropped since the list was filled shows as empty until the next refresh
+            return entry >= tape.first() && entry < tape.end() ? tape.text(entry) : "";
+        }
+    }
+}
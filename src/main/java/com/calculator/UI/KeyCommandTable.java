@@ -0,0 +1,60 @@
+package com.calculator.UI;
+
+/**
+ * Commands by key code, looked up in an array filled once when the UI is
+ * built. A key held with Shift can have a command of its own, as Shift+8 is
+ * {@code *} on the main keyboard; otherwise it runs the same command as
+ * without Shift.
+ *
+ * Commands run on the event dispatch thread as the key events arrive, which
+ * keeps them in the order they were typed. They must return promptly, since
+ * every later key waits for them.
+ */
+public final class KeyCommandTable {
+
+    // Every key code the calculator binds is below this; VK_PLUS is the largest
+    private static final int KEY_CODES = 0x210;
+
+    private final Runnable[] commands = new Runnable[KEY_CODES];
+    private final Runnable[] shiftCommands = new Runnable[KEY_CODES];
+
+    /**
+     * Runs the command for each of the key codes, with or without Shift
+     * unless Shift has a command of its own.
+     */
+    public void bind(Runnable command, int... keyCodes) {
+        for (int keyCode : keyCodes) {
+            checkKeyCode(keyCode);
+            commands[keyCode] = command;
+        }
+    }
+
+    /**
+     * Runs the command for the key code held with Shift.
+     */
+    public void bindShifted(Runnable command, int keyCode) {
+        checkKeyCode(keyCode);
+        shiftCommands[keyCode] = command;
+    }
+
+    private static void checkKeyCode(int keyCode) {
+        if (keyCode < 0 || keyCode >= KEY_CODES) {
+            throw new IllegalArgumentException("Key code out of range: " + keyCode);
+        }
+    }
+
+    /**
+     * Runs the command bound to the key, and reports whether there was one.
+     */
+    public boolean dispatch(int keyCode, boolean shiftDown) {
+        if (keyCode < 0 || keyCode >= KEY_CODES) {
+            return false;
+        }
+        Runnable command = shiftDown && shiftCommands[keyCode] != null ? shiftCommands[keyCode] : commands[keyCode];
+        if (command == null) {
+            return false;
+        }
+        command.run();
+        return true;
+    }
+}
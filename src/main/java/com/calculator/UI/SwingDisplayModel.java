@@ -0,0 +1,63 @@
+package com.calculator.UI;
+
+import com.calculator.logic.DisplayModel;
+import javax.swing.JTextField;
+
+/**
+ * Shows the display model in the calculator's text fields.
+ */
+public class SwingDisplayModel implements DisplayModel {
+
+    private final JTextField displayField;
+    private final JTextField operatorField;
+    private final JTextField expField;
+    private final JTextField previewField;
+
+    public SwingDisplayModel(JTextField displayField, JTextField operatorField, JTextField expField,
+            JTextField previewField) {
+        this.displayField = displayField;
+        this.operatorField = operatorField;
+        this.expField = expField;
+        this.previewField = previewField;
+    }
+
+    @Override
+    public void setDisplay(CharSequence text) {
+        displayField.setText(text.toString());
+    }
+
+    @Override
+    public void setOperator(CharSequence text) {
+        operatorField.setText(text.toString());
+    }
+
+    @Override
+    public void setExponent(CharSequence text) {
+        expField.setText(text.toString());
+    }
+
+    @Override
+    public void setPreview(CharSequence text) {
+        previewField.setText(text.toString());
+    }
+
+    @Override
+    public CharSequence getDisplay() {
+        return displayField.getText();
+    }
+
+    @Override
+    public CharSequence getOperator() {
+        return operatorField.getText();
+    }
+
+    @Override
+    public CharSequence getExponent() {
+        return expField.getText();
+    }
+
+    @Override
+    public CharSequence getPreview() {
+        return previewField.getText();
+    }
+}
@@ -1,16 +1,11 @@
 package com.calculator.UI;
 
+import com.calculator.logic.Operators;
+
 public class SymbolFormatter {
 
-    // Maps operations to their display symbols
+    // Maps operations to their display symbols, as the operator registry has them
     public static String getDisplaySymbol(String operation) {
-        return switch (operation) {
-            case "*" ->
-                "\u00D7";
-            case "/" ->
-                "\u00F7"; // Example: division symbol
-            default ->
-                operation; // For other operators, return as-is
-        };
+        return Operators.displaySymbol(operation);
     }
 }
@@ -0,0 +1,221 @@
+package com.calculator.cli;
+
+import com.calculator.logic.CalculatorController;
+import com.calculator.logic.CalculatorLogic;
+import com.calculator.logic.ExpressionTree;
+import com.calculator.logic.Keystrokes;
+import com.calculator.logic.MemoryDisplayModel;
+import com.calculator.logic.Operators;
+import com.calculator.logic.ResultFormatter;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Headless batch mode. Reads one infix expression per line, such as
+ * {@code 12.5 + 3 * -4E-2}, evaluates it with the same precedence rules as the
+ * keypad and writes the result as the display would show it, digits followed by
+ * the exponent if any. Lines with parentheses, such as {@code (1 + 2) * 3}, are
+ * parsed into an {@link ExpressionTree}, however deeply they nest. Lines that
+ * are not valid expressions produce {@code Error}; blank lines are echoed so
+ * output stays aligned with input.
+ *
+ * With {@code --keys} each line is instead a keystroke sequence replayed through
+ * CalculatorController from a cleared display, and the output is what the display
+ * shows afterwards. Keys are as in {@link Keystrokes}; other characters are
+ * ignored.
+ *
+ * Usage: {@code java -cp Calculator.jar com.calculator.cli.CalculatorCli [--keys] [file]}
+ * reads from the file, or from stdin when no file (or {@code -}) is given.
+ */
+public class CalculatorCli {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] ERROR = "Error".getBytes(StandardCharsets.US_ASCII);
+
+    private final CalculatorLogic calculatorLogic = new CalculatorLogic();
+    private final ResultFormatter resultFormatter = new ResultFormatter();
+    private final boolean keystrokes;
+    private final MemoryDisplayModel displayModel = new MemoryDisplayModel();
+    private final CalculatorController controller = new CalculatorController(new CalculatorLogic(), displayModel);
+    private final OutputStream out;
+    private final byte[] outBuffer = new byte[BUFFER_SIZE];
+    private int outCount = 0;
+
+    private final NumberScanner scanner = new NumberScanner();
+    private final ExpressionTree tree = new ExpressionTree();
+
+    public CalculatorCli(OutputStream out, boolean keystrokes) {
+        this.out = out;
+        this.keystrokes = keystrokes;
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        boolean keystrokes = args.length > 0 && "--keys".equals(args[0]);
+        int fileArg = keystrokes ? 1 : 0;
+        boolean fromStdin = args.length <= fileArg || "-".equals(args[fileArg]);
+        try (InputStream in = fromStdin ? new FileInputStream(FileDescriptor.in) : new FileInputStream(args[fileArg])) {
+            CalculatorCli cli = new CalculatorCli(new FileOutputStream(FileDescriptor.out), keystrokes);
+            cli.run(in);
+        }
+    }
+
+    /**
+     * Evaluates every line of the input and flushes the results.
+     */
+    public void run(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int length = 0;
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) > 0) {
+            length += read;
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    processLine(buffer, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            // Carry the incomplete last line over, growing the buffer for very long lines
+            length -= lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, length);
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        if (length > 0) {
+            processLine(buffer, 0, length);
+        }
+        flush();
+    }
+
+    private void processLine(byte[] line, int start, int end) throws IOException {
+        if (end > start && line[end - 1] == '\r') {
+            end--;
+        }
+        if (outBuffer.length - outCount < 64) {
+            flushBuffer();
+        }
+        if (isBlank(line, start, end)) {
+            // Keep output aligned with input
+        } else if (keystrokes ? replay(line, start, end) : evaluate(line, start, end)) {
+            CharSequence digits = keystrokes ? displayModel.getDisplay() : resultFormatter.digits();
+            CharSequence exponent = keystrokes ? displayModel.getExponent() : resultFormatter.exponent();
+            if (outBuffer.length - outCount < digits.length() + exponent.length() + 1) {
+                flushBuffer();
+            }
+            write(digits);
+            write(exponent);
+        } else {
+            System.arraycopy(ERROR, 0, outBuffer, outCount, ERROR.length);
+            outCount += ERROR.length;
+        }
+        outBuffer[outCount++] = '\n';
+    }
+
+    /**
+     * Replays one line of keystrokes through the controller from a cleared
+     * display. Returns false if the controller rejects the resulting input.
+     */
+    boolean replay(byte[] line, int start, int end) {
+        controller.handleAllClear();
+        try {
+            for (int i = start; i < end; i++) {
+                Keystrokes.press(controller, (char) (line[i] & 0xFF));
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            // e.g. deleting back to a lone minus sign leaves nothing to parse
+            return false;
+        }
+    }
+
+    /**
+     * Parses and evaluates one expression, formatting the result into
+     * resultFormatter. Returns false if the line is not a well-formed sequence of
+     * operands and operators.
+     */
+    boolean evaluate(byte[] line, int start, int end) {
+        if (!evaluateFlat(line, start, end)) {
+            calculatorLogic.clear();
+            return hasParenthesis(line, start, end) && evaluateTree(line, start, end);
+        }
+        return true;
+    }
+
+    // Operands and operators only, pushed straight onto the engine
+    private boolean evaluateFlat(byte[] line, int start, int end) {
+        calculatorLogic.clear();
+        scanner.pos = start;
+        while (true) {
+            scanner.skipSpaces(line, end);
+            if (!scanner.scan(line, end)) {
+                return false;
+            }
+            calculatorLogic.pushOperand(scanner.value);
+            scanner.skipSpaces(line, end);
+            if (scanner.pos == end) {
+                resultFormatter.format(calculatorLogic.getResult());
+                calculatorLogic.clear();
+                return true;
+            }
+            String operator = Operators.symbol((char) (line[scanner.pos] & 0xFF));
+            if (operator == null) {
+                return false;
+            }
+            calculatorLogic.pushOperator(operator);
+            scanner.pos++;
+        }
+    }
+
+    private boolean evaluateTree(byte[] line, int start, int end) {
+        try {
+            tree.parse(new String(line, start, end - start, StandardCharsets.ISO_8859_1));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        resultFormatter.format(tree.evaluate());
+        return true;
+    }
+
+    private static boolean hasParenthesis(byte[] line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line[i] == '(' || line[i] == ')') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBlank(byte[] line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line[i] != ' ' && line[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(CharSequence text) {
+        // Display text is plain ASCII; callers make room first
+        for (int i = 0; i < text.length(); i++) {
+            outBuffer[outCount++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(outBuffer, 0, outCount);
+        outCount = 0;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+}
@@ -0,0 +1,356 @@
+package com.calculator.cli;
+
+import com.calculator.logic.CompiledExpression;
+import com.calculator.logic.ExpressionCompiler;
+import com.calculator.logic.Operators;
+import com.calculator.logic.ResultFormatter;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless column mode. Applies one expression over the numeric columns of a
+ * CSV file, such as {@code $2 * $3 + 0.5} where {@code $n} is the n-th column,
+ * with the same precedence rules as the keypad, and writes one result per row
+ * as the display would show it. Rows whose referenced fields are missing or not
+ * numbers produce {@code Error}; blank rows are echoed so output stays aligned
+ * with input.
+ *
+ * The input is memory-mapped, so files of any size are read without going
+ * through the heap. It is cut into chunks at line breaks and the chunks are
+ * evaluated in parallel, each copied once from the mapping into a reused buffer
+ * and parsed there field by field without creating strings. Finished chunks are
+ * written in input order, and at most a few chunks per thread are in flight, so
+ * the heap used stays the same whatever the file size. Fields may be quoted, but
+ * may not contain line breaks.
+ *
+ * Usage: {@code java -cp Calculator.jar com.calculator.cli.CsvCalculator
+ * [--header] [--delimiter=c] [--threads=n] expression input output}. With
+ * {@code --header} the first row is skipped and the expression is written as
+ * the output's header.
+ */
+public class CsvCalculator {
+
+    static final int CHUNK_BYTES = 8 << 20;
+    // Chunks in flight per thread: one being evaluated, one waiting to be written
+    private static final int CHUNKS_PER_THREAD = 2;
+    // Longest result line: sign, 15 digits, point, exponent, line break
+    private static final int MAX_RESULT_BYTES = 32;
+    private static final byte[] ERROR = "Error".getBytes(StandardCharsets.US_ASCII);
+
+    private final String expression;
+    private final CompiledExpression compiled;
+    private final int operandCount;
+    // Referenced columns, zero-based and ascending
+    private final int[] columns;
+    // Per operand slot: the index into columns it reads, or -1 for a constant
+    private final int[] sources;
+    private final double[] constants;
+    private final byte delimiter;
+    private final boolean header;
+    private final int threads;
+
+    /**
+     * Compiles an expression over columns. Throws IllegalArgumentException if
+     * it is not a well-formed sequence of column references, numbers and
+     * operators.
+     */
+    public CsvCalculator(String expression, byte delimiter, boolean header, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.expression = expression;
+        this.delimiter = delimiter;
+        this.header = header;
+        this.threads = threads;
+
+        byte[] text = expression.getBytes(StandardCharsets.US_ASCII);
+        NumberScanner scanner = new NumberScanner();
+        StringBuilder operators = new StringBuilder();
+        int[] slotColumns = new int[8];
+        double[] slotConstants = new double[8];
+        int slots = 0;
+        while (true) {
+            scanner.skipSpaces(text, text.length);
+            if (slots == slotColumns.length) {
+                slotColumns = Arrays.copyOf(slotColumns, slots * 2);
+                slotConstants = Arrays.copyOf(slotConstants, slots * 2);
+            }
+            if (scanner.pos < text.length && text[scanner.pos] == '$') {
+                scanner.pos++;
+                int column = 0;
+                int digitsStart = scanner.pos;
+                while (scanner.pos < text.length && text[scanner.pos] >= '0' && text[scanner.pos] <= '9'
+                        && column < 1_000_000) {
+                    column = column * 10 + (text[scanner.pos++] - '0');
+                }
+                if (scanner.pos == digitsStart || column == 0) {
+                    throw new IllegalArgumentException("Expected a column number after $ at " + digitsStart + ": " + expression);
+                }
+                slotColumns[slots++] = column - 1;
+            } else if (scanner.scan(text, text.length)) {
+                slotColumns[slots] = -1;
+                slotConstants[slots++] = scanner.value;
+            } else {
+                throw new IllegalArgumentException("Expected a column or number at " + scanner.pos + ": " + expression);
+            }
+            scanner.skipSpaces(text, text.length);
+            if (scanner.pos == text.length) {
+                break;
+            }
+            byte operator = text[scanner.pos++];
+            if (Operators.symbol((char) operator) == null) {
+                throw new IllegalArgumentException("Expected an operator at " + (scanner.pos - 1) + ": " + expression);
+            }
+            operators.append((char) operator);
+        }
+
+        this.compiled = new ExpressionCompiler(1).compile(operators.toString());
+        this.operandCount = slots;
+        this.columns = Arrays.stream(slotColumns, 0, slots).filter(column -> column >= 0).distinct().sorted().toArray();
+        this.sources = new int[slots];
+        this.constants = Arrays.copyOf(slotConstants, slots);
+        for (int slot = 0; slot < slots; slot++) {
+            sources[slot] = slotColumns[slot] < 0 ? -1 : Arrays.binarySearch(columns, slotColumns[slot]);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        boolean header = false;
+        byte delimiter = ',';
+        int threads = Runtime.getRuntime().availableProcessors();
+        int arg = 0;
+        for (; arg < args.length && args[arg].startsWith("--"); arg++) {
+            if (args[arg].equals("--header")) {
+                header = true;
+            } else if (args[arg].startsWith("--delimiter=") && args[arg].length() == "--delimiter=".length() + 1) {
+                delimiter = (byte) args[arg].charAt(args[arg].length() - 1);
+            } else if (args[arg].startsWith("--threads=")) {
+                threads = Integer.parseInt(args[arg].substring("--threads=".length()));
+            } else {
+                arg = args.length;
+            }
+        }
+        if (args.length - arg != 3) {
+            System.err.println("Usage: CsvCalculator [--header] [--delimiter=c] [--threads=n] expression input output");
+            System.exit(2);
+        }
+        CsvCalculator calculator = new CsvCalculator(args[arg], delimiter, header, threads);
+        calculator.run(Path.of(args[arg + 1]), Path.of(args[arg + 2]));
+    }
+
+    /**
+     * Evaluates every row of input into output, replacing it. Returns the
+     * number of rows evaluated, not counting the header.
+     */
+    public long run(Path input, Path output) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "csv-calculator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Arena arena = Arena.ofShared();
+                FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            MemorySegment file = size == 0 ? MemorySegment.NULL : in.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            long position = 0;
+            if (header) {
+                position = lineEnd(file, 0, size);
+                write(out, (expression + "\n").getBytes(StandardCharsets.US_ASCII), 0, expression.length() + 1);
+            }
+
+            ArrayDeque<Chunk> free = new ArrayDeque<>();
+            ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+            long rows = 0;
+            while (position < size || !pending.isEmpty()) {
+                if (position < size && pending.size() < threads * CHUNKS_PER_THREAD) {
+                    long chunkEnd = lineEnd(file, Math.min(position + CHUNK_BYTES, size), size);
+                    Chunk chunk = free.isEmpty() ? new Chunk() : free.poll();
+                    long chunkStart = position;
+                    pending.add(workers.submit(() -> evaluate(chunk.load(file, chunkStart, (int) (chunkEnd - chunkStart)))));
+                    position = chunkEnd;
+                } else {
+                    // Write the oldest chunk, so output keeps the input's row order
+                    Chunk chunk = pending.poll().get();
+                    write(out, chunk.out, 0, chunk.outCount);
+                    rows += chunk.rows;
+                    free.add(chunk);
+                }
+            }
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Evaluation failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // Position just past the line break at or after position, or size
+    private static long lineEnd(MemorySegment file, long position, long size) {
+        while (position < size && file.get(ValueLayout.JAVA_BYTE, position) != '\n') {
+            position++;
+        }
+        return Math.min(position + 1, size);
+    }
+
+    private static void write(FileChannel out, byte[] bytes, int offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private Chunk evaluate(Chunk chunk) {
+        byte[] text = chunk.in;
+        int end = chunk.inCount;
+        ChunkEvaluator evaluator = chunk.evaluator;
+        chunk.outCount = 0;
+        chunk.rows = 0;
+        int lineStart = 0;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && text[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && text[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            chunk.reserve(MAX_RESULT_BYTES);
+            if (contentEnd > lineStart) {
+                chunk.rows++;
+                if (evaluator.evaluate(text, lineStart, contentEnd)) {
+                    chunk.write(evaluator.formatter.digits());
+                    chunk.write(evaluator.formatter.exponent());
+                } else {
+                    System.arraycopy(ERROR, 0, chunk.out, chunk.outCount, ERROR.length);
+                    chunk.outCount += ERROR.length;
+                }
+            }
+            chunk.out[chunk.outCount++] = '\n';
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * A slice of the input and the results for it. Chunks are reused once
+     * written, so their buffers only grow to the largest chunk seen.
+     */
+    private final class Chunk {
+
+        byte[] in = new byte[0];
+        int inCount;
+        byte[] out = new byte[CHUNK_BYTES / 4];
+        int outCount;
+        long rows;
+        final ChunkEvaluator evaluator = new ChunkEvaluator();
+
+        Chunk load(MemorySegment file, long position, int length) {
+            if (in.length < length) {
+                in = new byte[Math.max(length, CHUNK_BYTES)];
+            }
+            MemorySegment.copy(file, ValueLayout.JAVA_BYTE, position, in, 0, length);
+            inCount = length;
+            return this;
+        }
+
+        void reserve(int bytes) {
+            if (out.length - outCount < bytes) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+        }
+
+        void write(CharSequence text) {
+            // Display text is plain ASCII
+            for (int i = 0; i < text.length(); i++) {
+                out[outCount++] = (byte) text.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Per-chunk parsing and formatting state.
+     */
+    private final class ChunkEvaluator {
+
+        final NumberScanner scanner = new NumberScanner();
+        final ResultFormatter formatter = new ResultFormatter();
+        final double[] values = new double[columns.length];
+        final double[] operands = constants.clone();
+
+        /**
+         * Reads the referenced fields of one row, evaluates the expression and
+         * formats the result into formatter. Returns false if a referenced
+         * field is missing or not a number.
+         */
+        boolean evaluate(byte[] text, int start, int end) {
+            int pos = start;
+            int field = 0;
+            for (int next = 0; next < columns.length; field++) {
+                if (pos > end) {
+                    return false;
+                }
+                if (field == columns[next]) {
+                    scanner.pos = pos;
+                    scanner.skipSpaces(text, end);
+                    boolean quoted = scanner.pos < end && text[scanner.pos] == '"';
+                    if (quoted) {
+                        scanner.pos++;
+                    }
+                    if (!scanner.scan(text, end)) {
+                        return false;
+                    }
+                    if (quoted && (scanner.pos == end || text[scanner.pos++] != '"')) {
+                        return false;
+                    }
+                    scanner.skipSpaces(text, end);
+                    if (scanner.pos < end && text[scanner.pos] != delimiter) {
+                        return false;
+                    }
+                    values[next++] = scanner.value;
+                    pos = scanner.pos + 1;
+                } else {
+                    pos = skipField(text, pos, end) + 1;
+                }
+            }
+            for (int slot = 0; slot < operandCount; slot++) {
+                if (sources[slot] >= 0) {
+                    operands[slot] = values[sources[slot]];
+                }
+            }
+            formatter.format(compiled.eval(operands));
+            return true;
+        }
+
+        // Position of the delimiter ending the field at pos, or end
+        private int skipField(byte[] text, int pos, int end) {
+            boolean quoted = false;
+            for (; pos < end; pos++) {
+                byte b = text[pos];
+                if (b == '"') {
+                    // A doubled quote inside a quoted field toggles twice and changes nothing
+                    quoted = !quoted;
+                } else if (b == delimiter && !quoted) {
+                    break;
+                }
+            }
+            return pos;
+        }
+    }
+}
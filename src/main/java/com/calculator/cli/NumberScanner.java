@@ -0,0 +1,111 @@
+package com.calculator.cli;
+
+import com.calculator.logic.FastDoubleParser;
+
+/**
+ * Parses decimal numbers straight out of ASCII bytes, for the batch modes that
+ * read millions of them. The scanner holds a cursor and the last value parsed,
+ * so it allocates nothing on the common path; keep one per thread.
+ */
+final class NumberScanner {
+
+    // Powers of ten exactly representable as doubles, for the fast parsing path
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Cursor, and the value produced by the last successful scan
+    int pos;
+    double value;
+
+    /**
+     * Parses a signed decimal number with an optional exponent at the cursor into
+     * {@link #value}, leaving the cursor after it. Numbers with at most 15
+     * significant digits and a small exponent are exact products of two doubles;
+     * anything else goes through {@link FastDoubleParser} so rounding always
+     * matches the keypad. Returns false if there is no number at the cursor.
+     */
+    boolean scan(byte[] text, int end) {
+        int start = pos;
+        boolean negative = false;
+        if (pos < end && (text[pos] == '-' || text[pos] == '+')) {
+            negative = text[pos] == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean seenPoint = false;
+        for (; pos < end; pos++) {
+            byte b = text[pos];
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (b >= '0' && b <= '9') {
+                anyDigits = true;
+                if (mantissa == 0 && b == '0') {
+                    // Leading zeros only shift the decimal point
+                    if (seenPoint) {
+                        exponent--;
+                    }
+                } else if (significantDigits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    significantDigits++;
+                    if (seenPoint) {
+                        exponent--;
+                    }
+                } else {
+                    significantDigits++;
+                    if (!seenPoint) {
+                        exponent++;
+                    }
+                }
+            } else {
+                break;
+            }
+        }
+        if (!anyDigits) {
+            return false;
+        }
+
+        if (pos < end && (text[pos] == 'e' || text[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (text[pos] == '-' || text[pos] == '+')) {
+                negativeExponent = text[pos] == '-';
+                pos++;
+            }
+            if (pos == end || text[pos] < '0' || text[pos] > '9') {
+                return false;
+            }
+            int explicitExponent = 0;
+            for (; pos < end && text[pos] >= '0' && text[pos] <= '9'; pos++) {
+                if (explicitExponent < 100_000) {
+                    explicitExponent = explicitExponent * 10 + (text[pos] - '0');
+                }
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (mantissa == 0) {
+            value = negative ? -0.0 : 0.0;
+        } else if (significantDigits <= 15 && exponent >= -22 && exponent <= 22) {
+            double magnitude = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            value = negative ? -magnitude : magnitude;
+        } else {
+            value = FastDoubleParser.parseDouble(text, start, pos);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the cursor past spaces and tabs.
+     */
+    void skipSpaces(byte[] text, int end) {
+        while (pos < end && (text[pos] == ' ' || text[pos] == '\t')) {
+            pos++;
+        }
+    }
+}
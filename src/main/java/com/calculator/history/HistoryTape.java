@@ -0,0 +1,285 @@
+package com.calculator.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tape of past calculations, each an expression with its result, kept off the
+ * heap in one fixed-size MemorySegment so that millions of entries cost the
+ * garbage collector nothing. The segment is either plain native memory or a
+ * mapped file, in which case the tape survives restarts.
+ *
+ * Entries are numbered from 0 in the order they were added and looked up by
+ * number in constant time. The segment holds a ring of fixed-size slots, one
+ * per entry, and a ring of text bytes; when either is full, the oldest entries
+ * are dropped to make room, so the memory never grows. Searches walk from the
+ * newest entry back and allocate nothing.
+ *
+ * A tape is not thread-safe; the calculator uses it from the event dispatch
+ * thread only.
+ */
+public final class HistoryTape implements Closeable {
+
+    public static final int DEFAULT_SLOTS = 1 << 20;
+    public static final long DEFAULT_TEXT_BYTES = 32L << 20;
+    // Longest entry text kept; a longer expression is cut short, leaving room for its result
+    public static final int MAX_ENTRY = 256;
+    private static final int MAX_EXPRESSION = MAX_ENTRY - 32;
+
+    static final int MAGIC = 0x43485450;  // "CHTP"
+    static final int VERSION = 1;
+    // Magic, version, slot count, text bytes, first entry, next entry, text write position
+    static final int HEADER_BYTES = 64;
+    private static final long FIRST_OFFSET = 24;
+    private static final long END_OFFSET = 32;
+    private static final long WRITE_OFFSET = 40;
+    // Text position, result value, text length, padding
+    static final int SLOT_BYTES = 24;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final MemorySegment slots;
+    private final MemorySegment text;
+    private final int slotCount;
+    private final long textBytes;
+    private final byte[] scratch = new byte[MAX_ENTRY];
+    private long first;
+    private long end;
+    private long writePosition;
+
+    private HistoryTape(Arena arena, MemorySegment segment, int slotCount, long textBytes) {
+        this.arena = arena;
+        this.segment = segment;
+        this.slotCount = slotCount;
+        this.textBytes = textBytes;
+        this.slots = segment.asSlice(HEADER_BYTES, (long) slotCount * SLOT_BYTES);
+        this.text = segment.asSlice(HEADER_BYTES + (long) slotCount * SLOT_BYTES, textBytes);
+        this.first = segment.get(ValueLayout.JAVA_LONG, FIRST_OFFSET);
+        this.end = segment.get(ValueLayout.JAVA_LONG, END_OFFSET);
+        this.writePosition = segment.get(ValueLayout.JAVA_LONG, WRITE_OFFSET);
+    }
+
+    private static long size(int slotCount, long textBytes) {
+        if (slotCount <= 0 || textBytes < MAX_ENTRY) {
+            throw new IllegalArgumentException("Tape too small: " + slotCount + " slots, " + textBytes + " text bytes");
+        }
+        return HEADER_BYTES + (long) slotCount * SLOT_BYTES + textBytes;
+    }
+
+    /**
+     * A new, empty tape in native memory, freed when it is closed.
+     */
+    public static HistoryTape allocate(int slotCount, long textBytes) {
+        long size = size(slotCount, textBytes);
+        Arena arena = Arena.ofShared();
+        MemorySegment segment = arena.allocate(size, Long.BYTES);
+        writeHeader(segment, slotCount, textBytes);
+        return new HistoryTape(arena, segment, slotCount, textBytes);
+    }
+
+    /**
+     * The tape in the file at path, created empty if there is none. A file
+     * written with other sizes, or not a tape at all, is an error rather than
+     * being overwritten.
+     */
+    public static HistoryTape open(Path path, int slotCount, long textBytes) throws IOException {
+        long size = size(slotCount, textBytes);
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            boolean created = channel.size() == 0;
+            if (!created && channel.size() != size) {
+                throw new IOException("History tape " + path + " has " + channel.size() + " bytes, expected " + size);
+            }
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            if (created) {
+                writeHeader(segment, slotCount, textBytes);
+            } else if (segment.get(ValueLayout.JAVA_INT, 0) != MAGIC || segment.get(ValueLayout.JAVA_INT, 4) != VERSION
+                    || segment.get(ValueLayout.JAVA_INT, 8) != slotCount
+                    || segment.get(ValueLayout.JAVA_LONG, 16) != textBytes) {
+                throw new IOException("Not a history tape of this size: " + path);
+            }
+            return new HistoryTape(arena, segment, slotCount, textBytes);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    private static void writeHeader(MemorySegment segment, int slotCount, long textBytes) {
+        segment.set(ValueLayout.JAVA_INT, 0, MAGIC);
+        segment.set(ValueLayout.JAVA_INT, 4, VERSION);
+        segment.set(ValueLayout.JAVA_INT, 8, slotCount);
+        segment.set(ValueLayout.JAVA_LONG, 16, textBytes);
+        segment.set(ValueLayout.JAVA_LONG, FIRST_OFFSET, 0);
+        segment.set(ValueLayout.JAVA_LONG, END_OFFSET, 0);
+        segment.set(ValueLayout.JAVA_LONG, WRITE_OFFSET, 0);
+    }
+
+    /**
+     * Adds an entry reading {@code expression=result}, dropping the oldest
+     * entries if there is no room. The value is what value searches match.
+     */
+    public void append(CharSequence expression, double value, CharSequence result) {
+        int length = 0;
+        for (int i = 0; i < expression.length() && length < MAX_EXPRESSION; i++) {
+            length = put(length, expression.charAt(i));
+        }
+        length = put(length, '=');
+        for (int i = 0; i < result.length() && length < MAX_ENTRY; i++) {
+            length = put(length, result.charAt(i));
+        }
+
+        long next = writePosition + length;
+        while (first < end && (end - first >= slotCount || position(first) < next - textBytes)) {
+            first++;
+        }
+        long offset = writePosition % textBytes;
+        int head = (int) Math.min(length, textBytes - offset);
+        MemorySegment.copy(scratch, 0, text, ValueLayout.JAVA_BYTE, offset, head);
+        MemorySegment.copy(scratch, head, text, ValueLayout.JAVA_BYTE, 0, length - head);
+
+        long slot = slot(end);
+        slots.set(ValueLayout.JAVA_LONG, slot, writePosition);
+        slots.set(ValueLayout.JAVA_DOUBLE, slot + 8, value);
+        slots.set(ValueLayout.JAVA_INT, slot + 16, length);
+        writePosition = next;
+        end++;
+        // The entry is complete before the header counts it, so a mapped tape cut short by a crash stays consistent
+        segment.set(ValueLayout.JAVA_LONG, FIRST_OFFSET, first);
+        segment.set(ValueLayout.JAVA_LONG, WRITE_OFFSET, writePosition);
+        segment.set(ValueLayout.JAVA_LONG, END_OFFSET, end);
+    }
+
+    private int put(int length, char c) {
+        // Calculator text is ASCII; anything else is stored as '?'
+        scratch[length] = c < 0x80 ? (byte) c : (byte) '?';
+        return length + 1;
+    }
+
+    private long slot(long entry) {
+        return (entry % slotCount) * SLOT_BYTES;
+    }
+
+    private long position(long entry) {
+        return slots.get(ValueLayout.JAVA_LONG, slot(entry));
+    }
+
+    /**
+     * Number of the oldest entry still on the tape.
+     */
+    public long first() {
+        return first;
+    }
+
+    /**
+     * Number the next entry will get; the newest entry is one less.
+     */
+    public long end() {
+        return end;
+    }
+
+    /**
+     * Number of entries on the tape.
+     */
+    public int size() {
+        return (int) (end - first);
+    }
+
+    /**
+     * Result value of an entry.
+     */
+    public double value(long entry) {
+        check(entry);
+        return slots.get(ValueLayout.JAVA_DOUBLE, slot(entry) + 8);
+    }
+
+    /**
+     * Length of an entry's text.
+     */
+    public int length(long entry) {
+        check(entry);
+        return slots.get(ValueLayout.JAVA_INT, slot(entry) + 16);
+    }
+
+    /**
+     * Text of an entry, {@code expression=result}.
+     */
+    public String text(long entry) {
+        int length = length(entry);
+        char[] chars = new char[length];
+        long position = position(entry);
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) text.get(ValueLayout.JAVA_BYTE, (position + i) % textBytes);
+        }
+        return new String(chars);
+    }
+
+    private void check(long entry) {
+        if (entry < first || entry >= end) {
+            throw new IndexOutOfBoundsException("Entry " + entry + " not in [" + first + ", " + end + ")");
+        }
+    }
+
+    /**
+     * The newest entry before {@code before} whose text starts with prefix, or
+     * -1 if there is none.
+     */
+    public long findPrefix(CharSequence prefix, long before) {
+        for (long entry = Math.min(before, end) - 1; entry >= first; entry--) {
+            long slot = slot(entry);
+            if (slots.get(ValueLayout.JAVA_INT, slot + 16) < prefix.length()) {
+                continue;
+            }
+            long position = slots.get(ValueLayout.JAVA_LONG, slot);
+            int i = 0;
+            while (i < prefix.length() && text.get(ValueLayout.JAVA_BYTE, (position + i) % textBytes) == prefix.charAt(i)) {
+                i++;
+            }
+            if (i == prefix.length()) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The newest entry before {@code before} whose result lies in [low, high],
+     * or -1 if there is none.
+     */
+    public long findValue(double low, double high, long before) {
+        for (long entry = Math.min(before, end) - 1; entry >= first; entry--) {
+            double value = slots.get(ValueLayout.JAVA_DOUBLE, slot(entry) + 8);
+            if (value >= low && value <= high) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        first = end;
+        segment.set(ValueLayout.JAVA_LONG, FIRST_OFFSET, first);
+    }
+
+    /**
+     * Writes a mapped tape to disk and frees the memory; the tape cannot be
+     * used afterwards.
+     */
+    @Override
+    public void close() {
+        if (segment.isMapped()) {
+            segment.force();
+        }
+        arena.close();
+    }
+}
@@ -0,0 +1,170 @@
+package com.calculator.journal;
+
+import com.calculator.logic.CalculatorController;
+import com.calculator.logic.ControllerListener;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only journal of every call into one CalculatorController, for
+ * reproducing a session exactly with {@link JournalReplay}.
+ *
+ * Each call is one 8-byte record in a memory-mapped file: the {@link
+ * com.calculator.logic.Keystrokes} key in the low 16 bits and the microseconds
+ * since the journal started above them. Records go straight into the page
+ * cache, and the record count in the header is updated after each one, so a
+ * journal survives the process dying without being closed. The file grows one
+ * mapped region at a time.
+ *
+ * Every {@code snapshotInterval} records, and whenever the controller's state is
+ * replaced by something other than a key, the controller's full state is
+ * appended to a second file next to the journal, so replay can start from the
+ * nearest snapshot instead of the beginning. A snapshot is always taken when
+ * the journal starts, so the controller need not be in its initial state.
+ */
+public final class ControllerJournal implements ControllerListener, Closeable {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 4096;
+
+    static final int MAGIC = 0x434A4E4C;  // "CJNL"
+    static final int VERSION = 4;
+    // Magic, version, start time in epoch milliseconds, record count, snapshot interval
+    static final int HEADER_BYTES = 32;
+    static final int COUNT_OFFSET = 16;
+    static final int RECORD_BYTES = 8;
+    static final int RECORDS_PER_REGION = 1 << 17;
+    // Key of the record standing for a replaced state; never a real key
+    static final char STATE_REPLACED = 0;
+
+    private final CalculatorController controller;
+    private final FileChannel channel;
+    private final FileChannel snapshotChannel;
+    private final MappedByteBuffer header;
+    private final int snapshotInterval;
+    private final long startNanos;
+    private final ByteArrayOutputStream snapshotBytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream snapshotOut = new DataOutputStream(snapshotBytes);
+    private MappedByteBuffer region;
+    private long count = 0;
+
+    private ControllerJournal(CalculatorController controller, Path path, int snapshotInterval) throws IOException {
+        this.controller = controller;
+        this.snapshotInterval = snapshotInterval;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.snapshotChannel = FileChannel.open(snapshotPath(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        this.startNanos = System.nanoTime();
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(8, System.currentTimeMillis());
+        header.putLong(COUNT_OFFSET, 0);
+        header.putInt(24, snapshotInterval);
+    }
+
+    /**
+     * Starts journaling the controller into the file at path, replacing any
+     * journal there, with snapshots in {@link #snapshotPath(Path)}.
+     */
+    public static ControllerJournal attach(CalculatorController controller, Path path, int snapshotInterval)
+            throws IOException {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotInterval);
+        }
+        ControllerJournal journal = new ControllerJournal(controller, path, snapshotInterval);
+        journal.writeSnapshot();
+        controller.setControllerListener(journal);
+        return journal;
+    }
+
+    /**
+     * Where the snapshots of the journal at path are kept.
+     */
+    public static Path snapshotPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".snapshots");
+    }
+
+    @Override
+    public void keyPressed(char key) {
+        if (count % snapshotInterval == 0 && count > 0) {
+            writeSnapshot();
+        }
+        append(key);
+    }
+
+    @Override
+    public void stateReplaced() {
+        append(STATE_REPLACED);
+        writeSnapshot();
+    }
+
+    /**
+     * Number of records written so far.
+     */
+    public long count() {
+        return count;
+    }
+
+    private void append(char key) {
+        int slot = (int) (count % RECORDS_PER_REGION);
+        if (slot == 0) {
+            mapRegion();
+        }
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        region.putLong(slot * RECORD_BYTES, micros << 16 | key);
+        header.putLong(COUNT_OFFSET, ++count);
+    }
+
+    private void mapRegion() {
+        try {
+            long offset = HEADER_BYTES + count * RECORD_BYTES;
+            region = channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) RECORDS_PER_REGION * RECORD_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the controller's state as it is before record {@link #count}: the
+     * record index, the length of the state and the state itself.
+     */
+    private void writeSnapshot() {
+        try {
+            snapshotBytes.reset();
+            snapshotOut.writeLong(count);
+            snapshotOut.writeInt(0);
+            controller.writeState(snapshotOut);
+            ByteBuffer buffer = ByteBuffer.wrap(snapshotBytes.toByteArray());
+            buffer.putInt(8, buffer.limit() - 12);
+            while (buffer.hasRemaining()) {
+                snapshotChannel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops journaling and flushes both files to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        controller.setControllerListener(null);
+        if (region != null) {
+            region.force();
+        }
+        header.force();
+        snapshotChannel.force(true);
+        snapshotChannel.close();
+        channel.close();
+    }
+}
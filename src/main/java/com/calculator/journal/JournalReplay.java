@@ -0,0 +1,195 @@
+package com.calculator.journal;
+
+import com.calculator.logic.CalculatorController;
+import com.calculator.logic.CalculatorLogic;
+import com.calculator.logic.Keystrokes;
+import com.calculator.logic.MemoryDisplayModel;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a journal written by {@link ControllerJournal} and replays it into a
+ * controller, from the start or up to any record. Replay restores the nearest
+ * snapshot at or before the target and presses the keys recorded after it, so
+ * jumping anywhere costs at most one snapshot interval of keys.
+ *
+ * Usage: {@code java -cp Calculator.jar com.calculator.journal.JournalReplay journal [record]}
+ * replays headless up to the given record, or through the whole journal, and
+ * prints the display as it stood there.
+ */
+public final class JournalReplay {
+
+    private final MappedByteBuffer[] regions;
+    private final long count;
+    private final long startMillis;
+    private final byte[] snapshots;
+    // Record index of each snapshot, ascending, and where its state starts in snapshots
+    private final long[] snapshotIndexes;
+    private final int[] snapshotOffsets;
+
+    private JournalReplay(MappedByteBuffer[] regions, long count, long startMillis, byte[] snapshots,
+            long[] snapshotIndexes, int[] snapshotOffsets) {
+        this.regions = regions;
+        this.count = count;
+        this.startMillis = startMillis;
+        this.snapshots = snapshots;
+        this.snapshotIndexes = snapshotIndexes;
+        this.snapshotOffsets = snapshotOffsets;
+    }
+
+    /**
+     * Opens the journal at path and the snapshots next to it. The journal may
+     * still be open for writing; records written after this are not seen.
+     */
+    public static JournalReplay open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ControllerJournal.HEADER_BYTES);
+            if (header.getInt(0) != ControllerJournal.MAGIC || header.getInt(4) != ControllerJournal.VERSION) {
+                throw new IOException("Not a calculator journal: " + path);
+            }
+            long count = header.getLong(ControllerJournal.COUNT_OFFSET);
+            MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((count + ControllerJournal.RECORDS_PER_REGION - 1)
+                    / ControllerJournal.RECORDS_PER_REGION)];
+            for (int i = 0; i < regions.length; i++) {
+                long first = (long) i * ControllerJournal.RECORDS_PER_REGION;
+                long records = Math.min(ControllerJournal.RECORDS_PER_REGION, count - first);
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        ControllerJournal.HEADER_BYTES + first * ControllerJournal.RECORD_BYTES,
+                        records * ControllerJournal.RECORD_BYTES);
+            }
+
+            byte[] snapshots = Files.readAllBytes(ControllerJournal.snapshotPath(path));
+            ByteBuffer buffer = ByteBuffer.wrap(snapshots);
+            long[] indexes = new long[16];
+            int[] offsets = new int[16];
+            int snapshotCount = 0;
+            // A snapshot cut short by a crash, or past the last record, is ignored
+            while (buffer.remaining() >= 12) {
+                long index = buffer.getLong();
+                int length = buffer.getInt();
+                if (length > buffer.remaining() || index > count) {
+                    break;
+                }
+                if (snapshotCount == indexes.length) {
+                    indexes = Arrays.copyOf(indexes, snapshotCount * 2);
+                    offsets = Arrays.copyOf(offsets, snapshotCount * 2);
+                }
+                indexes[snapshotCount] = index;
+                offsets[snapshotCount++] = buffer.position();
+                buffer.position(buffer.position() + length);
+            }
+            if (snapshotCount == 0) {
+                throw new IOException("Journal has no snapshots: " + path);
+            }
+            return new JournalReplay(regions, count, header.getLong(8), snapshots,
+                    Arrays.copyOf(indexes, snapshotCount), Arrays.copyOf(offsets, snapshotCount));
+        }
+    }
+
+    /**
+     * Number of records in the journal.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * When the journal was started, in epoch milliseconds.
+     */
+    public long startMillis() {
+        return startMillis;
+    }
+
+    /**
+     * The key of a record, as {@link Keystrokes} takes it, or 0 for a replaced
+     * state.
+     */
+    public char key(long index) {
+        return (char) record(index);
+    }
+
+    /**
+     * Microseconds from the start of the journal to a record.
+     */
+    public long elapsedMicros(long index) {
+        return record(index) >>> 16;
+    }
+
+    private long record(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+        }
+        return regions[(int) (index / ControllerJournal.RECORDS_PER_REGION)]
+                .getLong((int) (index % ControllerJournal.RECORDS_PER_REGION) * ControllerJournal.RECORD_BYTES);
+    }
+
+    /**
+     * Puts the controller in the state the journaled one was in just before
+     * record {@code to}, or after the last record when {@code to} is
+     * {@link #count()}.
+     */
+    public void replay(CalculatorController controller, long to) throws IOException {
+        if (to < 0 || to > count) {
+            throw new IndexOutOfBoundsException("Record " + to + " of " + count);
+        }
+        int snapshot = Arrays.binarySearch(snapshotIndexes, to);
+        if (snapshot < 0) {
+            // The snapshot before the insertion point; the first one is at record 0
+            snapshot = -snapshot - 2;
+        }
+        restore(controller, snapshot);
+        for (long i = snapshotIndexes[snapshot]; i < to; i++) {
+            char key = key(i);
+            if (key == ControllerJournal.STATE_REPLACED) {
+                // The snapshot taken right after this record holds the new state
+                restore(controller, Arrays.binarySearch(snapshotIndexes, i + 1));
+            } else {
+                try {
+                    Keystrokes.press(controller, key);
+                } catch (NumberFormatException e) {
+                    // The session hit the same error at this key and carried on from the state it left
+                }
+            }
+        }
+    }
+
+    private void restore(CalculatorController controller, int snapshot) throws IOException {
+        if (snapshot < 0) {
+            throw new IOException("Journal is missing a snapshot");
+        }
+        int offset = snapshotOffsets[snapshot];
+        controller.readState(new DataInputStream(new ByteArrayInputStream(snapshots, offset, snapshots.length - offset)));
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length == 0) {
+            System.err.println("Usage: JournalReplay journal [record]");
+            System.exit(2);
+        }
+        JournalReplay journal = open(Path.of(args[0]));
+        long to = args.length > 1 ? Long.parseLong(args[1]) : journal.count();
+        MemoryDisplayModel displayModel = new MemoryDisplayModel();
+        CalculatorController controller = new CalculatorController(new CalculatorLogic(), displayModel);
+
+        long start = System.nanoTime();
+        journal.replay(controller, to);
+        long nanos = System.nanoTime() - start;
+
+        System.out.println(journal.count() + " records, replayed to " + to);
+        System.out.println("Display: " + displayModel.getOperator() + " " + displayModel.getDisplay()
+                + displayModel.getExponent());
+        if (to > 0) {
+            System.out.printf("Elapsed in session: %.3f s%n", journal.elapsedMicros(to - 1) / 1e6);
+        }
+        System.out.printf("Replay: %.1f ms, %.0f records/s%n", nanos / 1e6, to * 1e9 / Math.max(nanos, 1));
+    }
+}
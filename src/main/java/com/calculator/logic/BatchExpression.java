@@ -0,0 +1,153 @@
+package com.calculator.logic;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Evaluates one expression shape over many rows at once. Operands come as one
+ * column per operand slot and results go to an output column, row by row
+ * exactly what {@link CalculatorLogic} gives for the same operands, including
+ * NaN for division by zero.
+ *
+ * Rows are processed in blocks small enough to stay in cache. Within a block the
+ * postfix program runs one operator at a time over whole columns, so each
+ * operator is a straight SIMD loop over the widest vectors the CPU supports,
+ * with a scalar loop for the rows left over. Needs
+ * {@code --add-modules jdk.incubator.vector} at compile and run time.
+ * Instances hold scratch buffers; use one per thread.
+ */
+public final class BatchExpression {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int BLOCK_ROWS = 1024;
+
+    private final PostfixProgram program;
+    // Intermediate results per stack depth; depth 0 is written straight to the output
+    private final double[][] scratch;
+    // Stack of column views while a block runs: an array and the offset of the block in it
+    private final double[][] arrays;
+    private final int[] offsets;
+
+    private BatchExpression(PostfixProgram program) {
+        this.program = program;
+        this.scratch = new double[program.maxDepth][];
+        for (int depth = 1; depth < program.maxDepth; depth++) {
+            scratch[depth] = new double[BLOCK_ROWS];
+        }
+        this.arrays = new double[program.maxDepth][];
+        this.offsets = new int[program.maxDepth];
+    }
+
+    /**
+     * Compiles a shape given as one operator character per gap between operands,
+     * so {@code "+*"} stands for {@code a + b * c} and takes three columns.
+     */
+    public static BatchExpression compile(String operators) {
+        return new BatchExpression(PostfixProgram.compile(operators));
+    }
+
+    /**
+     * Number of operand columns the expression takes.
+     */
+    public int operandCount() {
+        return program.operandCount;
+    }
+
+    /**
+     * Evaluates every row of out: {@code out[row]} is the expression applied to
+     * {@code columns[0][row]}, {@code columns[1][row]} and so on. The output must
+     * not be one of the columns.
+     */
+    public void evaluate(double[][] columns, double[] out) {
+        if (columns.length != program.operandCount) {
+            throw new IllegalArgumentException("Expected " + program.operandCount + " columns, got " + columns.length);
+        }
+        for (double[] column : columns) {
+            if (column == out) {
+                throw new IllegalArgumentException("Output must not be an operand column");
+            }
+            if (column.length < out.length) {
+                throw new IllegalArgumentException("Column has " + column.length + " rows, output has " + out.length);
+            }
+        }
+        for (int start = 0; start < out.length; start += BLOCK_ROWS) {
+            evaluateBlock(columns, out, start, Math.min(BLOCK_ROWS, out.length - start));
+        }
+    }
+
+    private void evaluateBlock(double[][] columns, double[] out, int start, int rows) {
+        // Operand columns are read in place; results land in scratch, or in out at depth 0
+        int top = 0;
+        for (int instruction : program.code) {
+            if (instruction >= 0) {
+                arrays[top] = columns[instruction];
+                offsets[top++] = start;
+            } else {
+                top--;
+                int target = top - 1;
+                double[] result = target == 0 ? out : scratch[target];
+                int resultOffset = target == 0 ? start : 0;
+                apply((byte) ~instruction, arrays[target], offsets[target], arrays[top], offsets[top], result, resultOffset, rows);
+                arrays[target] = result;
+                offsets[target] = resultOffset;
+            }
+        }
+        if (arrays[0] != out) {
+            // A lone operand with no operators
+            System.arraycopy(arrays[0], offsets[0], out, start, rows);
+        }
+    }
+
+    private static void apply(byte opcode, double[] left, int leftOffset, double[] right, int rightOffset,
+            double[] result, int resultOffset, int rows) {
+        int i = 0;
+        int bound = SPECIES.loopBound(rows);
+        switch (opcode) {
+            case CalculatorLogic.ADD -> {
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, left, leftOffset + i)
+                            .add(DoubleVector.fromArray(SPECIES, right, rightOffset + i))
+                            .intoArray(result, resultOffset + i);
+                }
+            }
+            case CalculatorLogic.SUBTRACT -> {
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, left, leftOffset + i)
+                            .sub(DoubleVector.fromArray(SPECIES, right, rightOffset + i))
+                            .intoArray(result, resultOffset + i);
+                }
+            }
+            case CalculatorLogic.MULTIPLY -> {
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, left, leftOffset + i)
+                            .mul(DoubleVector.fromArray(SPECIES, right, rightOffset + i))
+                            .intoArray(result, resultOffset + i);
+                }
+            }
+            case CalculatorLogic.DIVIDE -> {
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector divisor = DoubleVector.fromArray(SPECIES, right, rightOffset + i);
+                    // Same rule as the engine: a zero divisor of either sign gives NaN
+                    VectorMask<Double> zero = divisor.compare(VectorOperators.EQ, 0.0);
+                    DoubleVector.fromArray(SPECIES, left, leftOffset + i)
+                            .div(divisor)
+                            .blend(Double.NaN, zero)
+                            .intoArray(result, resultOffset + i);
+                }
+            }
+            case CalculatorLogic.UNKNOWN -> {
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.zero(SPECIES).intoArray(result, resultOffset + i);
+                }
+            }
+            default -> {
+                // Added operators go one row at a time below
+            }
+        }
+        for (; i < rows; i++) {
+            result[resultOffset + i] = CalculatorLogic.apply(opcode, left[leftOffset + i], right[rightOffset + i]);
+        }
+    }
+}
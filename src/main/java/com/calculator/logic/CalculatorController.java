@@ -1,7 +1,12 @@
 package com.calculator.logic;
 
-import com.calculator.UI.SymbolFormatter;
-import javax.swing.JTextField;
+import com.calculator.metrics.CalculatorMetrics;
+import com.calculator.metrics.ControllerActionEvent;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 /**
  * Controller for calculator operations that interacts with the CalculatorLogic
@@ -9,50 +14,186 @@ import javax.swing.JTextField;
  */
 public class CalculatorController {
 
-    private static final String SCIENTIFIC_FORMAT = "%.13e"; // Constant for scientific notation
+    // Actions run by perform()
+    private static final int INPUT = 0;
+    private static final int EXP = 1;
+    private static final int OPERATION = 2;
+    private static final int RESULT = 3;
+    private static final int DELETE = 4;
+    private static final int SIGN_CHANGE = 5;
+    private static final int ALL_CLEAR = 6;
+    private static final int FUNCTION = 7;
+    private static final int OPEN_GROUP = 8;
+    private static final int CLOSE_GROUP = 9;
+    // Longest expression kept for the result listener; the rest is marked as cut
+    private static final int MAX_EXPRESSION = 200;
 
     private final CalculatorLogic calculatorLogic;
-    private final JTextField displayField;
-    private final JTextField operatorField;
-    private final JTextField expField;
+    private final ResultFormatter resultFormatter = new ResultFormatter();
+    private final DisplayModel displayModel;
+    // Display state is kept here and pushed to the model, never read back from it
+    private final StringBuilder display = new StringBuilder(32);
+    private final StringBuilder exponent = new StringBuilder(8);
+    private final StringBuilder operandText = new StringBuilder(32);
+    private final StringBuilder preview = new StringBuilder(32);
+    // The expression entered since the last result, as operands and operators were pushed
+    private final StringBuilder expression = new StringBuilder(64);
+    private String operatorSymbol = "";
     private boolean isResultDisplayed = false;
     private boolean isOperatorPending = false;
     private boolean lastWasOperator = false;
     private boolean isExponentMode = false;  // New flag to track if EXP mode is active
-
-    public CalculatorController(CalculatorLogic calculatorLogic, JTextField displayField, JTextField operatorField, JTextField expField) {
+    private boolean isExpressionPending = false;  // An operator has been pushed since the last result
+    private boolean isGroupClosed = false;  // The display shows a closed group, already pushed as an operand
+    private ControllerListener listener;
+    private ResultListener resultListener;
+    // Reused for every action rather than allocated; see CalculatorLogic
+    private final ControllerActionEvent actionEvent = new ControllerActionEvent();
+
+    public CalculatorController(CalculatorLogic calculatorLogic, DisplayModel displayModel) {
         this.calculatorLogic = calculatorLogic;
-        this.displayField = displayField;
-        this.operatorField = operatorField;
-        this.expField = expField;
+        this.displayModel = displayModel;
         resetDisplay();
     }
 
     private void resetDisplay() {
-        displayField.setText("0");
-        operatorField.setText("");
-        expField.setText("");
+        setDisplay("0");
+        setOperator("");
+        setExponent("");
+        setPreview("");
+    }
+
+    /**
+     * Sets the listener told about every call from now on, or removes it with null.
+     */
+    public void setControllerListener(ControllerListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the listener told about every result from now on, or removes it with null.
+     */
+    public void setResultListener(ResultListener resultListener) {
+        this.resultListener = resultListener;
     }
 
     public void appendToDisplay(String text) {
-        if ("OvFlow".equals(displayField.getText()) || isResultDisplayed) {
+        perform(INPUT, text.charAt(0), text);
+    }
+
+    public void handleExp() {
+        perform(EXP, 'E', null);
+    }
+
+    public void handleOperation(String operation) {
+        perform(OPERATION, operation.charAt(0), operation);
+    }
+
+    public void calculateResult() {
+        perform(RESULT, '=', null);
+    }
+
+    public void handleDelete() {
+        perform(DELETE, 'D', null);
+    }
+
+    public void handleSignChange() {
+        perform(SIGN_CHANGE, 'N', null);
+    }
+
+    public void handleAllClear() {
+        perform(ALL_CLEAR, 'C', null);
+    }
+
+    /**
+     * Replaces the value on the display with the function of it, as the next
+     * operand or the new result.
+     */
+    public void handleFunction(ScientificFunction function) {
+        perform(FUNCTION, function.key(), function.name());
+    }
+
+    /**
+     * Opens a group where an operand would start: after an operator, a result,
+     * another open group or on a cleared display. Elsewhere it is ignored.
+     */
+    public void handleOpenGroup() {
+        perform(OPEN_GROUP, '(', null);
+    }
+
+    /**
+     * Closes the innermost open group and shows its value, which an operator or
+     * equals must follow. Ignored right after an operator or with no group open.
+     * Equals closes any groups still open.
+     */
+    public void handleCloseGroup() {
+        perform(CLOSE_GROUP, ')', null);
+    }
+
+    /**
+     * Runs one action, telling the listener first and timing it for the metrics
+     * and JFR.
+     */
+    private void perform(int action, char key, String argument) {
+        ControllerActionEvent event = actionEvent;
+        event.begin();
+        if (listener != null) {
+            listener.keyPressed(key);
+        }
+        CalculatorMetrics.keystroke();
+        long start = CalculatorMetrics.start();
+        switch (action) {
+            case INPUT ->
+                appendInput(argument);
+            case EXP ->
+                enterExponentMode();
+            case OPERATION ->
+                applyOperation(argument);
+            case RESULT ->
+                showResult();
+            case DELETE ->
+                deleteLast();
+            case SIGN_CHANGE ->
+                changeSign();
+            case FUNCTION ->
+                applyFunction(ScientificFunction.valueOf(argument));
+            case OPEN_GROUP ->
+                openGroup();
+            case CLOSE_GROUP ->
+                closeGroup();
+            default ->
+                clearAll();
+        }
+        CalculatorMetrics.ACTIONS.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.key = key;
+            event.commit();
+        }
+    }
+
+    private void appendInput(String text) {
+        if (isGroupClosed) {
+            return;
+        }
+        if ("OvFlow".contentEquals(display) || isResultDisplayed) {
             resetDisplay();
         }
 
-        if (displayField.getText().length() >= 15 && !isOperatorPending) {
+        if (display.length() >= 15 && !isOperatorPending) {
             return;
         }
 
         if (isExponentMode) {
             // Ignore decimal points in exponent or if length of exponent exceeds 3
-            if (".".equals(text) || expField.getText().length() >= 5) {
+            if (".".equals(text) || exponent.length() >= 5) {
                 return;
             } else {
                 handleExponentInput(text);
                 return;
             }
-        } 
-        
+        }
+
         if (".".equals(text)) {
             handleDecimalInput();
         } else {
@@ -62,29 +203,114 @@ public class CalculatorController {
 
     private void handleDecimalInput() {
         if (isResultDisplayed || isOperatorPending) {
-            displayField.setText("0.");
+            setDisplay("0.");
             resetFlags();
-        } else if (!displayField.getText().contains(".")) {
-            displayField.setText(displayField.getText() + ".");
+        } else if (display.indexOf(".") < 0) {
+            display.append('.');
+            displayModel.setDisplay(display);
         }
+        updatePreview();
     }
 
     private void handleGeneralInput(String text) {
         if (isResultDisplayed || isOperatorPending) {
-            displayField.setText(text);
+            setDisplay(text);
             resetFlags();
-        } else if ("0".equals(displayField.getText())) {
-            displayField.setText(text.equals("0") ? "0" : text);
+        } else if ("0".contentEquals(display)) {
+            setDisplay(text.equals("0") ? "0" : text);
         } else {
-            displayField.setText(displayField.getText() + text);
+            display.append(text);
+            displayModel.setDisplay(display);
         }
+        updatePreview();
     }
-    
+
     private void handleExponentInput(String text) {
-        if ("E+0".equals(expField.getText())) {
-            expField.setText(text.equals("0") ? "E+0" : "E+" + text);
+        if ("E+0".contentEquals(exponent)) {
+            if (!text.equals("0")) {
+                exponent.setLength(2);  // Replace the placeholder 0 after "E+"
+                exponent.append(text);
+            }
         } else {
-            expField.setText(expField.getText() + text);
+            exponent.append(text);
+        }
+        displayModel.setExponent(exponent);
+        updatePreview();
+    }
+
+    /**
+     * Enters a whole pasted expression as if it had been typed, updating the
+     * display once at the end rather than per character. The first operand
+     * replaces the one being typed, as pasting into a field would; an operator
+     * before it applies to what is on the display. The listener is told the
+     * state was replaced rather than each key.
+     */
+    public void paste(PastedExpression expression) {
+        // A closed group is on the display in place of an operand to replace
+        if (expression.isEmpty() || (isGroupClosed && !expression.hasLeadingOpcode)) {
+            return;
+        }
+        if (expression.hasLeadingOpcode) {
+            pasteOperation(expression.leadingOpcode);
+        }
+        int last = expression.operandCount - 1;
+        if (last >= 0) {
+            if ("OvFlow".contentEquals(display) || isResultDisplayed) {
+                resetDisplay();
+            }
+            boolean decimal = calculatorLogic.isDecimal();
+            for (int i = 0; i < last; i++) {
+                if (decimal) {
+                    calculatorLogic.pushOperand(expression.text(i));
+                } else {
+                    calculatorLogic.pushOperand(expression.values[i]);
+                }
+                byte opcode = expression.opcodes[i];
+                appendExpression(expression.text(i));
+                byte typed = Operators.typed(opcode);
+                byte replacement = Operators.replacement(opcode);
+                appendExpression(Operators.symbolText(replacement));
+                calculatorLogic.pushOpcode(typed);
+                if (typed != replacement) {
+                    calculatorLogic.replaceLastOpcode(replacement);
+                }
+            }
+            if (last > 0) {
+                // Replacing an operator leaves the symbol of the first one shown
+                isExpressionPending = true;
+                setOperator(Operators.displaySymbol(Operators.symbolText(Operators.typed(expression.opcodes[last - 1]))));
+            }
+            // The last operand stays on the display, still open for typing
+            display.setLength(0);
+            display.append(expression.lastDisplay);
+            exponent.setLength(0);
+            exponent.append(expression.lastExponent);
+            isExponentMode = expression.lastInExponent;
+            isResultDisplayed = false;
+            isOperatorPending = false;
+            lastWasOperator = false;
+            if (expression.opcodeCount > last) {
+                pasteOperation(expression.opcodes[last]);
+            } else {
+                updatePreview();
+            }
+            displayModel.setDisplay(display);
+            displayModel.setExponent(exponent);
+        }
+        if (expression.equals) {
+            showResult();
+        }
+        if (listener != null) {
+            listener.stateReplaced();
+        }
+    }
+
+    private void pasteOperation(byte opcode) {
+        byte typed = Operators.typed(opcode);
+        byte replacement = Operators.replacement(opcode);
+        applyOperation(Operators.symbolText(typed));
+        if (typed != replacement) {
+            applyOperation(Operators.symbolText(replacement));
         }
     }
 
@@ -92,175 +318,396 @@ public class CalculatorController {
         isResultDisplayed = false;
         isOperatorPending = false;
         lastWasOperator = false;
-        expField.setText("");
+        setExponent("");
         isExponentMode = false;
     }
-    
-    public void handleExp() {
+
+    private void enterExponentMode() {
         if (!isExponentMode && !isResultDisplayed && !isOperatorPending) {
-            expField.setText("E+0"); // Add 'E' to enter exponent mode
+            setExponent("E+0"); // Add 'E' to enter exponent mode
             isExponentMode = true;
         }
     }
 
-    public void handleOperation(String operation) {
+    private void applyOperation(String operation) {
         if (lastWasOperator) {
             calculatorLogic.replaceLastOperator(operation);
-        } else if (!displayField.getText().isEmpty()) {
-            double operand = parseOperandFromFields();
-            calculatorLogic.pushOperand(operand);
+            if (expression.length() > 0 && expression.length() < MAX_EXPRESSION) {
+                expression.setCharAt(expression.length() - 1, operation.charAt(0));
+            }
+        } else if (display.length() > 0) {
+            // The preview now shows the result so far and keeps it until the next operand is typed
+            isExpressionPending = true;
+            updatePreview();
+            if (!isGroupClosed) {
+                pushOperandFromFields();
+            }
             calculatorLogic.pushOperator(operation);
-            operatorField.setText(SymbolFormatter.getDisplaySymbol(operation));
+            appendExpression(operation);
+            setOperator(Operators.displaySymbol(operation));
             isOperatorPending = true;
             lastWasOperator = true;
             isExponentMode = false;
+            isGroupClosed = false;
         }
     }
 
-    private double parseOperandFromFields() {
-        if (!expField.getText().isEmpty()) {
-            String combinedValue = displayField.getText() + "E" + expField.getText().substring(1);
-            return Double.parseDouble(combinedValue);
-        } else {
-            return Double.parseDouble(displayField.getText());
+    private void openGroup() {
+        if (!lastWasOperator && !isResultDisplayed
+                && (isOperatorPending || isGroupClosed || isExponentMode || !"0".contentEquals(display))) {
+            return;
+        }
+        if (isResultDisplayed) {
+            // The result is not part of the new expression
+            setPreview("");
         }
+        calculatorLogic.openGroup();
+        appendExpression("(");
+        setDisplay("0");
+        setOperator("(");
+        resetFlags();
+        isExpressionPending = true;
     }
 
-    public void calculateResult() {
-        if (!displayField.getText().isEmpty()) {
-            calculatorLogic.pushOperand(parseOperandFromFields());
-            double result = calculatorLogic.getResult();
-
-            final double underflowThreshold = 1e-13;
-            String resultString;
+    private void closeGroup() {
+        if (calculatorLogic.groupDepth() == 0 || lastWasOperator || "OvFlow".contentEquals(display)) {
+            return;
+        }
+        if (!isGroupClosed) {
+            pushOperandFromFields();
+        }
+        calculatorLogic.closeGroup();
+        appendExpression(")");
+        long start;
+        if (calculatorLogic.isDecimal()) {
+            BigDecimal value = calculatorLogic.peekDecimalOperand();
+            start = CalculatorMetrics.start();
+            formatDecimal(value);
+        } else {
+            double value = calculatorLogic.peekOperand();
+            start = CalculatorMetrics.start();
+            resultFormatter.format(value);
+        }
+        CalculatorMetrics.FORMATTING.recordSince(start);
+        setDisplay(resultFormatter.digits());
+        setExponent(resultFormatter.exponent());
+        setOperator(")");
+        isGroupClosed = true;
+        isOperatorPending = true;
+        lastWasOperator = false;
+        isExponentMode = false;
+        updatePreview();
+    }
 
-            if (Math.abs(result) < underflowThreshold && result != 0) {
-                resultString = formatToScientific(result);
-                displayResultWithExponent(resultString);
+    private void pushOperandFromFields() {
+        appendExpression(operandFromFields());
+        if (calculatorLogic.isDecimal()) {
+            // Decimal mode takes the digits exactly as typed; NaN is pushed as such
+            if (isNotANumber()) {
+                calculatorLogic.pushOperand(Double.NaN);
             } else {
-                resultString = formatForStandardDisplay(result);
-
-                if (shouldUseScientificNotation(resultString)) {
-                    resultString = formatToScientific(result);
-                    displayResultWithExponent(resultString);
-                } else {
-                    displayField.setText(resultString);
-                    expField.setText("");
-                }
+                calculatorLogic.pushOperand(operandFromFields());
             }
-
-            operatorField.setText("");
-            calculatorLogic.clear();
-            isResultDisplayed = true;
-            lastWasOperator = false;
-            isExponentMode = false;
+        } else {
+            calculatorLogic.pushOperand(parseOperandFromFields());
         }
     }
 
-    private boolean shouldUseScientificNotation(String resultString) {
-        String[] integerAndDecimal = resultString.split("\\.");
-        String integerPart = integerAndDecimal[0];
-        return (integerPart.length() > 15 || (integerPart.equals("0") && integerAndDecimal.length > 1 && integerAndDecimal[1].startsWith("0000000000000")));
+    double parseOperandFromFields() {
+        return FastDoubleParser.parseDouble(display, 0, display.length(),
+                exponent, Math.min(1, exponent.length()), exponent.length());
     }
 
-    private String formatToScientific(double value) {
-        String formatted = String.format(SCIENTIFIC_FORMAT, value);
-        return removeTrailingDecimalPoint(trimTrailingZeros(formatted));
+    /**
+     * Whether the display holds NaN or Infinity left by an earlier result,
+     * which has no decimal value.
+     */
+    private boolean isNotANumber() {
+        return display.length() > 0 && Character.isLetter(display.charAt(display.length() - 1));
     }
 
-    private void displayResultWithExponent(String resultString) {
-        String[] parts = resultString.split("e");
-        displayField.setText(trimTrailingZeros(parts[0]).replaceAll("\\.$", "")); // Ensure no trailing dot
-        expField.setText("E" + formatExponent(Integer.parseInt(parts[1]))); // Correct formatting for exponent
+    /**
+     * Whether the display holds a sign or a point without any digits yet.
+     */
+    private boolean isIncompleteNumber() {
+        for (int i = 0; i < display.length(); i++) {
+            char c = display.charAt(i);
+            if (Character.isDigit(c) || Character.isLetter(c)) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private String trimTrailingZeros(String value) {
-        // Check if value is in exponential form
-        int eIndex = value.indexOf('E');
-        
-        if (eIndex == -1) {
-            eIndex = value.indexOf('e');
+    private CharSequence operandFromFields() {
+        operandText.setLength(0);
+        operandText.append(display);
+        if (exponent.length() > 0) {
+            operandText.append('E').append(exponent, 1, exponent.length());
         }
+        return operandText;
+    }
 
-        if (eIndex == -1) {
-            // If not in exponential form, trim as usual
-            int i = value.length() - 1;
-            while (i > 0 && value.charAt(i) == '0') {
-                i--;
+    private void showResult() {
+        if (display.length() > 0) {
+            if (!isGroupClosed) {
+                pushOperandFromFields();
             }
-            return value.substring(0, i + 1);
-        } else {
-            // If in exponential form, separate mantissa and exponent
-            String mantissa = value.substring(0, eIndex);
-            String exponent = value.substring(eIndex);
-
-            // Trim trailing zeros from mantissa
-            int i = mantissa.length() - 1;
-            while (i > 0 && mantissa.charAt(i) == '0') {
-                i--;
+            for (int i = calculatorLogic.groupDepth(); i > 0; i--) {
+                appendExpression(")");
             }
-            mantissa = mantissa.substring(0, i + 1);
-
-            // Ensure no trailing decimal point in mantissa
-            if (mantissa.endsWith(".")) {
-                mantissa = mantissa.substring(0, mantissa.length() - 1);
+            long start;
+            double value;
+            if (calculatorLogic.isDecimal()) {
+                BigDecimal result = calculatorLogic.getDecimalResult();
+                start = CalculatorMetrics.start();
+                formatDecimal(result);
+                value = result != null ? result.doubleValue() : Double.NaN;
+            } else {
+                value = calculatorLogic.getResult();
+                start = CalculatorMetrics.start();
+                resultFormatter.format(value);
+            }
+            CalculatorMetrics.FORMATTING.recordSince(start);
+            setDisplay(resultFormatter.digits());
+            setExponent(resultFormatter.exponent());
+            if (resultListener != null) {
+                resultListener.resultShown(expression, value, operandFromFields());
             }
+            expression.setLength(0);
 
-            // Reassemble mantissa and exponent
-            return mantissa + exponent;
+            setOperator("");
+            setPreview("");
+            calculatorLogic.clear();
+            isExpressionPending = false;
+            isResultDisplayed = true;
+            lastWasOperator = false;
+            isExponentMode = false;
+            isGroupClosed = false;
         }
     }
 
-    private String removeTrailingDecimalPoint(String value) {
-        return value.endsWith(".") ? value.substring(0, value.length() - 1) : value;
+    private void appendExpression(CharSequence text) {
+        // Room is left for the mark, so only a cut expression reaches the limit
+        int keep = MAX_EXPRESSION - 3;
+        if (expression.length() + text.length() <= keep) {
+            expression.append(text);
+        } else if (expression.length() < MAX_EXPRESSION) {
+            // Cut once, where it stops fitting; anything after is dropped
+            expression.append(text, 0, keep - expression.length()).append("...");
+        }
     }
 
-    private String formatExponent(int exponent) {
-        return String.format("%+d", Math.min(Math.max(exponent, -999), 999));
+    private void formatDecimal(BigDecimal result) {
+        if (result != null) {
+            resultFormatter.format(result);
+        } else {
+            resultFormatter.format(Double.NaN);
+        }
     }
 
-    public void handleDelete() {
+    /**
+     * Shows what pressing equals would give now, without disturbing the engine.
+     * Right after an operator the display still holds the previous operand, so
+     * the preview is left as it was.
+     */
+    private void updatePreview() {
+        if (!isExpressionPending || lastWasOperator) {
+            return;
+        }
+        if (!isGroupClosed && isIncompleteNumber()) {
+            // Delete can leave just a sign, which has no value to preview
+            setPreview("");
+            return;
+        }
+        long start;
+        if (calculatorLogic.isDecimal()) {
+            // A pending NaN makes the whole result NaN
+            BigDecimal result = isGroupClosed ? calculatorLogic.peekDecimalResult()
+                    : isNotANumber() ? null : calculatorLogic.peekDecimalResult(operandFromFields());
+            start = CalculatorMetrics.start();
+            formatDecimal(result);
+        } else {
+            double result = isGroupClosed ? calculatorLogic.peekResult()
+                    : calculatorLogic.peekResult(parseOperandFromFields());
+            start = CalculatorMetrics.start();
+            resultFormatter.format(result);
+        }
+        CalculatorMetrics.FORMATTING.recordSince(start);
+        preview.setLength(0);
+        preview.append(resultFormatter.digits()).append(resultFormatter.exponent());
+        displayModel.setPreview(preview);
+    }
+
+    private void setPreview(CharSequence text) {
+        preview.setLength(0);
+        preview.append(text);
+        displayModel.setPreview(preview);
+    }
+
+    private void deleteLast() {
         if (isExponentMode) {
-            String currentText = expField.getText();
-            if ("E+0".equals(currentText)) {
+            if ("E+0".contentEquals(exponent)) {
                     return;
             }
-            expField.setText((currentText.length() > 3) ? currentText.substring(0,currentText.length()-1) : "E+0");
+            if (exponent.length() > 3) {
+                exponent.setLength(exponent.length() - 1);
+                displayModel.setExponent(exponent);
+            } else {
+                setExponent("E+0");
+            }
+            updatePreview();
         } else {
-            String currentText = displayField.getText();
-            if (isResultDisplayed || isOperatorPending || "0".equals(currentText) || currentText.isEmpty()) {
+            if (isResultDisplayed || isOperatorPending || "0".contentEquals(display) || display.length() == 0) {
                 return;
             }
-            displayField.setText((currentText.length() > 1) ? currentText.substring(0, currentText.length() - 1) : "0");
+            if (display.length() > 1) {
+                display.setLength(display.length() - 1);
+                displayModel.setDisplay(display);
+            } else {
+                setDisplay("0");
+            }
+            updatePreview();
         }
     }
 
-    public void handleSignChange() {
+    private void changeSign() {
+        if (isGroupClosed) {
+            return;
+        }
         if (isExponentMode) {
-            expField.setText("E" + String.format("%+d", -Integer.valueOf(expField.getText().substring(1))));
+            int value = Integer.parseInt(exponent, 1, exponent.length(), 10);
+            exponent.setLength(1);
+            exponent.append(value > 0 ? '-' : '+').append(Math.abs(value));
+            displayModel.setExponent(exponent);
+            updatePreview();
         } else {
-            double currentValue = Double.parseDouble(displayField.getText());
+            double currentValue = FastDoubleParser.parseDouble(display);
             if (currentValue != 0.0) {
                 currentValue = -currentValue;
-                displayField.setText(formatForStandardDisplay(currentValue));
+                resultFormatter.formatStandard(currentValue);
+                setDisplay(resultFormatter.digits());
+                updatePreview();
             }
         }
     }
 
-    private String formatForStandardDisplay(double value) {
-        if (value == (int) value) {
-            return Integer.toString((int) value);
+    private void applyFunction(ScientificFunction function) {
+        if (display.length() == 0 || "OvFlow".contentEquals(display) || isGroupClosed) {
+            return;
         }
-        String valueStr = String.format("%.15f", value);
-        return removeTrailingDecimalPoint(trimTrailingZeros(valueStr));
+        long start;
+        if (calculatorLogic.isDecimal()) {
+            BigDecimal result = isNotANumber() ? null
+                    : calculatorLogic.applyFunction(function, new BigDecimal(operandFromFields().toString()));
+            start = CalculatorMetrics.start();
+            formatDecimal(result);
+        } else {
+            double result = calculatorLogic.applyFunction(function, parseOperandFromFields());
+            start = CalculatorMetrics.start();
+            resultFormatter.format(result);
+        }
+        CalculatorMetrics.FORMATTING.recordSince(start);
+        setDisplay(resultFormatter.digits());
+        setExponent(resultFormatter.exponent());
+        // The result stands as typed, but the next digit starts a new operand
+        isOperatorPending = !isResultDisplayed;
+        lastWasOperator = false;
+        isExponentMode = false;
+        updatePreview();
     }
 
-    public void handleAllClear() {
+    private void clearAll() {
         resetDisplay();
         calculatorLogic.clear();
+        expression.setLength(0);
+        isExpressionPending = false;
         isResultDisplayed = false;
         isOperatorPending = false;
         lastWasOperator = false;
         isExponentMode = false;
+        isGroupClosed = false;
+    }
+
+    /**
+     * Switches the engine to decimal mode with the given context, or back to
+     * binary mode with null, and clears the calculator.
+     */
+    public void setMathContext(MathContext mathContext) {
+        calculatorLogic.setMathContext(mathContext);
+        clearAll();
+        if (listener != null) {
+            listener.stateReplaced();
+        }
+    }
+
+    /**
+     * Selects how functions are computed, keeping what has been entered.
+     */
+    public void setFunctionMode(FunctionMode functionMode) {
+        calculatorLogic.setFunctionMode(functionMode);
+        if (listener != null) {
+            listener.stateReplaced();
+        }
+    }
+
+    public FunctionMode getFunctionMode() {
+        return calculatorLogic.getFunctionMode();
+    }
+
+    /**
+     * Writes the display, the input state and the engine's pending expression,
+     * so that {@link #readState(DataInput)} can pick up exactly here.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeUTF(display.toString());
+        out.writeUTF(exponent.toString());
+        out.writeUTF(operatorSymbol);
+        out.writeUTF(preview.toString());
+        out.writeBoolean(isResultDisplayed);
+        out.writeBoolean(isOperatorPending);
+        out.writeBoolean(lastWasOperator);
+        out.writeBoolean(isExponentMode);
+        out.writeBoolean(isExpressionPending);
+        out.writeBoolean(isGroupClosed);
+        out.writeUTF(expression.toString());
+        calculatorLogic.writeState(out);
+    }
+
+    /**
+     * Replaces the whole state with what {@link #writeState(DataOutput)} wrote,
+     * and shows it. The listener is not told.
+     */
+    public void readState(DataInput in) throws IOException {
+        setDisplay(in.readUTF());
+        setExponent(in.readUTF());
+        setOperator(in.readUTF());
+        setPreview(in.readUTF());
+        isResultDisplayed = in.readBoolean();
+        isOperatorPending = in.readBoolean();
+        lastWasOperator = in.readBoolean();
+        isExponentMode = in.readBoolean();
+        isExpressionPending = in.readBoolean();
+        isGroupClosed = in.readBoolean();
+        expression.setLength(0);
+        expression.append(in.readUTF());
+        calculatorLogic.readState(in);
+    }
+
+    private void setDisplay(CharSequence text) {
+        display.setLength(0);
+        display.append(text);
+        displayModel.setDisplay(display);
+    }
+
+    private void setOperator(String symbol) {
+        operatorSymbol = symbol;
+        displayModel.setOperator(symbol);
+    }
+
+    private void setExponent(CharSequence text) {
+        exponent.setLength(0);
+        exponent.append(text);
+        displayModel.setExponent(exponent);
     }
 }
@@ -1,74 +1,796 @@
 package com.calculator.logic;
 
-import java.util.Stack;
+import com.calculator.metrics.CalculatorMetrics;
+import com.calculator.metrics.EvaluationEvent;
+import com.calculator.metrics.ReductionEvent;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
 
+/**
+ * Operator-precedence engine behind the keypad. Optionally fronted by a shared
+ * {@link ResultCache}: pushes are then only recorded, and the recorded expression
+ * is evaluated on {@link #getResult()} only when the cache has no result for it.
+ *
+ * In decimal mode, selected with a {@link MathContext}, operands and results are
+ * decimals and every operation rounds as the BigDecimal operation with that
+ * context does. Values stay in longs while they fit, so typical amounts cost
+ * little more than doubles. The cache applies to binary mode only.
+ *
+ * {@link #peekResult(double)} previews a result without touching the stacks. In
+ * binary mode without a cache it costs the same however long the expression is.
+ *
+ * {@link #openGroup()} and {@link #closeGroup()} bracket part of the expression,
+ * which is then reduced on its own to one operand. Groups nest as deeply as
+ * memory allows, since the stacks are arrays rather than the call stack, and
+ * cost nothing but the height of the operator stack where each starts.
+ */
 public class CalculatorLogic {
 
-    private final Stack<Double> operandStack = new Stack<>();   // Stack for storing operands
-    private final Stack<String> operatorStack = new Stack<>();  // Stack for storing operators
+    // Built-in operator opcodes; added operators follow UNKNOWN, see Operators
+    static final byte ADD = 0;
+    static final byte SUBTRACT = 1;
+    static final byte MULTIPLY = 2;
+    static final byte DIVIDE = 3;
+    static final byte UNKNOWN = 4;
+
+    private static final int[] BINDING = Operators.BINDING;
+    private static final int[] REDUCES_FROM = Operators.REDUCES_FROM;
+    private static final int[] REDUCES_AGAIN_ABOVE = Operators.REDUCES_AGAIN_ABOVE;
+    // Marks a prefix map level that is not a signed sum
+    private static final byte OPAQUE = 2;
+    private static final int INITIAL_CAPACITY = 16;
+    // Pending operators that peekResult applies one by one before using the prefix map
+    private static final int EXACT_LEVELS = 4;
+
+    private double[] operandStack = new double[INITIAL_CAPACITY];  // Stack for storing operands
+    private byte[] operatorStack = new byte[INITIAL_CAPACITY];     // Stack for storing operator opcodes
+    private int operandCount = 0;
+    private int operatorCount = 0;
+    // Operator stack heights where the open groups start. Pushing an operator
+    // reduces nothing below groupFloor, the innermost start, or 0 outside groups
+    private int[] groupStarts = new int[INITIAL_CAPACITY];
+    private int groupDepth = 0;
+    private int groupFloor = 0;
+
+    // For peekResult: level i maps a value y standing at stack position i to
+    // prefixValues[i] + prefixSigns[i] * y, which is what the operators below i do
+    // to it on getResult. With the built-in operators only the top one can be * or
+    // /, since pushing any operator reduces it, so below the top this is always a
+    // signed sum. An added operator that binds tighter, or an open group, can
+    // leave * or / below it, and such levels are marked OPAQUE. Kept up as operators are pushed; invalid
+    // once an operator is pushed out of turn.
+    private double[] prefixValues = new double[INITIAL_CAPACITY + 1];
+    private byte[] prefixSigns = new byte[INITIAL_CAPACITY + 1];
+    private boolean prefixValid = true;
+    private CalculatorLogic peekScratch;
+
+    // With a cache, the expression since the last result is recorded here rather
+    // than evaluated. Anything but alternating operands and operators replays the
+    // recording onto the stacks and evaluates eagerly until the next clear.
+    private final ResultCache resultCache;
+    private final ExpressionKey probe = new ExpressionKey();
+    private long[] traceOperands;
+    private byte[] traceOperators;
+    private int traceOperandCount = 0;
+    private int traceOperatorCount = 0;
+    private boolean deferred;
+
+    // Decimal operands, standing in for operandStack; null in binary mode
+    private DecimalStack decimals;
+    private FunctionMode functionMode = FunctionMode.STRICT;
+
+    // JFR events, reused rather than allocated per evaluation whether or not a
+    // recording is running; end() before commit() resets each one's duration
+    private final EvaluationEvent evaluationEvent = new EvaluationEvent();
+    private final ReductionEvent reductionEvent = new ReductionEvent();
+
+    public CalculatorLogic() {
+        this((ResultCache) null);
+    }
+
+    public CalculatorLogic(MathContext mathContext) {
+        this((ResultCache) null);
+        // Not through setMathContext, which subclasses may override; a new engine has nothing to clear
+        this.decimals = mathContext == null ? null : new DecimalStack(mathContext);
+    }
+
+    public CalculatorLogic(ResultCache resultCache) {
+        this.resultCache = resultCache;
+        prefixSigns[0] = 1;
+        if (resultCache != null) {
+            traceOperands = new long[INITIAL_CAPACITY];
+            traceOperators = new byte[INITIAL_CAPACITY];
+            deferred = true;
+        }
+    }
 
     public void pushOperand(double operand) {
-        operandStack.push(operand);
+        if (deferred) {
+            if (traceOperandCount == traceOperatorCount) {
+                if (traceOperandCount == traceOperands.length) {
+                    traceOperands = Arrays.copyOf(traceOperands, traceOperandCount * 2);
+                }
+                traceOperands[traceOperandCount++] = Double.doubleToRawLongBits(operand);
+                return;
+            }
+            replayTrace();
+        }
+        pushValue(operand);
+    }
+
+    /**
+     * Pushes an operand written as a decimal number, such as {@code 12.5E-3}. In
+     * decimal mode it is taken exactly as written.
+     */
+    public void pushOperand(CharSequence operand) {
+        if (decimals != null) {
+            decimals.push(operand);
+            operandCount++;
+        } else {
+            pushOperand(FastDoubleParser.parseDouble(operand));
+        }
+    }
+
+    private void pushValue(double operand) {
+        if (decimals != null) {
+            decimals.push(operand);
+            operandCount++;
+            return;
+        }
+        if (operandCount == operandStack.length) {
+            operandStack = Arrays.copyOf(operandStack, operandCount * 2);
+        }
+        operandStack[operandCount++] = operand;
     }
 
     public void pushOperator(String operator) {
-        if (!operatorStack.isEmpty() && precedence(operatorStack.peek()) >= precedence(operator)) {
+        pushOpcode(opcode(operator));
+    }
+
+    void pushOpcode(byte opcode) {
+        if (deferred) {
+            if (traceOperandCount == traceOperatorCount + 1) {
+                if (traceOperatorCount == traceOperators.length) {
+                    traceOperators = Arrays.copyOf(traceOperators, traceOperatorCount * 2);
+                }
+                traceOperators[traceOperatorCount++] = Operators.pack(opcode, opcode);
+                return;
+            }
+            replayTrace();
+        }
+        reduceAndPush(opcode);
+    }
+
+    private void reduceAndPush(byte opcode) {
+        if (operatorCount > groupFloor && reduces(operatorStack[operatorCount - 1], opcode)) {
             evaluateStacks();
+            if (operatorCount > groupFloor && reducesAgain(operatorStack[operatorCount - 1], opcode)) {
+                reduceAgain(opcode);
+            }
         }
-        operatorStack.push(operator);
+        pushRaw(opcode);
+    }
+
+    // Out of line, since only added operators that bind tighter than * and / get here
+    private void reduceAgain(byte opcode) {
+        while (operatorCount > groupFloor && operandCount >= 2 && reducesAgain(operatorStack[operatorCount - 1], opcode)) {
+            evaluateStacks();
+        }
+    }
+
+    /**
+     * Whether pushing an operator first reduces the one on top: if the top one
+     * binds tighter, or the same unless the new one is right-associative. Any
+     * further reduction needs an operator that binds tighter still; one that
+     * binds the same stays pending, so {@code a - b * c + d} is
+     * {@code a - (b * c + d)}. With only {@code + - * /} there is never a
+     * second reduction.
+     */
+    static boolean reduces(byte top, byte opcode) {
+        return BINDING[top] >= REDUCES_FROM[opcode];
+    }
+
+    static boolean reducesAgain(byte top, byte opcode) {
+        return BINDING[top] > REDUCES_AGAIN_ABOVE[opcode];
     }
 
     public void replaceLastOperator(String operation) {
-        if (!operatorStack.isEmpty()) {
-            operatorStack.pop(); // Remove the last operator
+        replaceLastOpcode(opcode(operation));
+    }
+
+    void replaceLastOpcode(byte opcode) {
+        if (deferred) {
+            if (traceOperatorCount > 0 && traceOperandCount == traceOperatorCount) {
+                byte last = traceOperators[traceOperatorCount - 1];
+                traceOperators[traceOperatorCount - 1] = Operators.pack(Operators.typed(last), opcode);
+                return;
+            }
+            replayTrace();
         }
-        operatorStack.push(operation); // Push the new operator
+        if (operatorCount > 0) {
+            operatorCount--; // Remove the last operator
+        }
+        pushRaw(opcode); // Push the new operator
+    }
+
+    private void pushRaw(byte opcode) {
+        if (operatorCount == operatorStack.length) {
+            operatorStack = Arrays.copyOf(operatorStack, operatorCount * 2);
+            prefixValues = Arrays.copyOf(prefixValues, operatorCount * 2 + 1);
+            prefixSigns = Arrays.copyOf(prefixSigns, operatorCount * 2 + 1);
+        }
+        if (operandCount == operatorCount + 1) {
+            extendPrefix(operatorCount, opcode, operandStack[operatorCount]);
+        } else {
+            prefixValid = false;
+        }
+        operatorStack[operatorCount++] = opcode;
+    }
+
+    /**
+     * Opens a group: what is pushed until the matching {@link #closeGroup()}
+     * reduces to one operand before anything outside it applies, so
+     * {@code 2 * (3 + 4)} is 14. Push an operand or another group next.
+     */
+    public void openGroup() {
+        if (deferred) {
+            replayTrace();
+        }
+        if (groupDepth == groupStarts.length) {
+            groupStarts = Arrays.copyOf(groupStarts, groupDepth * 2);
+        }
+        groupStarts[groupDepth++] = operatorCount;
+        groupFloor = operatorCount;
+    }
+
+    /**
+     * Closes the innermost open group, leaving its value on top of the operand
+     * stack; does nothing if no group is open. Groups still open when the
+     * result is taken are closed first.
+     */
+    public void closeGroup() {
+        if (groupDepth == 0) {
+            return;
+        }
+        while (operatorCount > groupFloor && operandCount >= 2) {
+            evaluateStacks();
+        }
+        groupDepth--;
+        groupFloor = groupDepth == 0 ? 0 : groupStarts[groupDepth - 1];
+    }
+
+    /**
+     * How many groups are open.
+     */
+    public int groupDepth() {
+        return groupDepth;
+    }
+
+    /**
+     * Sets the prefix map of level + 1 from that of level and the operator pushed
+     * there with its left operand.
+     */
+    private void extendPrefix(int level, byte opcode, double left) {
+        double value = prefixValues[level];
+        byte sign = prefixSigns[level];
+        // Nothing above an opaque level can be mapped either
+        if (sign != OPAQUE) {
+            switch (opcode) {
+                case ADD, SUBTRACT -> {
+                    if (sign != 0) {
+                        value += sign > 0 ? left : -left;
+                    }
+                    if (opcode == SUBTRACT) {
+                        sign = (byte) -sign;
+                    }
+                }
+                case UNKNOWN ->
+                    sign = 0; // Gives 0 whatever is above it
+                default ->
+                    // Fine on top, where peekResult applies it itself, but not below
+                    sign = OPAQUE;
+            }
+        }
+        prefixValues[level + 1] = value;
+        prefixSigns[level + 1] = sign;
+    }
+
+    /**
+     * What {@code pushOperand(pendingOperand)} followed by {@link #getResult()}
+     * would return, without changing anything: the result so far, as the operand
+     * being typed stands.
+     *
+     * In binary mode without a cache this takes constant time. The top few pending
+     * operators are applied exactly as getResult applies them, and those below
+     * through the prefix map kept as they were pushed, which adds the same terms
+     * in a different order. With more than four operators pending the preview can
+     * therefore differ from getResult in the last bits. Otherwise, whenever
+     * operands and operators were not pushed in turn, and when added operators
+     * or open groups leave more than a signed sum below the top four, such as
+     * {@code 2 * (3 + 4 + 5 + 6 + 7}, the stacks are copied and
+     * evaluated, which is exact and takes time in proportion to what is pending.
+     */
+    public double peekResult(double pendingOperand) {
+        int exactFrom = Math.max(0, operatorCount - EXACT_LEVELS);
+        if (deferred || decimals != null || !prefixValid || operandCount != operatorCount
+                || prefixSigns[exactFrom] == OPAQUE) {
+            CalculatorLogic copy = snapshot();
+            copy.pushOperand(pendingOperand);
+            return copy.result();
+        }
+        double value = pendingOperand;
+        int level = operatorCount;
+        while (level > exactFrom) {
+            level--;
+            value = apply(operatorStack[level], operandStack[level], value);
+        }
+        if (level == 0) {
+            return value;
+        }
+        byte sign = prefixSigns[level];
+        return sign == 0 ? prefixValues[level] : prefixValues[level] + (sign > 0 ? value : -value);
+    }
+
+    /**
+     * What {@link #getResult()} would return, without changing anything, when
+     * the last thing pushed was an operand, such as a closed group: the top
+     * operand previewed as if it were still being typed.
+     */
+    public double peekResult() {
+        if (deferred || decimals != null || operandCount != operatorCount + 1) {
+            return snapshot().result();
+        }
+        operandCount--;
+        double result = peekResult(operandStack[operandCount]);
+        operandCount++;
+        return result;
+    }
+
+    /**
+     * The operand on top of the stack, such as the value of the group just
+     * closed, or NaN if there is none. In decimal mode the value is converted.
+     */
+    public double peekOperand() {
+        if (deferred || operandCount == 0) {
+            return deferred && traceOperandCount > traceOperatorCount
+                    ? Double.longBitsToDouble(traceOperands[traceOperandCount - 1]) : Double.NaN;
+        }
+        if (decimals != null) {
+            BigDecimal operand = decimals.peek();
+            return operand == null ? Double.NaN : operand.doubleValue();
+        }
+        return operandStack[operandCount - 1];
+    }
+
+    /**
+     * Like {@link #peekOperand()}, but the decimal value in decimal mode, or
+     * null if there is none or it is not a number.
+     */
+    public BigDecimal peekDecimalOperand() {
+        if (decimals == null) {
+            double operand = peekOperand();
+            return Double.isNaN(operand) || Double.isInfinite(operand) ? null : BigDecimal.valueOf(operand);
+        }
+        return operandCount == 0 ? null : decimals.peek();
+    }
+
+    /**
+     * Like {@link #peekResult(double)} for {@link #getDecimalResult()}, with the
+     * operand as typed. In decimal mode this copies the pending values.
+     */
+    public BigDecimal peekDecimalResult(CharSequence pendingOperand) {
+        if (decimals == null) {
+            double result = peekResult(FastDoubleParser.parseDouble(pendingOperand));
+            return Double.isNaN(result) || Double.isInfinite(result) ? null : BigDecimal.valueOf(result);
+        }
+        CalculatorLogic copy = snapshot();
+        copy.pushOperand(pendingOperand);
+        return copy.decimalResult();
+    }
+
+    /**
+     * Like {@link #peekResult()} for {@link #getDecimalResult()}.
+     */
+    public BigDecimal peekDecimalResult() {
+        if (decimals == null) {
+            double result = peekResult();
+            return Double.isNaN(result) || Double.isInfinite(result) ? null : BigDecimal.valueOf(result);
+        }
+        return snapshot().decimalResult();
+    }
+
+    /**
+     * A reusable engine without a cache holding the same pending expression.
+     */
+    private CalculatorLogic snapshot() {
+        if (peekScratch == null) {
+            peekScratch = new CalculatorLogic();
+        }
+        CalculatorLogic copy = peekScratch;
+        if (decimals == null) {
+            copy.decimals = null;
+            if (copy.operandStack.length < operandStack.length) {
+                copy.operandStack = new double[operandStack.length];
+            }
+            System.arraycopy(operandStack, 0, copy.operandStack, 0, operandCount);
+        } else {
+            if (copy.decimals == null || !copy.decimals.mathContext().equals(decimals.mathContext())) {
+                copy.decimals = new DecimalStack(decimals.mathContext());
+            }
+            copy.decimals.copyFrom(decimals);
+        }
+        if (copy.operatorStack.length < operatorStack.length) {
+            copy.operatorStack = new byte[operatorStack.length];
+            copy.prefixValues = new double[operatorStack.length + 1];
+            copy.prefixSigns = new byte[operatorStack.length + 1];
+            copy.prefixSigns[0] = 1;
+        }
+        System.arraycopy(operatorStack, 0, copy.operatorStack, 0, operatorCount);
+        copy.operandCount = operandCount;
+        copy.operatorCount = operatorCount;
+        // Only getResult runs on the copy, so its prefix maps are not needed
+        copy.prefixValid = false;
+        if (deferred) {
+            // The stacks are empty while deferring; the recording holds the expression
+            replayTraceOnto(copy);
+        }
+        return copy;
     }
 
     public double getResult() {
-        while (!operatorStack.isEmpty()) {
+        EvaluationEvent event = evaluationEvent;
+        event.begin();
+        long start = CalculatorMetrics.start();
+        if (event.isEnabled()) {
+            event.operands = deferred ? traceOperandCount : operandCount;
+            event.operators = deferred ? traceOperatorCount : operatorCount;
+        }
+        double result = result();
+        CalculatorMetrics.EVALUATIONS.recordSince(start);
+        CalculatorMetrics.result(result);
+        event.end();
+        if (event.shouldCommit()) {
+            event.result = result;
+            event.commit();
+        }
+        return result;
+    }
+
+    private double result() {
+        if (deferred) {
+            if (traceOperandCount == 0) {
+                return 0;
+            } else if (traceOperandCount != traceOperatorCount + 1) {
+                replayTrace();
+            } else {
+                probe.view(traceOperands, traceOperandCount, traceOperators, traceOperatorCount);
+                ExpressionKey cached = resultCache.get(probe);
+                if (cached != null) {
+                    // A complete expression leaves nothing behind on the stacks
+                    traceOperandCount = 0;
+                    traceOperatorCount = 0;
+                    return cached.result;
+                }
+                ExpressionKey key = probe.copy(0);
+                replayTrace();
+                key.result = evaluateAll();
+                resultCache.put(key);
+                deferred = true;
+                return key.result;
+            }
+        }
+        return evaluateAll();
+    }
+
+    private double evaluateAll() {
+        reduceAll();
+        if (operandCount == 0) {
+            return 0;
+        }
+        operandCount--;
+        return decimals != null ? decimals.popDouble() : operandStack[operandCount];
+    }
+
+    /**
+     * Like {@link #getResult()}, but returns the decimal result in decimal mode,
+     * or null if it is not a number. In binary mode the result is converted as
+     * {@link BigDecimal#valueOf(double)} does.
+     */
+    public BigDecimal getDecimalResult() {
+        if (decimals == null) {
+            double result = getResult();
+            return Double.isNaN(result) || Double.isInfinite(result) ? null : BigDecimal.valueOf(result);
+        }
+        EvaluationEvent event = evaluationEvent;
+        event.begin();
+        long start = CalculatorMetrics.start();
+        if (event.isEnabled()) {
+            event.operands = operandCount;
+            event.operators = operatorCount;
+        }
+        BigDecimal result = decimalResult();
+        CalculatorMetrics.EVALUATIONS.recordSince(start);
+        if (result == null) {
+            CalculatorMetrics.result(Double.NaN);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.result = result == null ? Double.NaN : result.doubleValue();
+            event.commit();
+        }
+        return result;
+    }
+
+    private BigDecimal decimalResult() {
+        reduceAll();
+        if (operandCount == 0) {
+            return BigDecimal.ZERO;
+        }
+        operandCount--;
+        return decimals.pop();
+    }
+
+    private void reduceAll() {
+        // Operators that cannot find two operands are left alone, so stop rather than spin on them
+        while (operatorCount > 0 && operandCount >= 2) {
             evaluateStacks();
         }
-        return operandStack.isEmpty() ? 0 : operandStack.pop();
+        // Reducing from the top closes every open group in turn
+        groupDepth = 0;
+        groupFloor = 0;
     }
 
     private void evaluateStacks() {
-        if (operandStack.size() < 2 || operatorStack.isEmpty()) {
+        if (operandCount < 2 || operatorCount == 0) {
             return;
         }
+        ReductionEvent event = reductionEvent;
+        event.begin();
+        CalculatorMetrics.reduction();
+        byte opcode = operatorStack[--operatorCount];
+        if (decimals != null) {
+            decimals.apply(opcode);
+            operandCount--;
+        } else {
+            double operand2 = operandStack[--operandCount];
+            double operand1 = operandStack[operandCount - 1];
+            operandStack[operandCount - 1] = apply(opcode, operand1, operand2);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operator = Operators.SYMBOLS[opcode];
+            event.commit();
+        }
+    }
 
-        double operand2 = operandStack.pop();
-        double operand1 = operandStack.pop();
-        String operator = operatorStack.pop();
-
-        double result = switch (operator) {
-            case "+" ->
+    /**
+     * Switches over the built-in opcodes, which compiles to a jump table, and
+     * indexes the registry for added operators.
+     */
+    static double apply(byte opcode, double operand1, double operand2) {
+        return switch (opcode) {
+            case ADD ->
                 operand1 + operand2;
-            case "-" ->
+            case SUBTRACT ->
                 operand1 - operand2;
-            case "*" ->
+            case MULTIPLY ->
                 operand1 * operand2;
-            case "/" ->
+            case DIVIDE ->
                 (operand2 != 0) ? operand1 / operand2 : Double.NaN;
-            default ->
+            case UNKNOWN ->
                 0;
+            default ->
+                Operators.apply(opcode, operand1, operand2);
         };
-        operandStack.push(result);
     }
 
-    private int precedence(String operator) {
-        return switch (operator) {
-            case "+", "-" ->
-                1;
-            case "*", "/" ->
-                2;
-            default ->
-                -1;
-        };
+    // Single-character lookup keeps the hot path free of String hashing
+    static byte opcode(String operator) {
+        return operator.length() == 1 ? opcode(operator.charAt(0)) : UNKNOWN;
+    }
+
+    static byte opcode(char operator) {
+        return Operators.opcode(operator);
+    }
+
+    /**
+     * Pushes the recorded expression onto the stacks exactly as the calls that
+     * built it would have, and stops deferring until the next clear.
+     */
+    private void replayTrace() {
+        deferred = false;
+        replayTraceOnto(this);
+        traceOperandCount = 0;
+        traceOperatorCount = 0;
+    }
+
+    private void replayTraceOnto(CalculatorLogic target) {
+        for (int i = 0; i < traceOperandCount; i++) {
+            target.pushValue(Double.longBitsToDouble(traceOperands[i]));
+            if (i < traceOperatorCount) {
+                byte operator = traceOperators[i];
+                byte pushed = Operators.typed(operator);
+                byte replacement = Operators.replacement(operator);
+                target.reduceAndPush(pushed);
+                if (replacement != pushed) {
+                    target.operatorCount--;
+                    target.pushRaw(replacement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the mode and everything pending, for {@link #readState(DataInput)}.
+     * The shared cache is not part of the state.
+     */
+    void writeState(DataOutput out) throws IOException {
+        MathContext mathContext = getMathContext();
+        out.writeInt(mathContext == null ? -1 : mathContext.getPrecision());
+        if (mathContext != null) {
+            out.writeByte(mathContext.getRoundingMode().ordinal());
+        }
+        out.writeByte(functionMode.ordinal());
+        out.writeBoolean(deferred);
+        out.writeInt(traceOperandCount);
+        for (int i = 0; i < traceOperandCount; i++) {
+            out.writeLong(traceOperands[i]);
+        }
+        out.writeInt(traceOperatorCount);
+        // An engine without a cache never allocates the trace
+        if (traceOperatorCount > 0) {
+            out.write(traceOperators, 0, traceOperatorCount);
+        }
+        out.writeInt(operatorCount);
+        out.write(operatorStack, 0, operatorCount);
+        out.writeInt(groupDepth);
+        for (int i = 0; i < groupDepth; i++) {
+            out.writeInt(groupStarts[i]);
+        }
+        out.writeBoolean(prefixValid);
+        for (int i = 0; i <= operatorCount; i++) {
+            out.writeLong(Double.doubleToRawLongBits(prefixValues[i]));
+            out.writeByte(prefixSigns[i]);
+        }
+        out.writeInt(operandCount);
+        if (decimals != null) {
+            decimals.writeTo(out);
+        } else {
+            for (int i = 0; i < operandCount; i++) {
+                out.writeLong(Double.doubleToRawLongBits(operandStack[i]));
+            }
+        }
+    }
+
+    /**
+     * Replaces the mode and everything pending with what
+     * {@link #writeState(DataOutput)} wrote, so that every later call gives
+     * what it would have given on the engine that wrote it.
+     */
+    void readState(DataInput in) throws IOException {
+        int precision = in.readInt();
+        setMathContext(precision < 0 ? null : new MathContext(precision, RoundingMode.values()[in.readByte()]));
+        functionMode = FunctionMode.values()[in.readByte()];
+        boolean wasDeferred = in.readBoolean();
+        traceOperandCount = in.readInt();
+        if (traceOperands == null || traceOperands.length < traceOperandCount) {
+            traceOperands = new long[Math.max(INITIAL_CAPACITY, traceOperandCount)];
+        }
+        for (int i = 0; i < traceOperandCount; i++) {
+            traceOperands[i] = in.readLong();
+        }
+        traceOperatorCount = in.readInt();
+        if (traceOperators == null || traceOperators.length < traceOperatorCount) {
+            traceOperators = new byte[Math.max(INITIAL_CAPACITY, traceOperatorCount)];
+        }
+        in.readFully(traceOperators, 0, traceOperatorCount);
+        operatorCount = in.readInt();
+        if (operatorStack.length < operatorCount) {
+            operatorStack = new byte[operatorCount];
+            prefixValues = new double[operatorCount + 1];
+            prefixSigns = new byte[operatorCount + 1];
+        }
+        in.readFully(operatorStack, 0, operatorCount);
+        groupDepth = in.readInt();
+        if (groupStarts.length < groupDepth) {
+            groupStarts = new int[groupDepth];
+        }
+        for (int i = 0; i < groupDepth; i++) {
+            groupStarts[i] = in.readInt();
+        }
+        groupFloor = groupDepth == 0 ? 0 : groupStarts[groupDepth - 1];
+        prefixValid = in.readBoolean();
+        for (int i = 0; i <= operatorCount; i++) {
+            prefixValues[i] = Double.longBitsToDouble(in.readLong());
+            prefixSigns[i] = in.readByte();
+        }
+        operandCount = in.readInt();
+        if (decimals != null) {
+            decimals.readFrom(in, operandCount);
+        } else {
+            if (operandStack.length < operandCount) {
+                operandStack = new double[operandCount];
+            }
+            for (int i = 0; i < operandCount; i++) {
+                operandStack[i] = Double.longBitsToDouble(in.readLong());
+            }
+        }
+        deferred = wasDeferred;
+        if (deferred && resultCache == null) {
+            // Nowhere to look results up, so evaluate the recording as it would have been
+            replayTrace();
+        }
+    }
+
+    /**
+     * Switches to decimal mode with the given context, or back to binary mode
+     * with null. Clears the expression.
+     */
+    public void setMathContext(MathContext mathContext) {
+        decimals = mathContext == null ? null : new DecimalStack(mathContext);
+        clear();
+    }
+
+    /**
+     * The decimal-mode context, or null in binary mode.
+     */
+    public MathContext getMathContext() {
+        return decimals == null ? null : decimals.mathContext();
+    }
+
+    public boolean isDecimal() {
+        return decimals != null;
+    }
+
+    /**
+     * Selects how {@link #applyFunction} computes; the expression is kept.
+     */
+    public void setFunctionMode(FunctionMode functionMode) {
+        this.functionMode = functionMode;
+    }
+
+    public FunctionMode getFunctionMode() {
+        return functionMode;
+    }
+
+    /**
+     * Applies the function in this engine's mode. The pending expression is
+     * not involved: the result is pushed like any other operand.
+     */
+    public double applyFunction(ScientificFunction function, double x) {
+        return function.apply(x, functionMode);
+    }
+
+    /**
+     * The decimal-mode form, or null where the function has no value. A square
+     * root rounds to the context as BigDecimal.sqrt does; the other functions
+     * are the binary ones, rounded to the context.
+     */
+    public BigDecimal applyFunction(ScientificFunction function, BigDecimal x) {
+        MathContext mathContext = decimals.mathContext();
+        if (function == ScientificFunction.SQRT) {
+            return x.signum() < 0 ? null : x.sqrt(mathContext);
+        }
+        double result = function.apply(x.doubleValue(), functionMode);
+        return Double.isFinite(result) ? BigDecimal.valueOf(result).round(mathContext) : null;
     }
 
     public void clear() {
-        operandStack.clear();
-        operatorStack.clear();
+        operandCount = 0;
+        operatorCount = 0;
+        groupDepth = 0;
+        groupFloor = 0;
+        traceOperandCount = 0;
+        traceOperatorCount = 0;
+        prefixValid = true;
+        deferred = resultCache != null && decimals == null;
+        if (decimals != null) {
+            decimals.clear();
+        }
     }
 }
@@ -0,0 +1,15 @@
+package com.calculator.logic;
+
+/**
+ * An expression shape compiled by {@link ExpressionCompiler}. Evaluates to the
+ * same result CalculatorLogic gives when the operands are pushed in order with
+ * the shape's operators between them.
+ */
+public interface CompiledExpression {
+
+    /**
+     * Evaluates the expression. The array must hold at least one operand per slot
+     * in the shape; it is only read.
+     */
+    double eval(double[] operands);
+}
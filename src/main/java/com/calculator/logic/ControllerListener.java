@@ -0,0 +1,16 @@
+package com.calculator.logic;
+
+/**
+ * Told about each call into a CalculatorController, before it takes effect, as
+ * the {@link Keystrokes} key that makes the same call.
+ */
+public interface ControllerListener {
+
+    void keyPressed(char key);
+
+    /**
+     * The controller's state was replaced by something other than a key, such as
+     * a switch between binary and decimal mode. Called after it takes effect.
+     */
+    void stateReplaced();
+}
@@ -0,0 +1,363 @@
+package com.calculator.logic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * Operand stack for decimal mode. Each value is held as a long unscaled value
+ * and a scale while it fits, and as a BigDecimal otherwise. Every operation
+ * produces exactly what the BigDecimal operation with the engine's MathContext
+ * would: the long path is taken only when the exact result fits in the
+ * context's precision, where BigDecimal would not round either. Division by
+ * zero gives a value that is not a number, as in binary mode.
+ */
+final class DecimalStack {
+
+    private static final byte FAST = 0;
+    private static final byte WIDE = 1;
+    private static final byte NAN = 2;
+
+    // Largest count of decimal digits any long can hold without overflow
+    private static final int FAST_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[FAST_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final MathContext mathContext;
+    // Fast results must stay below this to need no rounding in mathContext
+    private final long fastLimit;
+    private final ShortestDigits shortest = new ShortestDigits();
+
+    private byte[] kinds = new byte[16];
+    private long[] unscaled = new long[16];
+    private int[] scales = new int[16];
+    private BigDecimal[] wide = new BigDecimal[16];
+    private int size = 0;
+
+    DecimalStack(MathContext mathContext) {
+        if (mathContext.getPrecision() == 0) {
+            // Unlimited precision cannot represent quotients such as 1/3
+            throw new IllegalArgumentException("Decimal mode needs a finite precision: " + mathContext);
+        }
+        this.mathContext = mathContext;
+        this.fastLimit = mathContext.getPrecision() > FAST_DIGITS ? Long.MAX_VALUE : POWERS_OF_TEN[mathContext.getPrecision()];
+    }
+
+    MathContext mathContext() {
+        return mathContext;
+    }
+
+    /**
+     * Pushes a decimal number such as {@code -12.5E-3}, exactly as written.
+     */
+    void push(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long digits = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        boolean anyDigits = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c >= '0' && c <= '9') {
+                anyDigits = true;
+                if (digits != 0 || c != '0') {
+                    if (++significantDigits > FAST_DIGITS) {
+                        break;
+                    }
+                }
+                digits = digits * 10 + (c - '0');
+                if (seenPoint) {
+                    scale++;
+                }
+            } else {
+                break;
+            }
+        }
+        if (significantDigits > FAST_DIGITS || !anyDigits) {
+            // BigDecimal rejects what the fast scan cannot handle
+            push(new BigDecimal(text.toString()));
+            return;
+        }
+        if (i < length) {
+            char c = text.charAt(i);
+            if ((c != 'E' && c != 'e') || i + 1 == length) {
+                throw new NumberFormatException("Not a decimal number: " + text);
+            }
+            scale -= Integer.parseInt(text, i + 1, length, 10);
+        }
+        pushFast(negative ? -digits : digits, scale);
+    }
+
+    /**
+     * Pushes a binary value as its shortest decimal form, as
+     * {@link BigDecimal#valueOf(double)} would. Infinities are not numbers here.
+     */
+    void push(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            pushKind(NAN);
+        } else if (value == 0) {
+            pushFast(0, 0);
+        } else {
+            shortest.set(Math.abs(value));
+            long digits = 0;
+            for (int i = 0; i < shortest.length; i++) {
+                digits = digits * 10 + (shortest.digits[i] - '0');
+            }
+            pushFast(value < 0 ? -digits : digits, shortest.length - shortest.decimalExponent);
+        }
+    }
+
+    private void push(BigDecimal value) {
+        if (value.precision() <= FAST_DIGITS) {
+            pushFast(value.unscaledValue().longValue(), value.scale());
+        } else {
+            pushKind(WIDE);
+            wide[size - 1] = value;
+        }
+    }
+
+    private void pushFast(long value, int scale) {
+        pushKind(FAST);
+        unscaled[size - 1] = value;
+        scales[size - 1] = scale;
+    }
+
+    private void pushKind(byte kind) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            unscaled = Arrays.copyOf(unscaled, size * 2);
+            scales = Arrays.copyOf(scales, size * 2);
+            wide = Arrays.copyOf(wide, size * 2);
+        }
+        wide[size] = null;
+        kinds[size++] = kind;
+    }
+
+    /**
+     * Replaces the top two values with the result of applying an operator to them.
+     */
+    void apply(byte opcode) {
+        int right = --size;
+        int left = size - 1;
+        BigDecimal wideRight = wide[right];
+        wide[right] = null;
+        if (kinds[left] == NAN || kinds[right] == NAN) {
+            kinds[left] = NAN;
+            wide[left] = null;
+            return;
+        }
+        if (kinds[left] == FAST && kinds[right] == FAST && applyFast(opcode, left, right)) {
+            return;
+        }
+        BigDecimal operand1 = toBigDecimal(left);
+        BigDecimal operand2 = kinds[right] == FAST ? BigDecimal.valueOf(unscaled[right], scales[right]) : wideRight;
+        size = left;
+        switch (opcode) {
+            case CalculatorLogic.ADD ->
+                push(operand1.add(operand2, mathContext));
+            case CalculatorLogic.SUBTRACT ->
+                push(operand1.subtract(operand2, mathContext));
+            case CalculatorLogic.MULTIPLY ->
+                push(operand1.multiply(operand2, mathContext));
+            case CalculatorLogic.DIVIDE -> {
+                if (operand2.signum() == 0) {
+                    pushKind(NAN);
+                } else {
+                    push(operand1.divide(operand2, mathContext));
+                }
+            }
+            case CalculatorLogic.UNKNOWN ->
+                pushFast(0, 0);
+            default -> {
+                BigDecimal result = Operators.operator(opcode).apply(operand1, operand2, mathContext);
+                if (result == null) {
+                    pushKind(NAN);
+                } else {
+                    push(result);
+                }
+            }
+        }
+    }
+
+    // Stores the exact result in the left slot when it fits; false leaves both slots alone
+    private boolean applyFast(byte opcode, int left, int right) {
+        long a = unscaled[left];
+        long b = unscaled[right];
+        int scaleA = scales[left];
+        int scaleB = scales[right];
+        long result;
+        long scale;
+        switch (opcode) {
+            case CalculatorLogic.ADD, CalculatorLogic.SUBTRACT -> {
+                if (opcode == CalculatorLogic.SUBTRACT) {
+                    b = -b;
+                }
+                // Align to the larger scale, which is also the scale BigDecimal keeps
+                if (scaleA < scaleB) {
+                    a = rescale(a, (long) scaleB - scaleA);
+                } else if (scaleA > scaleB) {
+                    b = rescale(b, (long) scaleA - scaleB);
+                }
+                if (a == Long.MIN_VALUE || b == Long.MIN_VALUE) {
+                    return false;
+                }
+                result = a + b;
+                if (((a ^ result) & (b ^ result)) < 0) {
+                    return false;
+                }
+                scale = Math.max(scaleA, scaleB);
+            }
+            case CalculatorLogic.MULTIPLY -> {
+                long high = Math.multiplyHigh(a, b);
+                result = a * b;
+                if (high != result >> 63) {
+                    return false;
+                }
+                scale = (long) scaleA + scaleB;
+            }
+            case CalculatorLogic.DIVIDE -> {
+                if (b == 0) {
+                    kinds[left] = NAN;
+                    return true;
+                }
+                // Only exact quotients; the rest need BigDecimal's rounding
+                if (a % b != 0) {
+                    return false;
+                }
+                result = a / b;
+                scale = (long) scaleA - scaleB;
+            }
+            case CalculatorLogic.UNKNOWN -> {
+                result = 0;
+                scale = 0;
+            }
+            default -> {
+                // Added operators work on BigDecimal
+                return false;
+            }
+        }
+        if (result == Long.MIN_VALUE || Math.abs(result) >= fastLimit || scale != (int) scale) {
+            return false;
+        }
+        unscaled[left] = result;
+        scales[left] = (int) scale;
+        return true;
+    }
+
+    // value * 10^shift, or Long.MIN_VALUE if that overflows
+    private static long rescale(long value, long shift) {
+        if (shift > FAST_DIGITS) {
+            return Long.MIN_VALUE;
+        }
+        long power = POWERS_OF_TEN[(int) shift];
+        long high = Math.multiplyHigh(value, power);
+        long result = value * power;
+        return high == result >> 63 ? result : Long.MIN_VALUE;
+    }
+
+    private BigDecimal toBigDecimal(int slot) {
+        return kinds[slot] == FAST ? BigDecimal.valueOf(unscaled[slot], scales[slot]) : wide[slot];
+    }
+
+    /**
+     * Removes the top value and returns it, or null if it is not a number.
+     */
+    BigDecimal pop() {
+        int slot = --size;
+        BigDecimal value = kinds[slot] == NAN ? null : toBigDecimal(slot);
+        wide[slot] = null;
+        return value;
+    }
+
+    /**
+     * The top value, left on the stack, or null if it is not a number.
+     */
+    BigDecimal peek() {
+        int slot = size - 1;
+        return kinds[slot] == NAN ? null : toBigDecimal(slot);
+    }
+
+    /**
+     * Removes the top value and returns the double closest to it.
+     */
+    double popDouble() {
+        int slot = size - 1;
+        if (kinds[slot] == FAST && unscaled[slot] == 0) {
+            size--;
+            return 0;
+        }
+        BigDecimal value = pop();
+        return value == null ? Double.NaN : value.doubleValue();
+    }
+
+    /**
+     * Makes this stack hold the same values as another with the same context.
+     */
+    void copyFrom(DecimalStack other) {
+        clear();
+        if (kinds.length < other.size) {
+            kinds = new byte[other.kinds.length];
+            unscaled = new long[other.kinds.length];
+            scales = new int[other.kinds.length];
+            wide = new BigDecimal[other.kinds.length];
+        }
+        System.arraycopy(other.kinds, 0, kinds, 0, other.size);
+        System.arraycopy(other.unscaled, 0, unscaled, 0, other.size);
+        System.arraycopy(other.scales, 0, scales, 0, other.size);
+        System.arraycopy(other.wide, 0, wide, 0, other.size);
+        size = other.size;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        for (int i = 0; i < size; i++) {
+            out.writeByte(kinds[i]);
+            if (kinds[i] == FAST) {
+                out.writeLong(unscaled[i]);
+                out.writeInt(scales[i]);
+            } else if (kinds[i] == WIDE) {
+                out.writeUTF(wide[i].toString());
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents with count values written by {@link #writeTo(DataOutput)}.
+     */
+    void readFrom(DataInput in, int count) throws IOException {
+        clear();
+        for (int i = 0; i < count; i++) {
+            byte kind = in.readByte();
+            if (kind == FAST) {
+                pushFast(in.readLong(), in.readInt());
+            } else {
+                pushKind(kind);
+                if (kind == WIDE) {
+                    wide[size - 1] = new BigDecimal(in.readUTF());
+                }
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(wide, 0, size, null);
+        size = 0;
+    }
+}
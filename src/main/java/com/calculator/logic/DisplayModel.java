@@ -0,0 +1,31 @@
+package com.calculator.logic;
+
+/**
+ * The parts of the calculator display that CalculatorController writes: the main
+ * digits, the pending operator symbol, the exponent and a preview of the result
+ * while an expression is being typed. The controller keeps its own copy of the
+ * state and never reads it back, so implementations only need to show what they
+ * are given.
+ */
+public interface DisplayModel {
+
+    void setDisplay(CharSequence text);
+
+    void setOperator(CharSequence text);
+
+    void setExponent(CharSequence text);
+
+    /**
+     * The result the expression would give as it stands, or empty when nothing
+     * is pending.
+     */
+    void setPreview(CharSequence text);
+
+    CharSequence getDisplay();
+
+    CharSequence getOperator();
+
+    CharSequence getExponent();
+
+    CharSequence getPreview();
+}
@@ -0,0 +1,130 @@
+package com.calculator.logic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiles expression shapes into {@link CompiledExpression}s for workloads that
+ * evaluate the same shape with different operands many times. A shape is one
+ * operator character per gap between operands, so {@code "+*"} is
+ * {@code a + b * c} and takes three operands.
+ *
+ * Shapes up to {@link #MAX_INLINED_OPERATORS} operators become a tree of method
+ * handle combinators held as a constant by a hidden class, which the JIT compiles
+ * to straight-line arithmetic. Longer shapes would exceed the JIT's inlining
+ * limits, so they run as a postfix program instead. Compiled shapes are kept in
+ * a bounded least-recently-used cache; the compiler is safe to share between
+ * threads.
+ */
+public class ExpressionCompiler {
+
+    static final int MAX_INLINED_OPERATORS = 64;
+
+    private static final MethodType EVAL_TYPE = MethodType.methodType(double.class, double[].class);
+    private static final MethodHandle OPERAND = MethodHandles.arrayElementGetter(double[].class);
+    private static final MethodHandle[] OPERATIONS = new MethodHandle[Operators.count()];
+    private static final byte[] TEMPLATE;
+
+    static {
+        try {
+            MethodHandle apply = MethodHandles.lookup().findStatic(CalculatorLogic.class, "apply",
+                    MethodType.methodType(double.class, byte.class, double.class, double.class));
+            for (byte opcode = 0; opcode <= CalculatorLogic.UNKNOWN; opcode++) {
+                OPERATIONS[opcode] = MethodHandles.insertArguments(apply, 0, opcode);
+            }
+            // Added operators are bound to their instance, so the JIT sees a constant receiver
+            MethodHandle operate = MethodHandles.publicLookup().findVirtual(Operator.class, "apply",
+                    MethodType.methodType(double.class, double.class, double.class));
+            for (byte opcode = CalculatorLogic.UNKNOWN + 1; opcode < OPERATIONS.length; opcode++) {
+                OPERATIONS[opcode] = operate.bindTo(Operators.operator(opcode));
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        try (InputStream in = CompiledExpressionTemplate.class.getResourceAsStream("CompiledExpressionTemplate.class")) {
+            TEMPLATE = in.readAllBytes();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<String, CompiledExpression> cache;
+
+    public ExpressionCompiler(int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + cacheSize);
+        }
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the compiled form of a shape, compiling it on first use.
+     */
+    public CompiledExpression compile(String operators) {
+        CompiledExpression compiled;
+        synchronized (cache) {
+            compiled = cache.get(operators);
+        }
+        if (compiled == null) {
+            // Compile outside the lock; a concurrent duplicate is harmless
+            compiled = operators.length() <= MAX_INLINED_OPERATORS
+                    ? inline(PostfixProgram.compile(operators))
+                    : interpreted(PostfixProgram.compile(operators));
+            synchronized (cache) {
+                CompiledExpression existing = cache.putIfAbsent(operators, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Number of shapes currently cached.
+     */
+    public int cachedShapes() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static CompiledExpression inline(PostfixProgram program) {
+        MethodHandle[] stack = new MethodHandle[program.maxDepth];
+        int top = 0;
+        for (int instruction : program.code) {
+            if (instruction >= 0) {
+                stack[top++] = MethodHandles.insertArguments(OPERAND, 1, instruction);
+            } else {
+                MethodHandle right = stack[--top];
+                MethodHandle left = stack[top - 1];
+                // (double[], double[]) -> double, then merge both arguments into one
+                MethodHandle combined = MethodHandles.filterArguments(OPERATIONS[~instruction], 0, left, right);
+                stack[top - 1] = MethodHandles.permuteArguments(combined, EVAL_TYPE, 0, 0);
+            }
+        }
+        MethodHandle handle = stack[0].asType(EVAL_TYPE);
+        try {
+            MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClassWithClassData(TEMPLATE, handle, true);
+            return (CompiledExpression) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot define compiled expression", t);
+        }
+    }
+
+    private static CompiledExpression interpreted(PostfixProgram program) {
+        return operands -> program.evaluate(operands, new double[program.maxDepth]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.calculator.logic;
+
+import java.util.Arrays;
+
+/**
+ * Cache key for one expression as it was pushed into {@link CalculatorLogic}:
+ * the operand bit patterns and, per operator, the opcode it was pushed with and
+ * the opcode it was last replaced by. Both opcodes matter because pushing decides
+ * which reductions happen while replacing only changes the pending operator.
+ *
+ * Keys stored in a {@link ResultCache} own exact-size copies and carry the
+ * result. An engine probes with a key that views its own trace arrays, so a hit
+ * allocates nothing.
+ */
+final class ExpressionKey {
+
+    long[] operands;
+    byte[] operators;   // pushed opcode in the high nibble, final opcode in the low nibble
+    int operandCount;
+    int operatorCount;
+    int hash;
+    double result;
+
+    /**
+     * Points a probe key at an engine's trace and computes its hash.
+     */
+    void view(long[] operands, int operandCount, byte[] operators, int operatorCount) {
+        this.operands = operands;
+        this.operandCount = operandCount;
+        this.operators = operators;
+        this.operatorCount = operatorCount;
+        int h = operandCount;
+        for (int i = 0; i < operandCount; i++) {
+            h = 31 * h + Long.hashCode(operands[i]);
+        }
+        for (int i = 0; i < operatorCount; i++) {
+            h = 31 * h + operators[i];
+        }
+        this.hash = h;
+    }
+
+    /**
+     * Returns a stored key holding a copy of this key's contents and the result.
+     */
+    ExpressionKey copy(double result) {
+        ExpressionKey key = new ExpressionKey();
+        key.operands = Arrays.copyOf(operands, operandCount);
+        key.operators = Arrays.copyOf(operators, operatorCount);
+        key.operandCount = operandCount;
+        key.operatorCount = operatorCount;
+        key.hash = hash;
+        key.result = result;
+        return key;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ExpressionKey other)) {
+            return false;
+        }
+        return hash == other.hash
+                && operandCount == other.operandCount
+                && operatorCount == other.operatorCount
+                && Arrays.equals(operands, 0, operandCount, other.operands, 0, operandCount)
+                && Arrays.equals(operators, 0, operatorCount, other.operators, 0, operatorCount);
+    }
+}
@@ -0,0 +1,261 @@
+package com.calculator.logic;
+
+import java.util.Arrays;
+
+/**
+ * An infix expression with parentheses, such as {@code (1.5 + 2) * -(3 - 4E-1)},
+ * parsed into a syntax tree held in flat arrays rather than node objects. Nodes
+ * are stored in post-order, each after its operands and its right operand
+ * immediately before it, so one forward pass over the arrays evaluates the
+ * whole tree. The parser keeps its pending operators and operands on explicit
+ * stacks as well, so neither parsing nor evaluating recurses: groups nested
+ * tens of thousands deep cost no call stack, and both take time in proportion
+ * to the length of the text.
+ *
+ * Operators reduce as on the keypad, so an expression gives what typing it
+ * would: {@code a - b * c + d} is {@code a - (b * c + d)}, and a group is
+ * reduced on its own as {@link CalculatorLogic#closeGroup()} reduces it.
+ * Numbers are decimal with an optional sign and exponent; a sign straight
+ * before {@code (} applies to the group. Whitespace is skipped.
+ *
+ * Each {@link #parse} replaces the expression and reuses the arrays, so parsing
+ * and evaluating many expressions allocates only while the arrays grow. Not
+ * thread-safe.
+ */
+public final class ExpressionTree {
+
+    // Node kinds other than the opcode of a binary operator
+    private static final byte LEAF = -1;
+    private static final byte NEGATE = -2;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Per node: kind, index of the left operand (the right one is the node just
+    // before), and value; a leaf holds its number, an operator its last result
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] lefts = new int[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Parser stacks: opcodes, with NEGATE just below where a negated group
+    // starts, the nodes of operands not yet taken by an operator, and the
+    // operator stack heights where the open groups start, as in CalculatorLogic
+    private byte[] operators = new byte[INITIAL_CAPACITY];
+    private int operatorCount = 0;
+    private int[] operands = new int[INITIAL_CAPACITY];
+    private int operandCount = 0;
+    private int[] groupStarts = new int[INITIAL_CAPACITY];
+    private int groupDepth = 0;
+    private int groupFloor = 0;
+
+    /**
+     * Parses the whole of text.
+     */
+    public ExpressionTree parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses text from start to end, replacing the expression held. Throws
+     * IllegalArgumentException, giving the position, if the text is not a
+     * well-formed expression, including when parentheses do not match.
+     */
+    public ExpressionTree parse(CharSequence text, int start, int end) {
+        size = 0;
+        operatorCount = 0;
+        operandCount = 0;
+        groupDepth = 0;
+        groupFloor = 0;
+        int i = start;
+        boolean operandExpected = true;
+        while (true) {
+            while (i < end && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == end) {
+                if (operandExpected) {
+                    throw new IllegalArgumentException("Operand expected at " + i);
+                }
+                break;
+            }
+            char c = text.charAt(i);
+            if (operandExpected) {
+                if (c == '(') {
+                    openGroup();
+                    i++;
+                } else if ((c == '-' || c == '+') && i + 1 < end && text.charAt(i + 1) == '(') {
+                    if (c == '-') {
+                        pushOperator(NEGATE);
+                    }
+                    openGroup();
+                    i += 2;
+                } else {
+                    int numberEnd = numberEnd(text, i, end);
+                    if (numberEnd < 0) {
+                        throw new IllegalArgumentException("Not a number: '" + c + "' at " + i);
+                    }
+                    pushOperand(addNode(LEAF, -1, FastDoubleParser.parseDouble(text, i, numberEnd)));
+                    i = numberEnd;
+                    operandExpected = false;
+                }
+            } else if (c == ')') {
+                closeGroup(i);
+                i++;
+            } else {
+                byte opcode = Operators.opcode(c);
+                if (opcode == CalculatorLogic.UNKNOWN) {
+                    throw new IllegalArgumentException("Not an operator: '" + c + "' at " + i);
+                }
+                reduceFor(opcode);
+                pushOperator(opcode);
+                i++;
+                operandExpected = true;
+            }
+        }
+        if (groupDepth > 0) {
+            throw new IllegalArgumentException("Unclosed '(' at " + end);
+        }
+        while (operatorCount > 0) {
+            reduce();
+        }
+        return this;
+    }
+
+    /**
+     * The number of nodes, operands and operators alike.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Evaluates the expression last parsed, as {@link CalculatorLogic} would,
+     * in one pass over the nodes. Leaves each operator node's result in place
+     * of the last, so nothing is allocated.
+     */
+    public double evaluate() {
+        byte[] kinds = this.kinds;
+        int[] lefts = this.lefts;
+        double[] values = this.values;
+        for (int i = 0; i < size; i++) {
+            byte kind = kinds[i];
+            if (kind == NEGATE) {
+                values[i] = -values[i - 1];
+            } else if (kind != LEAF) {
+                values[i] = CalculatorLogic.apply(kind, values[lefts[i]], values[i - 1]);
+            }
+        }
+        return values[size - 1];
+    }
+
+    /**
+     * Where a decimal number starting at i ends, or -1 if none starts there:
+     * an optional sign, digits with at most one point, and an exponent if
+     * {@code E} is followed by digits.
+     */
+    private static int numberEnd(CharSequence text, int i, int end) {
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        boolean any = false;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) {
+            return -1;
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            int j = i + 1;
+            if (j < end && (text.charAt(j) == '-' || text.charAt(j) == '+')) {
+                j++;
+            }
+            while (j < end && text.charAt(j) >= '0' && text.charAt(j) <= '9') {
+                i = ++j;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Reduces what pushing the operator reduces on the keypad; see
+     * CalculatorLogic.reduces. Nothing below where the innermost group starts
+     * is reduced.
+     */
+    private void reduceFor(byte opcode) {
+        if (operatorCount > groupFloor && CalculatorLogic.reduces(operators[operatorCount - 1], opcode)) {
+            reduce();
+            while (operatorCount > groupFloor && CalculatorLogic.reducesAgain(operators[operatorCount - 1], opcode)) {
+                reduce();
+            }
+        }
+    }
+
+    private void openGroup() {
+        if (groupDepth == groupStarts.length) {
+            groupStarts = Arrays.copyOf(groupStarts, groupDepth * 2);
+        }
+        groupStarts[groupDepth++] = operatorCount;
+        groupFloor = operatorCount;
+    }
+
+    private void closeGroup(int position) {
+        if (groupDepth == 0) {
+            throw new IllegalArgumentException("Unmatched ')' at " + position);
+        }
+        while (operatorCount > groupFloor) {
+            reduce();
+        }
+        groupDepth--;
+        groupFloor = groupDepth == 0 ? 0 : groupStarts[groupDepth - 1];
+        // Below the floor, a NEGATE belongs to a group still open
+        if (operatorCount > groupFloor && operators[operatorCount - 1] == NEGATE) {
+            operatorCount--;
+            // The group's value is the last node added
+            operands[operandCount - 1] = addNode(NEGATE, -1, 0);
+        }
+    }
+
+    /**
+     * Makes the top operator a node over the top two operands. The right one is
+     * always the last node added, since every node added is pushed as an operand.
+     */
+    private void reduce() {
+        byte opcode = operators[--operatorCount];
+        operandCount--;
+        int left = operands[operandCount - 1];
+        operands[operandCount - 1] = addNode(opcode, left, 0);
+    }
+
+    private int addNode(byte kind, int left, double value) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            lefts = Arrays.copyOf(lefts, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        kinds[size] = kind;
+        lefts[size] = left;
+        values[size] = value;
+        return size++;
+    }
+
+    private void pushOperator(byte opcode) {
+        if (operatorCount == operators.length) {
+            operators = Arrays.copyOf(operators, operatorCount * 2);
+        }
+        operators[operatorCount++] = opcode;
+    }
+
+    private void pushOperand(int node) {
+        if (operandCount == operands.length) {
+            operands = Arrays.copyOf(operands, operandCount * 2);
+        }
+        operands[operandCount++] = node;
+    }
+}
@@ -0,0 +1,400 @@
+package com.calculator.logic;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers such as {@code -12.5E-3} into the same double as
+ * {@link Double#parseDouble}, bit for bit, straight from the text the caller
+ * already has: a CharSequence, a char array or ASCII bytes, or the display's
+ * digits and exponent as two separate pieces. Nothing is allocated unless the
+ * number needs the fallback.
+ *
+ * Up to 19 significant digits are read into a long. When those and the power
+ * of ten are both exact doubles, one multiplication or division rounds
+ * correctly (Clinger's fast path), which covers almost everything typed on the
+ * keypad. Otherwise the Eisel-Lemire algorithm multiplies by a 128-bit
+ * approximation of the power of ten and takes the result when the truncated
+ * bits cannot change the rounding. The few numbers it cannot decide, such as
+ * exact halfway cases, subnormals and more than 19 digits that do not round
+ * the same either way, and any text that is not a plain decimal number, go to
+ * Double.parseDouble, so those also parse, or throw NumberFormatException, as
+ * they always did.
+ */
+public final class FastDoubleParser {
+
+    // Powers of ten exactly representable as doubles, for the fast path
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_DIGITS = 19;
+    // Exponent digits beyond this value cannot change the result
+    private static final int MAX_EXPONENT = 100_000;
+
+    private FastDoubleParser() {
+    }
+
+    /**
+     * Parses the whole of text.
+     */
+    public static double parseDouble(CharSequence text) {
+        return parseDouble(text, 0, text.length());
+    }
+
+    /**
+     * Parses text from start to end, such as {@code 12.5E-3}.
+     */
+    public static double parseDouble(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i++) == '-';
+        }
+        long digits = 0;
+        int count = 0;
+        int power = 0;
+        boolean any = false;
+        boolean point = false;
+        boolean truncated = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (count < MAX_DIGITS) {
+                    digits = digits * 10 + (c - '0');
+                    // Leading zeros only shift the decimal point
+                    count += digits == 0 ? 0 : 1;
+                    power -= point ? 1 : 0;
+                } else {
+                    truncated |= c != '0';
+                    power += point ? 0 : 1;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        double value = Double.NaN;
+        if (any && i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            int exponent = parseExponent(text, i + 1, end);
+            if (exponent != Integer.MIN_VALUE) {
+                value = toDouble(negative, digits, power + exponent, truncated);
+            }
+        } else if (any && i == end) {
+            value = toDouble(negative, digits, power, truncated);
+        }
+        return Double.isNaN(value) ? Double.parseDouble(text.subSequence(start, end).toString()) : value;
+    }
+
+    /**
+     * Parses a number given as its significand, such as {@code -12.5}, and its
+     * exponent as written after the E, such as {@code +3} or {@code -12}, in two
+     * ranges, as the calculator display keeps them. An empty exponent range
+     * means no exponent.
+     */
+    public static double parseDouble(CharSequence significand, int start, int end,
+            CharSequence exponent, int exponentStart, int exponentEnd) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (significand.charAt(i) == '-' || significand.charAt(i) == '+')) {
+            negative = significand.charAt(i++) == '-';
+        }
+        long digits = 0;
+        int count = 0;
+        int power = 0;
+        boolean any = false;
+        boolean point = false;
+        boolean truncated = false;
+        for (; i < end; i++) {
+            char c = significand.charAt(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (count < MAX_DIGITS) {
+                    digits = digits * 10 + (c - '0');
+                    count += digits == 0 ? 0 : 1;
+                    power -= point ? 1 : 0;
+                } else {
+                    truncated |= c != '0';
+                    power += point ? 0 : 1;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        double value = Double.NaN;
+        if (any && i == end) {
+            int explicit = exponentStart == exponentEnd ? 0 : parseExponent(exponent, exponentStart, exponentEnd);
+            if (explicit != Integer.MIN_VALUE) {
+                value = toDouble(negative, digits, power + explicit, truncated);
+            }
+        }
+        if (Double.isNaN(value)) {
+            StringBuilder text = new StringBuilder(end - start + exponentEnd - exponentStart + 1).append(significand, start, end);
+            if (exponentStart < exponentEnd) {
+                text.append('E').append(exponent, exponentStart, exponentEnd);
+            }
+            return Double.parseDouble(text.toString());
+        }
+        return value;
+    }
+
+    /**
+     * Parses characters from start to end.
+     */
+    public static double parseDouble(char[] text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i++] == '-';
+        }
+        long digits = 0;
+        int count = 0;
+        int power = 0;
+        boolean any = false;
+        boolean point = false;
+        boolean truncated = false;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (count < MAX_DIGITS) {
+                    digits = digits * 10 + (c - '0');
+                    count += digits == 0 ? 0 : 1;
+                    power -= point ? 1 : 0;
+                } else {
+                    truncated |= c != '0';
+                    power += point ? 0 : 1;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        double value = Double.NaN;
+        if (any && i < end && (text[i] == 'e' || text[i] == 'E')) {
+            int exponent = parseExponent(text, i + 1, end);
+            if (exponent != Integer.MIN_VALUE) {
+                value = toDouble(negative, digits, power + exponent, truncated);
+            }
+        } else if (any && i == end) {
+            value = toDouble(negative, digits, power, truncated);
+        }
+        return Double.isNaN(value) ? Double.parseDouble(new String(text, start, end - start)) : value;
+    }
+
+    /**
+     * Parses ASCII bytes from start to end.
+     */
+    public static double parseDouble(byte[] text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i++] == '-';
+        }
+        long digits = 0;
+        int count = 0;
+        int power = 0;
+        boolean any = false;
+        boolean point = false;
+        boolean truncated = false;
+        for (; i < end; i++) {
+            byte b = text[i];
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (count < MAX_DIGITS) {
+                    digits = digits * 10 + (b - '0');
+                    count += digits == 0 ? 0 : 1;
+                    power -= point ? 1 : 0;
+                } else {
+                    truncated |= b != '0';
+                    power += point ? 0 : 1;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        double value = Double.NaN;
+        if (any && i < end && (text[i] == 'e' || text[i] == 'E')) {
+            int exponent = parseExponent(text, i + 1, end);
+            if (exponent != Integer.MIN_VALUE) {
+                value = toDouble(negative, digits, power + exponent, truncated);
+            }
+        } else if (any && i == end) {
+            value = toDouble(negative, digits, power, truncated);
+        }
+        return Double.isNaN(value)
+                ? Double.parseDouble(new String(text, start, end - start, StandardCharsets.ISO_8859_1)) : value;
+    }
+
+    /**
+     * Signed decimal exponent digits from start to end, capped in magnitude, or
+     * Integer.MIN_VALUE if they are not a well-formed exponent.
+     */
+    private static int parseExponent(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text.charAt(i) == '-';
+        i += i < end && (text.charAt(i) == '-' || text.charAt(i) == '+') ? 1 : 0;
+        if (i == end) {
+            return Integer.MIN_VALUE;
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return Integer.MIN_VALUE;
+            }
+            exponent = Math.min(exponent * 10 + (c - '0'), MAX_EXPONENT);
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static int parseExponent(char[] text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text[i] == '-';
+        i += i < end && (text[i] == '-' || text[i] == '+') ? 1 : 0;
+        if (i == end) {
+            return Integer.MIN_VALUE;
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                return Integer.MIN_VALUE;
+            }
+            exponent = Math.min(exponent * 10 + (c - '0'), MAX_EXPONENT);
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private static int parseExponent(byte[] text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text[i] == '-';
+        i += i < end && (text[i] == '-' || text[i] == '+') ? 1 : 0;
+        if (i == end) {
+            return Integer.MIN_VALUE;
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            byte c = text[i];
+            if (c < '0' || c > '9') {
+                return Integer.MIN_VALUE;
+            }
+            exponent = Math.min(exponent * 10 + (c - '0'), MAX_EXPONENT);
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    /**
+     * The double nearest to digits times ten to the power, where digits is
+     * read as unsigned and truncated says nonzero digits were dropped after
+     * it. Returns NaN when only the fallback can decide.
+     */
+    static double toDouble(boolean negative, long digits, int power, boolean truncated) {
+        if (digits == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (!truncated && digits > 0 && digits <= 1L << 53 && power >= -22 && power <= 22) {
+            double magnitude = power < 0 ? digits / POWERS_OF_TEN[-power] : digits * POWERS_OF_TEN[power];
+            return negative ? -magnitude : magnitude;
+        }
+        double value = eiselLemire(negative, digits, power);
+        // With digits dropped the exact value lies between digits and digits + 1
+        if (truncated && value != eiselLemire(negative, digits + 1, power)) {
+            return Double.NaN;
+        }
+        return value;
+    }
+
+    private static double eiselLemire(boolean negative, long digits, int power) {
+        if (power < PowersOfFive.MIN_POWER || power > PowersOfFive.MAX_POWER) {
+            return Double.NaN;
+        }
+        // Normalize so the top bit of the significand is set
+        int shift = Long.numberOfLeadingZeros(digits);
+        digits <<= shift;
+        // floor(log2(10) * power) by fixed-point multiplication, plus the bias
+        long binaryExponent = ((217706L * power) >> 16) + 64 + 1023 - shift;
+
+        int index = 2 * (power - PowersOfFive.MIN_POWER);
+        long high = PowersOfFive.TABLE[index];
+        long productHigh = Math.unsignedMultiplyHigh(digits, high);
+        long productLow = digits * high;
+        if ((productHigh & 0x1FF) == 0x1FF && Long.compareUnsigned(productLow + digits, digits) < 0) {
+            // The truncated power may matter; bring in its lower 64 bits
+            long low = PowersOfFive.TABLE[index + 1];
+            long lowHigh = Math.unsignedMultiplyHigh(digits, low);
+            long lowLow = digits * low;
+            long mergedLow = productLow + lowHigh;
+            long mergedHigh = productHigh + (Long.compareUnsigned(mergedLow, productLow) < 0 ? 1 : 0);
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow == -1 && Long.compareUnsigned(lowLow + digits, digits) < 0) {
+                return Double.NaN;
+            }
+            productHigh = mergedHigh;
+            productLow = mergedLow;
+        }
+
+        long top = productHigh >>> 63;
+        long significand = productHigh >>> (top + 9);
+        binaryExponent -= 1 ^ top;
+        // Exactly halfway between two doubles: round-half-even needs the exact value
+        if (productLow == 0 && (productHigh & 0x1FF) == 0 && (significand & 3) == 1) {
+            return Double.NaN;
+        }
+        significand += significand & 1;
+        significand >>>= 1;
+        if (significand >>> 53 > 0) {
+            significand >>>= 1;
+            binaryExponent++;
+        }
+        // Subnormal, infinite or out of range
+        if (binaryExponent < 1 || binaryExponent > 0x7FE) {
+            return Double.NaN;
+        }
+        long bits = binaryExponent << 52 | significand & 0x000F_FFFF_FFFF_FFFFL;
+        return Double.longBitsToDouble(negative ? bits | Long.MIN_VALUE : bits);
+    }
+
+    /**
+     * 128-bit approximations of the powers of ten the algorithm needs, built on
+     * first use so numbers on the fast path never pay for them. Each entry is
+     * the power of five shifted until its top bit is bit 127 and rounded down,
+     * stored as the high and then the low 64 bits; the power of two is left to
+     * the exponent.
+     */
+    private static final class PowersOfFive {
+
+        static final int MIN_POWER = -348;
+        static final int MAX_POWER = 347;
+        static final long[] TABLE = new long[2 * (MAX_POWER - MIN_POWER + 1)];
+
+        static {
+            // Built once with BigInteger, as ShortestDigits does, instead of shipping a literal table
+            BigInteger five = BigInteger.valueOf(5);
+            BigInteger power = BigInteger.ONE;
+            for (int exponent = 0; exponent <= MAX_POWER; exponent++) {
+                store(exponent, power);
+                power = power.multiply(five);
+            }
+            BigInteger divisor = five;
+            for (int exponent = -1; exponent >= MIN_POWER; exponent--) {
+                store(exponent, BigInteger.ONE.shiftLeft(divisor.bitLength() + 128).divide(divisor));
+                divisor = divisor.multiply(five);
+            }
+        }
+
+        private static void store(int exponent, BigInteger value) {
+            int excess = value.bitLength() - 128;
+            value = excess > 0 ? value.shiftRight(excess) : value.shiftLeft(-excess);
+            int index = 2 * (exponent - MIN_POWER);
+            TABLE[index] = value.shiftRight(64).longValue();
+            TABLE[index + 1] = value.longValue();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.calculator.logic;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * The functions of {@link FunctionMode#FAST}. Each gives the same special
+ * values as StrictMath and stays within {@value #MAX_ULPS} ulp of it, which
+ * FunctionAccuracyTest checks over the whole input range.
+ *
+ * exp is Tang's table method: x = (64m + j) ln2/64 + r with |r| at most
+ * ln2/128, so exp(x) = 2^m 2^(j/64) exp(r), from a table of 2^(j/64) in two
+ * parts and a degree 6 polynomial. log splits x into 2^e m with m near 1, then
+ * m into a table point c = j/128 and f = m - c, which is exact, so that
+ * log(x) = e ln2 + log(c) + log1p(f/c), with 1/c in two parts rather than a
+ * division and a degree 8 polynomial. Both tables are computed once from
+ * BigDecimal. sin, cos and tan reduce by pi/2 with fdlibm's three-part
+ * constants, without its checks for how much cancelled, which is accurate up to
+ * 2^19 pi/2, and use fdlibm's polynomials on what is left; beyond that they
+ * are StrictMath, whose reduction handles any argument.
+ *
+ * Measured against StrictMath, sin, cos, exp and log are within 1 ulp and
+ * log10, which multiplies log by 1/ln10, within 2. tan divides the sin and cos
+ * polynomials, and takes the bound.
+ */
+final class FastMath {
+
+    /**
+     * Most ulp from StrictMath of any result.
+     */
+    static final int MAX_ULPS = 3;
+
+    // ln2 in two parts, the first with 21 trailing zero bits so that multiples
+    // of it by an exponent are exact; from fdlibm
+    private static final double LN2_HI = Double.longBitsToDouble(0x3FE62E42FEE00000L);
+    private static final double LN2_LO = Double.longBitsToDouble(0x3DEA39EF35793C76L);
+
+    // exp: thresholds beyond which the result is infinite or zero, and the table
+    private static final double EXP_OVERFLOW = 709.782712893383973096;
+    private static final double EXP_UNDERFLOW = -745.13321910194110842;
+    private static final double INV_LN2_64 = 64 / 0.6931471805599453;
+    private static final double LN2_64_HI = LN2_HI / 64;
+    private static final double LN2_64_LO = LN2_LO / 64;
+    private static final double[] EXP_HI = new double[64];
+    private static final double[] EXP_LO = new double[64];
+
+    // log: table points j/128 for j from 91 to 181, which cover [sqrt(2)/2, sqrt(2)]
+    private static final long SQRT2_MANTISSA = 0x6A09E667F3BCDL;
+    private static final double[] INV_C_HI = new double[182];
+    private static final double[] INV_C_LO = new double[182];
+    // log(j/128), the first part a multiple of 2^-32 so that adding e * LN2_HI is exact
+    private static final double[] LOG_C_HI = new double[182];
+    private static final double[] LOG_C_LO = new double[182];
+    private static final double INV_LN10 = 0.4342944819032518;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Trigonometric reduction: 2/pi, and pi/2 in three 33-bit parts and a tail, from fdlibm
+    private static final double TWO_OVER_PI = 0.636619772367581382433;
+    private static final double PIO2_1 = Double.longBitsToDouble(0x3FF921FB54400000L);
+    private static final double PIO2_2 = Double.longBitsToDouble(0x3DD0B4611A600000L);
+    private static final double PIO2_2T = Double.longBitsToDouble(0x3BA3198A2E037073L);
+    private static final double PIO2_3 = Double.longBitsToDouble(0x3BA3198A2E000000L);
+    private static final double PIO2_3T = Double.longBitsToDouble(0x397B839A252049C1L);
+    private static final double PI_4 = 0.7853981633974483;
+    private static final double REDUCTION_LIMIT = 0x1p19 * PIO2_1;
+    // Polynomials for sin and cos on [-pi/4, pi/4], from fdlibm
+    private static final double S1 = -1.66666666666666324348e-01;
+    private static final double S2 = 8.33333333332248946124e-03;
+    private static final double S3 = -1.98412698298579493134e-04;
+    private static final double S4 = 2.75573137070700676789e-06;
+    private static final double S5 = -2.50507602534068634195e-08;
+    private static final double S6 = 1.58969099521155010221e-10;
+    private static final double C1 = 4.16666666666666019037e-02;
+    private static final double C2 = -1.38888888888741095749e-03;
+    private static final double C3 = 2.48015872894767294178e-05;
+    private static final double C4 = -2.75573143513906633035e-07;
+    private static final double C5 = 2.08757232129817482790e-09;
+    private static final double C6 = -1.13596475577881948265e-11;
+
+    private static final int SIN = 0;
+    private static final int COS = 1;
+    private static final int TAN = 2;
+
+    static {
+        // Far more digits than two doubles hold, so each part rounds correctly
+        MathContext context = new MathContext(40);
+        BigDecimal two = BigDecimal.valueOf(2);
+        for (int j = 0; j < 64; j++) {
+            // 2^(j/64) as six square roots of 2^j
+            BigDecimal power = two.pow(j);
+            for (int i = 0; i < 6; i++) {
+                power = power.sqrt(context);
+            }
+            EXP_HI[j] = power.doubleValue();
+            EXP_LO[j] = power.subtract(new BigDecimal(EXP_HI[j])).doubleValue();
+        }
+        for (int j = 91; j < INV_C_HI.length; j++) {
+            BigDecimal inverse = BigDecimal.valueOf(128).divide(BigDecimal.valueOf(j), context);
+            INV_C_HI[j] = inverse.doubleValue();
+            INV_C_LO[j] = inverse.subtract(new BigDecimal(INV_C_HI[j])).doubleValue();
+            BigDecimal log = ln(BigDecimal.valueOf(j).divide(BigDecimal.valueOf(128)), context);
+            LOG_C_HI[j] = Math.rint(log.doubleValue() * 0x1p32) * 0x1p-32;
+            LOG_C_LO[j] = log.subtract(new BigDecimal(LOG_C_HI[j])).doubleValue();
+        }
+    }
+
+    private FastMath() {
+    }
+
+    /**
+     * Natural logarithm of a decimal between 1/2 and 2 by the series for
+     * 2 atanh((x - 1) / (x + 1)), where (x - 1) / (x + 1) is at most 1/3.
+     */
+    private static BigDecimal ln(BigDecimal x, MathContext context) {
+        BigDecimal z = x.subtract(BigDecimal.ONE).divide(x.add(BigDecimal.ONE), context);
+        BigDecimal zSquared = z.multiply(z, context);
+        BigDecimal power = z;
+        BigDecimal sum = BigDecimal.ZERO;
+        BigDecimal limit = BigDecimal.ONE.movePointLeft(context.getPrecision() + 2);
+        for (int n = 1; power.abs().compareTo(limit) > 0; n += 2) {
+            sum = sum.add(power.divide(BigDecimal.valueOf(n), context), context);
+            power = power.multiply(zSquared, context);
+        }
+        return sum.add(sum);
+    }
+
+    static double exp(double x) {
+        if (!(x <= EXP_OVERFLOW)) {
+            // NaN stays NaN
+            return x + Double.POSITIVE_INFINITY;
+        }
+        if (x < EXP_UNDERFLOW) {
+            return 0.0;
+        }
+        double kd = Math.rint(x * INV_LN2_64);
+        int k = (int) kd;
+        double r = (x - kd * LN2_64_HI) - kd * LN2_64_LO;
+        double p = r + r * r * (0.5 + r * (1.0 / 6 + r * (1.0 / 24 + r * (1.0 / 120 + r * (1.0 / 720)))));
+        int j = k & 63;
+        int m = k >> 6;
+        double s = EXP_HI[j] + (EXP_LO[j] + EXP_HI[j] * p);
+        if (m < -1022 || m > 1023) {
+            // Subnormal, or 2^m itself is not a double; scalb rounds once
+            return Math.scalb(s, m);
+        }
+        return s * Double.longBitsToDouble((long) (m + 1023) << 52);
+    }
+
+    static double log(double x) {
+        long bits = Double.doubleToRawLongBits(x);
+        int e = 0;
+        if (bits < 0x0010_0000_0000_0000L || bits >= 0x7FF0_0000_0000_0000L) {
+            // Negative, zero, subnormal, infinite or NaN
+            if (x == 0) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            if (!(x > 0) || x == Double.POSITIVE_INFINITY) {
+                return x < 0 ? Double.NaN : x;
+            }
+            bits = Double.doubleToRawLongBits(x * 0x1p54);
+            e = -54;
+        }
+        e += (int) (bits >>> 52) - 1023;
+        long mantissa = bits & 0x000F_FFFF_FFFF_FFFFL;
+        double m;
+        if (mantissa >= SQRT2_MANTISSA) {
+            m = Double.longBitsToDouble(mantissa | 0x3FE0_0000_0000_0000L);
+            e++;
+        } else {
+            m = Double.longBitsToDouble(mantissa | 0x3FF0_0000_0000_0000L);
+        }
+        int j = (int) (m * 128 + 0.5);
+        double f = m - j * 0x1p-7;
+        double r = f * INV_C_HI[j] + f * INV_C_LO[j];
+        double q = r * r * (-0.5 + r * (1.0 / 3 + r * (-0.25 + r * (0.2 + r * (-1.0 / 6 + r * (1.0 / 7 + r * -0.125))))));
+        double hi = e * LN2_HI + LOG_C_HI[j];
+        double lo = e * LN2_LO + LOG_C_LO[j];
+        return hi + (r + (q + lo));
+    }
+
+    static double log10(double x) {
+        double y = log(x) * INV_LN10;
+        // Powers of ten give exactly their exponent, as with StrictMath
+        double n = Math.rint(y);
+        if (n >= 0 && n < POWERS_OF_TEN.length && x == POWERS_OF_TEN[(int) n]) {
+            return n;
+        }
+        return y;
+    }
+
+    static double sin(double x) {
+        return trig(x, SIN);
+    }
+
+    static double cos(double x) {
+        return trig(x, COS);
+    }
+
+    static double tan(double x) {
+        return trig(x, TAN);
+    }
+
+    private static double trig(double x, int function) {
+        double a = Math.abs(x);
+        if (a < 0x1p-27) {
+            // Rounds to x, or 1 for cos, keeping the sign of zero
+            return function == COS ? 1.0 : x;
+        }
+        if (!(a <= REDUCTION_LIMIT)) {
+            // NaN, infinite, or too large for the three-part reduction
+            return function == SIN ? StrictMath.sin(x) : function == COS ? StrictMath.cos(x) : StrictMath.tan(x);
+        }
+        // x = n pi/2 + y0 + y1, with |y0 + y1| at most about pi/4
+        int n;
+        double y0;
+        double y1;
+        if (a <= PI_4) {
+            n = 0;
+            y0 = x;
+            y1 = 0;
+        } else {
+            double fn = Math.rint(x * TWO_OVER_PI);
+            n = (int) fn;
+            double r = x - fn * PIO2_1;
+            double t = r;
+            double w = fn * PIO2_2;
+            r = t - w;
+            w = fn * PIO2_2T - ((t - r) - w);
+            t = r;
+            w = fn * PIO2_3;
+            r = t - w;
+            w = fn * PIO2_3T - ((t - r) - w);
+            y0 = r - w;
+            y1 = (r - y0) - w;
+        }
+        return switch (function) {
+            case SIN ->
+                switch (n & 3) {
+                    case 0 ->
+                        sinKernel(y0, y1);
+                    case 1 ->
+                        cosKernel(y0, y1);
+                    case 2 ->
+                        -sinKernel(y0, y1);
+                    default ->
+                        -cosKernel(y0, y1);
+                };
+            case COS ->
+                switch (n & 3) {
+                    case 0 ->
+                        cosKernel(y0, y1);
+                    case 1 ->
+                        -sinKernel(y0, y1);
+                    case 2 ->
+                        -cosKernel(y0, y1);
+                    default ->
+                        sinKernel(y0, y1);
+                };
+            default ->
+                (n & 1) == 0 ? sinKernel(y0, y1) / cosKernel(y0, y1) : -cosKernel(y0, y1) / sinKernel(y0, y1);
+        };
+    }
+
+    private static double sinKernel(double x, double y) {
+        double z = x * x;
+        double v = z * x;
+        double r = S2 + z * (S3 + z * (S4 + z * (S5 + z * S6)));
+        return x - ((z * (0.5 * y - v * r) - y) - v * S1);
+    }
+
+    private static double cosKernel(double x, double y) {
+        double z = x * x;
+        double r = z * (C1 + z * (C2 + z * (C3 + z * (C4 + z * (C5 + z * C6)))));
+        double hz = 0.5 * z;
+        double w = 1.0 - hz;
+        return w + (((1.0 - w) - hz) + (z * r - x * y));
+    }
+}
@@ -0,0 +1,23 @@
+package com.calculator.logic;
+
+/**
+ * How {@link ScientificFunction}s are computed. Each engine has its own mode,
+ * strict unless set otherwise, and it is part of the engine's saved state.
+ */
+public enum FunctionMode {
+
+    /**
+     * StrictMath: the fdlibm algorithms, within 1 ulp of the exact result and
+     * the same bits on every platform and JDK.
+     */
+    STRICT,
+    /**
+     * Table and polynomial approximations that avoid fdlibm's divisions and
+     * argument checks. Results are within {@value FastMath#MAX_ULPS} ulp of
+     * StrictMath over the whole input range, so within
+     * {@value FastMath#MAX_ULPS} + 1 of the exact result, and every special case
+     * (infinities, NaN, signed zeros, overflow and underflow) gives what
+     * StrictMath gives. Also the same bits everywhere.
+     */
+    FAST
+}
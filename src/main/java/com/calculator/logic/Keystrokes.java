@@ -0,0 +1,81 @@
+package com.calculator.logic;
+
+/**
+ * Text form of calculator keystrokes for headless replay, following the keyboard
+ * mapping in CalculatorUI: digits, {@code .}, {@code + - * /} and the symbols of
+ * added {@link Operator}s, {@code ( )} to open and close groups, {@code =},
+ * {@code E} for EXP and {@code N} or {@code P} for sign change, the key of each
+ * {@link ScientificFunction}, plus {@code D} for delete and {@code C} for all
+ * clear, which the keyboard reaches with Backspace and Escape.
+ */
+public final class Keystrokes {
+
+    // Button texts for digit and decimal point keys, indexed by character
+    private static final String[] KEY_TEXTS = new String[128];
+
+    static {
+        for (char key = '0'; key <= '9'; key++) {
+            KEY_TEXTS[key] = String.valueOf(key);
+        }
+        KEY_TEXTS['.'] = ".";
+    }
+
+    private Keystrokes() {
+    }
+
+    /**
+     * Sends one key to the controller. Returns false, doing nothing, for a
+     * character that is not a calculator key.
+     */
+    public static boolean press(CalculatorController controller, char key) {
+        switch (key) {
+            case '+' ->
+                controller.handleOperation("+");
+            case '-' ->
+                controller.handleOperation("-");
+            case '*' ->
+                controller.handleOperation("*");
+            case '/' ->
+                controller.handleOperation("/");
+            case '(' ->
+                controller.handleOpenGroup();
+            case ')' ->
+                controller.handleCloseGroup();
+            case '=' ->
+                controller.calculateResult();
+            case 'E', 'e' ->
+                controller.handleExp();
+            case 'N', 'n', 'P', 'p' ->
+                controller.handleSignChange();
+            case 'D', 'd' ->
+                controller.handleDelete();
+            case 'C', 'c' ->
+                controller.handleAllClear();
+            default -> {
+                if (key < KEY_TEXTS.length && KEY_TEXTS[key] != null) {
+                    controller.appendToDisplay(KEY_TEXTS[key]);
+                } else {
+                    ScientificFunction function = ScientificFunction.forKey(key);
+                    String operator = Operators.symbol(key);
+                    if (function != null) {
+                        controller.handleFunction(function);
+                    } else if (operator != null) {
+                        controller.handleOperation(operator);
+                    } else {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends each character in turn, skipping those that are not keys.
+     */
+    public static void replay(CalculatorController controller, CharSequence keys) {
+        for (int i = 0; i < keys.length(); i++) {
+            press(controller, keys.charAt(i));
+        }
+    }
+}
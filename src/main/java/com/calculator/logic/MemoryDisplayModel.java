@@ -0,0 +1,57 @@
+package com.calculator.logic;
+
+/**
+ * Headless display that copies each update into reusable buffers, for replay,
+ * batch and load testing without Swing.
+ */
+public class MemoryDisplayModel implements DisplayModel {
+
+    private final StringBuilder display = new StringBuilder(32);
+    private final StringBuilder operator = new StringBuilder(1);
+    private final StringBuilder exponent = new StringBuilder(8);
+    private final StringBuilder preview = new StringBuilder(32);
+
+    @Override
+    public void setDisplay(CharSequence text) {
+        display.setLength(0);
+        display.append(text);
+    }
+
+    @Override
+    public void setOperator(CharSequence text) {
+        operator.setLength(0);
+        operator.append(text);
+    }
+
+    @Override
+    public void setExponent(CharSequence text) {
+        exponent.setLength(0);
+        exponent.append(text);
+    }
+
+    @Override
+    public void setPreview(CharSequence text) {
+        preview.setLength(0);
+        preview.append(text);
+    }
+
+    @Override
+    public CharSequence getDisplay() {
+        return display;
+    }
+
+    @Override
+    public CharSequence getOperator() {
+        return operator;
+    }
+
+    @Override
+    public CharSequence getExponent() {
+        return exponent;
+    }
+
+    @Override
+    public CharSequence getPreview() {
+        return preview;
+    }
+}
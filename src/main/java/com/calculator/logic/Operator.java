@@ -0,0 +1,49 @@
+package com.calculator.logic;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * A binary operator the engine can be extended with. Implementations are found
+ * with {@link java.util.ServiceLoader}: list the class in
+ * {@code META-INF/services/com.calculator.logic.Operator} and give it a public
+ * no-argument constructor. {@link Operators} gives each one an opcode when it is
+ * first used.
+ *
+ * The symbol is the character typed, pasted or read by the CLI for the
+ * operator. It must not be a letter, digit, whitespace, {@code .}, {@code =} or
+ * a parenthesis, nor the symbol of another operator. Precedence is at least 1: the built-in
+ * {@code + -} have 1 and {@code * /} have 2.
+ */
+public interface Operator {
+
+    char symbol();
+
+    /**
+     * The symbol shown on the display while the operator is pending.
+     */
+    default String displaySymbol() {
+        return String.valueOf(symbol());
+    }
+
+    int precedence();
+
+    /**
+     * Whether {@code a op b op c} is {@code a op (b op c)}, as for a power.
+     */
+    default boolean isRightAssociative() {
+        return false;
+    }
+
+    double apply(double left, double right);
+
+    /**
+     * The operation in decimal mode, or null where it has no value. By default
+     * the double operation on the operands rounded to doubles, rounded to the
+     * context; implementations with an exact decimal form should override this.
+     */
+    default BigDecimal apply(BigDecimal left, BigDecimal right, MathContext context) {
+        double result = apply(left.doubleValue(), right.doubleValue());
+        return Double.isFinite(result) ? BigDecimal.valueOf(result).round(context) : null;
+    }
+}
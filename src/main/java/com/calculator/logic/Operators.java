@@ -0,0 +1,187 @@
+package com.calculator.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The operators the engine knows, by opcode: the built-in {@code + - * /} at
+ * their fixed opcodes, then every {@link Operator} found by ServiceLoader in
+ * order of symbol, so the same set of operators always gets the same opcodes.
+ * Built once, on first use, into arrays the engine indexes by opcode.
+ *
+ * The engine keeps an operator's opcode in four bits, so at most
+ * {@value #MAX_OPCODES} opcodes exist, the unknown operator's included. A typed
+ * operator and the one that replaced it share a byte, see {@link #pack}.
+ */
+public final class Operators {
+
+    static final int MAX_OPCODES = 16;
+
+    // Indexed by opcode; unused opcodes keep the unknown operator's entries. The
+    // engine compares bindings rather than precedences, so that the reduction
+    // rule is one comparison: twice the precedence for an operator on the stack,
+    // one more for a right-associative one being pushed, so that it does not
+    // reduce its own kind. The unknown operator reduces once, never again.
+    static final int[] BINDING = new int[MAX_OPCODES];
+    static final int[] REDUCES_FROM = new int[MAX_OPCODES];
+    static final int[] REDUCES_AGAIN_ABOVE = new int[MAX_OPCODES];
+    static final char[] SYMBOLS = new char[MAX_OPCODES];
+    private static final Operator[] OPERATORS = new Operator[MAX_OPCODES];
+    private static final String[] SYMBOL_TEXTS = new String[MAX_OPCODES];
+    private static final String[] DISPLAY_SYMBOLS = new String[MAX_OPCODES];
+    // Opcodes by ASCII symbol; other symbols are looked up among the added operators
+    private static final byte[] ASCII_OPCODES = new byte[128];
+    // One more than the largest opcode in use
+    private static int count = CalculatorLogic.UNKNOWN + 1;
+
+    static {
+        Arrays.fill(BINDING, -2);
+        Arrays.fill(REDUCES_FROM, -2);
+        Arrays.fill(REDUCES_AGAIN_ABOVE, Integer.MAX_VALUE);
+        Arrays.fill(SYMBOLS, '?');
+        Arrays.fill(ASCII_OPCODES, CalculatorLogic.UNKNOWN);
+        register(CalculatorLogic.ADD, new BuiltIn('+', "+", 1));
+        register(CalculatorLogic.SUBTRACT, new BuiltIn('-', "-", 1));
+        register(CalculatorLogic.MULTIPLY, new BuiltIn('*', "\u00D7", 2));
+        register(CalculatorLogic.DIVIDE, new BuiltIn('/', "\u00F7", 2));
+        SYMBOL_TEXTS[CalculatorLogic.UNKNOWN] = "?";
+        DISPLAY_SYMBOLS[CalculatorLogic.UNKNOWN] = "?";
+
+        List<Operator> added = new ArrayList<>();
+        for (Operator operator : ServiceLoader.load(Operator.class, Operators.class.getClassLoader())) {
+            added.add(operator);
+        }
+        added.sort((a, b) -> Character.compare(a.symbol(), b.symbol()));
+        byte opcode = CalculatorLogic.UNKNOWN + 1;
+        for (Operator operator : added) {
+            if (opcode == MAX_OPCODES) {
+                throw new ServiceConfigurationError("More than " + (MAX_OPCODES - CalculatorLogic.UNKNOWN - 1)
+                        + " operators added: " + added);
+            }
+            char symbol = operator.symbol();
+            if (Character.isLetterOrDigit(symbol) || Character.isWhitespace(symbol) || symbol == '.' || symbol == '='
+                    || symbol == '?' || symbol == '(' || symbol == ')' || opcode(symbol) != CalculatorLogic.UNKNOWN) {
+                throw new ServiceConfigurationError(operator.getClass().getName() + ": symbol '" + symbol + "' is reserved or taken");
+            }
+            if (operator.precedence() < 1) {
+                throw new ServiceConfigurationError(operator.getClass().getName() + ": precedence must be at least 1");
+            }
+            register(opcode++, operator);
+            count = opcode;
+        }
+    }
+
+    private Operators() {
+    }
+
+    private static void register(byte opcode, Operator operator) {
+        char symbol = operator.symbol();
+        OPERATORS[opcode] = operator;
+        BINDING[opcode] = 2 * operator.precedence();
+        REDUCES_FROM[opcode] = 2 * operator.precedence() + (operator.isRightAssociative() ? 1 : 0);
+        REDUCES_AGAIN_ABOVE[opcode] = 2 * operator.precedence();
+        SYMBOLS[opcode] = symbol;
+        SYMBOL_TEXTS[opcode] = String.valueOf(symbol).intern();
+        DISPLAY_SYMBOLS[opcode] = operator.displaySymbol();
+        if (symbol < ASCII_OPCODES.length) {
+            ASCII_OPCODES[symbol] = opcode;
+        }
+    }
+
+    /**
+     * One more than the largest opcode in use.
+     */
+    static int count() {
+        return count;
+    }
+
+    /**
+     * An operator as the engine's trace and pasted expressions keep it: the
+     * opcode typed first in the high nibble and the one that replaced it in the
+     * low nibble. Opcodes from 8 up make the byte negative, so it is only ever
+     * read back through {@link #typed} and {@link #replacement}.
+     */
+    static byte pack(byte typed, byte replacement) {
+        return (byte) (typed << 4 | replacement);
+    }
+
+    static byte typed(byte packed) {
+        return (byte) ((packed & 0xFF) >>> 4);
+    }
+
+    static byte replacement(byte packed) {
+        return (byte) (packed & 0xF);
+    }
+
+    static Operator operator(byte opcode) {
+        return OPERATORS[opcode];
+    }
+
+    /**
+     * Applies an added operator, by indexing rather than searching. The engine
+     * switches over the built-in opcodes itself and comes here for the rest.
+     */
+    static double apply(byte opcode, double left, double right) {
+        return OPERATORS[opcode].apply(left, right);
+    }
+
+    static byte opcode(char symbol) {
+        if (symbol < ASCII_OPCODES.length) {
+            return ASCII_OPCODES[symbol];
+        }
+        for (byte opcode = CalculatorLogic.UNKNOWN + 1; opcode < count; opcode++) {
+            if (SYMBOLS[opcode] == symbol) {
+                return opcode;
+            }
+        }
+        return CalculatorLogic.UNKNOWN;
+    }
+
+    /**
+     * The symbol as pushOperator takes it; the same String instance every time.
+     */
+    static String symbolText(byte opcode) {
+        return SYMBOL_TEXTS[opcode];
+    }
+
+    /**
+     * The operator typed with the key, as pushOperator and handleOperation take
+     * it, or null if the key is not an operator.
+     */
+    public static String symbol(char key) {
+        byte opcode = opcode(key);
+        return opcode == CalculatorLogic.UNKNOWN ? null : SYMBOL_TEXTS[opcode];
+    }
+
+    /**
+     * Whether the key is one of {@code + - * /}, which have keypad buttons of
+     * their own, rather than an added operator.
+     */
+    public static boolean isBuiltIn(char key) {
+        return opcode(key) < CalculatorLogic.UNKNOWN;
+    }
+
+    /**
+     * The display symbol of an operator given as pushOperator takes it; anything
+     * else is returned as it is.
+     */
+    public static String displaySymbol(String operator) {
+        byte opcode = CalculatorLogic.opcode(operator);
+        return opcode == CalculatorLogic.UNKNOWN ? operator : DISPLAY_SYMBOLS[opcode];
+    }
+
+    /**
+     * The built-in operators, as seen by code that lists operators. The engine
+     * applies them itself and never calls these.
+     */
+    private record BuiltIn(char symbol, String displaySymbol, int precedence) implements Operator {
+
+        @Override
+        public double apply(double left, double right) {
+            return CalculatorLogic.apply(Operators.opcode(symbol), left, right);
+        }
+    }
+}
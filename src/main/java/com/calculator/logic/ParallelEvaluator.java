@@ -0,0 +1,156 @@
+package com.calculator.logic;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates very long expressions on a fork/join pool. Expressions shorter than
+ * the threshold, or using operators other than {@code + - * /}, are handed to
+ * {@link CalculatorLogic} unchanged.
+ *
+ * The engine's stack rules make every expression a signed sum of terms, where a
+ * term is one operand or a run of operands joined by {@code *} and {@code /}.
+ * An operand joined by {@code +} or {@code -} carries that sign. A product joined
+ * by {@code -} flips the sign of itself and of everything after it, because the
+ * engine keeps the {@code -} pending until the end: {@code a - b * c + d} is
+ * {@code a - (b * c + d)}. Terms are evaluated exactly as the engine evaluates
+ * them. Chunks of terms are summed in parallel, and each chunk reports its sum
+ * and whether it flips the sign of what follows.
+ *
+ * Only the order of the additions changes, so the result is within
+ * {@code (n + log2 n) * 2^-53 * sum(|term|)} of the sequential result for n
+ * terms. The exception is an intermediate sum that overflows in one order but
+ * not the other. NaN and infinite terms give the same NaN or infinity either
+ * way.
+ */
+public class ParallelEvaluator {
+
+    public static final int DEFAULT_THRESHOLD = 1 << 16;
+    // Fewest operands worth a task of their own
+    private static final int MIN_CHUNK = 1 << 12;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelEvaluator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelEvaluator(ForkJoinPool pool, int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("Threshold must be at least 2: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Evaluates {@code operands[0] operators[0] operands[1] ...} with the engine's
+     * precedence rules. Takes one operator character per gap between operands.
+     */
+    public double evaluate(double[] operands, CharSequence operators) {
+        if (operands.length == 0 || operators.length() != operands.length - 1) {
+            throw new IllegalArgumentException(operands.length + " operands need " + Math.max(operands.length - 1, 0)
+                    + " operators, got " + operators.length());
+        }
+        byte[] opcodes = new byte[operators.length()];
+        boolean arithmetic = true;
+        for (int i = 0; i < opcodes.length; i++) {
+            opcodes[i] = CalculatorLogic.opcode(operators.charAt(i));
+            arithmetic &= opcodes[i] < CalculatorLogic.UNKNOWN;
+        }
+        if (operands.length < threshold || !arithmetic) {
+            return sequential(operands, opcodes);
+        }
+        int chunk = Math.max(MIN_CHUNK, operands.length / (pool.getParallelism() * 8));
+        Chunk task = new Chunk(operands, opcodes, 0, operands.length, chunk);
+        pool.invoke(task);
+        return task.sum;
+    }
+
+    private static double sequential(double[] operands, byte[] opcodes) {
+        CalculatorLogic logic = new CalculatorLogic();
+        logic.pushOperand(operands[0]);
+        for (int i = 0; i < opcodes.length; i++) {
+            logic.pushOpcode(opcodes[i]);
+            logic.pushOperand(operands[i + 1]);
+        }
+        return logic.getResult();
+    }
+
+    private static boolean isAdditive(byte opcode) {
+        return opcode == CalculatorLogic.ADD || opcode == CalculatorLogic.SUBTRACT;
+    }
+
+    /**
+     * Sums the terms starting in [from, to), as if no sign flip came before them,
+     * and records whether they flip the sign of the terms after them.
+     */
+    private static final class Chunk extends RecursiveAction {
+
+        private final double[] operands;
+        private final byte[] opcodes;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        double sum;
+        boolean flips;
+
+        Chunk(double[] operands, byte[] opcodes, int from, int to, int chunk) {
+            this.operands = operands;
+            this.opcodes = opcodes;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunk) {
+                // Split where a term starts, so no product is cut in two
+                int middle = (from + to) >>> 1;
+                while (middle < to && !isAdditive(opcodes[middle - 1])) {
+                    middle++;
+                }
+                if (middle < to) {
+                    Chunk left = new Chunk(operands, opcodes, from, middle, chunk);
+                    Chunk right = new Chunk(operands, opcodes, middle, to, chunk);
+                    invokeAll(left, right);
+                    sum = left.sum + (left.flips ? -right.sum : right.sum);
+                    flips = left.flips ^ right.flips;
+                    return;
+                }
+            }
+            sumTerms();
+        }
+
+        private void sumTerms() {
+            boolean negated = false;
+            boolean first = true;
+            double total = 0;
+            int i = from;
+            while (i < to) {
+                // The operator joining this term to the one before, if any
+                byte join = i == 0 ? CalculatorLogic.ADD : opcodes[i - 1];
+                double term = operands[i];
+                boolean product = i < opcodes.length && !isAdditive(opcodes[i]);
+                while (i < opcodes.length && !isAdditive(opcodes[i])) {
+                    term = CalculatorLogic.apply(opcodes[i], term, operands[i + 1]);
+                    i++;
+                }
+                i++;
+                boolean minus = join == CalculatorLogic.SUBTRACT;
+                if (product && minus) {
+                    negated = !negated;
+                    minus = false;
+                }
+                double signed = negated ^ minus ? -term : term;
+                // Starting from the first term rather than 0 keeps a lone -0.0 intact
+                total = first ? signed : total + signed;
+                first = false;
+            }
+            sum = total;
+            flips = negated;
+        }
+    }
+}
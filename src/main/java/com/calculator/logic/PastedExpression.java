@@ -0,0 +1,245 @@
+package com.calculator.logic;
+
+import java.util.Arrays;
+
+/**
+ * An expression from the clipboard, tokenized in one pass into operands and
+ * operators ready to push, for {@link CalculatorController#paste}. Parsing
+ * touches no controller state, so a long paste can be parsed off the event
+ * dispatch thread.
+ *
+ * The text is read as if typed: digits, {@code .}, {@code E} for the exponent,
+ * {@code + - * /} (also as displayed, {@code \u00D7 \u00F7}, and the minus sign
+ * {@code \u2212}), the symbols of added {@link Operator}s and an optional {@code =} at the end. A {@code +} or {@code -} straight after {@code E} is
+ * the exponent's sign. Whitespace is skipped. Each operand follows the same rules
+ * as typing it: at most 15 characters of mantissa, at most 3 exponent digits,
+ * one decimal point and no leading zeros; a second operator in a row replaces
+ * the first.
+ */
+public final class PastedExpression {
+
+    static final int MAX_DISPLAY = 15;
+    static final int MAX_EXPONENT = 5;  // "E+ddd"
+
+    // Operators are kept as the engine's trace keeps them, see Operators.pack
+
+    // Operator before the first operand, applied to what is on the display
+    final boolean hasLeadingOpcode;
+    final byte leadingOpcode;
+    // Operands as typed, for decimal mode, and as parsed, for binary mode
+    final double[] values;
+    final String texts;
+    final int[] textEnds;
+    final int operandCount;
+    // opcodes[i] follows operand i; one more than gaps when an operator ends the text
+    final byte[] opcodes;
+    final int opcodeCount;
+    // Display and exponent fields of the last operand, as typing would leave them
+    final String lastDisplay;
+    final String lastExponent;
+    final boolean lastInExponent;
+    final boolean equals;
+
+    private PastedExpression(Tokenizer tokenizer) {
+        this.hasLeadingOpcode = tokenizer.hasLeadingOpcode;
+        this.leadingOpcode = tokenizer.leadingOpcode;
+        this.values = tokenizer.values;
+        this.texts = tokenizer.texts.toString();
+        this.textEnds = tokenizer.textEnds;
+        this.operandCount = tokenizer.operandCount;
+        this.opcodes = tokenizer.opcodes;
+        this.opcodeCount = tokenizer.opcodeCount;
+        this.lastDisplay = tokenizer.lastDisplay;
+        this.lastExponent = tokenizer.lastExponent;
+        this.lastInExponent = tokenizer.lastInExponent;
+        this.equals = tokenizer.equals;
+    }
+
+    /**
+     * Tokenizes the text.
+     *
+     * @throws IllegalArgumentException at a character that is not part of an
+     * expression, or an {@code =} before the end
+     */
+    public static PastedExpression parse(CharSequence text) {
+        Tokenizer tokenizer = new Tokenizer(text.length());
+        tokenizer.run(text);
+        return new PastedExpression(tokenizer);
+    }
+
+    /**
+     * Number of operands in the expression.
+     */
+    public int operandCount() {
+        return operandCount;
+    }
+
+    /**
+     * Whether anything but whitespace was pasted.
+     */
+    public boolean isEmpty() {
+        return !hasLeadingOpcode && operandCount == 0 && !equals;
+    }
+
+    CharSequence text(int operand) {
+        return texts.subSequence(operand == 0 ? 0 : textEnds[operand - 1], textEnds[operand]);
+    }
+
+    private static final class Tokenizer {
+
+        private final StringBuilder display = new StringBuilder(MAX_DISPLAY);
+        private final StringBuilder exponent = new StringBuilder(MAX_EXPONENT);
+        private boolean inOperand = false;
+        private boolean inExponent = false;
+        // The last character was the E, so a sign belongs to the exponent
+        private boolean afterE = false;
+
+        boolean hasLeadingOpcode = false;
+        byte leadingOpcode;
+        double[] values;
+        final StringBuilder texts;
+        int[] textEnds;
+        int operandCount = 0;
+        byte[] opcodes;
+        int opcodeCount = 0;
+        String lastDisplay = "";
+        String lastExponent = "";
+        boolean lastInExponent = false;
+        boolean equals = false;
+
+        Tokenizer(int length) {
+            // An operand and an operator take at least two characters
+            int capacity = Math.max(16, Math.min(length / 2 + 1, 1 << 20));
+            values = new double[capacity];
+            textEnds = new int[capacity];
+            opcodes = new byte[capacity];
+            texts = new StringBuilder(Math.min(length, 1 << 24));
+        }
+
+        void run(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                boolean signable = afterE;
+                afterE = false;
+                if (equals && !Character.isWhitespace(c)) {
+                    throw new IllegalArgumentException("'=' must end the expression, found '" + c + "' at " + i);
+                }
+                if (c >= '0' && c <= '9') {
+                    digit(c);
+                } else if (c == '.') {
+                    point();
+                } else if (c == 'E' || c == 'e') {
+                    // As with the EXP key, only once an operand has been started
+                    if (inOperand && !inExponent) {
+                        exponent.append("E+0");
+                        inExponent = true;
+                        afterE = true;
+                    }
+                } else if (signable && (c == '+' || c == '-' || c == '\u2212')) {
+                    exponent.setCharAt(1, c == '+' ? '+' : '-');
+                } else if (c == '=') {
+                    equals = true;
+                } else if (!Character.isWhitespace(c)) {
+                    byte opcode = CalculatorLogic.opcode(normalize(c));
+                    if (opcode == CalculatorLogic.UNKNOWN) {
+                        throw new IllegalArgumentException("Not part of an expression: '" + c + "' at " + i);
+                    }
+                    operator(opcode);
+                }
+            }
+            if (inOperand) {
+                endOperand();
+            }
+        }
+
+        private static char normalize(char c) {
+            return switch (c) {
+                case '\u00D7' ->
+                    '*';
+                case '\u00F7' ->
+                    '/';
+                case '\u2212' ->
+                    '-';
+                default ->
+                    c;
+            };
+        }
+
+        private void digit(char c) {
+            if (!inOperand) {
+                startOperand();
+            }
+            if (display.length() >= MAX_DISPLAY) {
+                return;
+            }
+            if (inExponent) {
+                if ("E+0".contentEquals(exponent) || "E-0".contentEquals(exponent)) {
+                    if (c != '0') {
+                        exponent.setCharAt(2, c);
+                    }
+                } else if (exponent.length() < MAX_EXPONENT) {
+                    exponent.append(c);
+                }
+            } else if ("0".contentEquals(display)) {
+                display.setCharAt(0, c);
+            } else {
+                display.append(c);
+            }
+        }
+
+        private void point() {
+            if (!inOperand) {
+                startOperand();
+            }
+            if (!inExponent && display.length() < MAX_DISPLAY && display.indexOf(".") < 0) {
+                display.append('.');
+            }
+        }
+
+        private void startOperand() {
+            display.setLength(0);
+            display.append('0');
+            exponent.setLength(0);
+            inOperand = true;
+            inExponent = false;
+        }
+
+        private void operator(byte opcode) {
+            if (inOperand) {
+                endOperand();
+            } else if (operandCount == 0) {
+                leadingOpcode = hasLeadingOpcode
+                        ? Operators.pack(Operators.typed(leadingOpcode), opcode)
+                        : Operators.pack(opcode, opcode);
+                hasLeadingOpcode = true;
+                return;
+            } else {
+                // Replaces the operator just before, as typing one does
+                opcodes[opcodeCount - 1] = Operators.pack(Operators.typed(opcodes[opcodeCount - 1]), opcode);
+                return;
+            }
+            if (opcodeCount == opcodes.length) {
+                opcodes = Arrays.copyOf(opcodes, opcodeCount * 2);
+            }
+            opcodes[opcodeCount++] = Operators.pack(opcode, opcode);
+        }
+
+        private void endOperand() {
+            if (operandCount == values.length) {
+                values = Arrays.copyOf(values, operandCount * 2);
+                textEnds = Arrays.copyOf(textEnds, operandCount * 2);
+            }
+            int start = texts.length();
+            texts.append(display);
+            if (exponent.length() > 0) {
+                texts.append('E').append(exponent, 1, exponent.length());
+            }
+            values[operandCount] = FastDoubleParser.parseDouble(texts, start, texts.length());
+            textEnds[operandCount++] = texts.length();
+            lastDisplay = display.toString();
+            lastExponent = exponent.toString();
+            lastInExponent = inExponent;
+            inOperand = false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.calculator.logic;
+
+/**
+ * Postfix form of an expression shape, in the exact reduction order
+ * CalculatorLogic uses for it. The order depends only on the operators, so it
+ * is worked out once by replaying the engine's stack rules over the opcodes.
+ * Non-negative code entries load an operand slot; negative entries hold the
+ * complement of an opcode to apply to the top two values.
+ */
+final class PostfixProgram {
+
+    final int[] code;
+    final int operandCount;
+    final int maxDepth;
+
+    private PostfixProgram(int[] code, int operandCount, int maxDepth) {
+        this.code = code;
+        this.operandCount = operandCount;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Compiles a shape given as one operator character per gap between operands,
+     * so {@code "+*"} stands for {@code a + b * c}.
+     */
+    static PostfixProgram compile(CharSequence operators) {
+        int operatorCount = operators.length();
+        int[] code = new int[2 * operatorCount + 1];
+        int length = 0;
+        byte[] operatorStack = new byte[operatorCount];
+        int pending = 0;
+        int depth = 0;
+        int maxDepth = 0;
+
+        code[length++] = 0;
+        depth++;
+        maxDepth = 1;
+        for (int i = 0; i < operatorCount; i++) {
+            byte opcode = CalculatorLogic.opcode(operators.charAt(i));
+            // Mirrors CalculatorLogic.pushOperator
+            if (pending > 0 && CalculatorLogic.reduces(operatorStack[pending - 1], opcode)) {
+                do {
+                    code[length++] = ~operatorStack[--pending];
+                    depth--;
+                } while (pending > 0 && CalculatorLogic.reducesAgain(operatorStack[pending - 1], opcode));
+            }
+            operatorStack[pending++] = opcode;
+            code[length++] = i + 1;
+            maxDepth = Math.max(maxDepth, ++depth);
+        }
+        while (pending > 0) {
+            code[length++] = ~operatorStack[--pending];
+        }
+        return new PostfixProgram(code, operatorCount + 1, maxDepth);
+    }
+
+    /**
+     * Runs the program using the caller's scratch stack, which must hold at least
+     * {@link #maxDepth} values.
+     */
+    double evaluate(double[] operands, double[] stack) {
+        int top = 0;
+        for (int instruction : code) {
+            if (instruction >= 0) {
+                stack[top++] = operands[instruction];
+            } else {
+                top--;
+                stack[top - 1] = CalculatorLogic.apply((byte) ~instruction, stack[top - 1], stack[top]);
+            }
+        }
+        return stack[0];
+    }
+}
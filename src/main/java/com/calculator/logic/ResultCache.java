@@ -0,0 +1,146 @@
+package com.calculator.logic;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of expression results, shared by any number of
+ * {@link CalculatorLogic} instances on any threads. An expression is keyed on
+ * exactly what was pushed: operand bit patterns, so {@code -0.0} and {@code 0.0}
+ * stay distinct, and operator opcodes, so every operator the engine treats as
+ * unknown shares one key. Results are stored as computed, NaN included.
+ *
+ * Entries are spread over independently locked segments, each evicting its
+ * least recently used entry when full, so threads rarely contend and the cache
+ * never holds more than its maximum size.
+ */
+public class ResultCache {
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    public ResultCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        int count = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1,
+                Integer.highestOneBit(maximumSize));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // Spread the remainder so the capacities add up to maximumSize exactly
+            segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+        segmentMask = count - 1;
+    }
+
+    /**
+     * Returns the stored key equal to the probe, counting a hit or a miss.
+     */
+    ExpressionKey get(ExpressionKey probe) {
+        Segment segment = segmentFor(probe.hash);
+        synchronized (segment) {
+            // Counted under the lock already held rather than with separate atomics
+            ExpressionKey stored = segment.get(probe);
+            if (stored != null) {
+                segment.hits++;
+            } else {
+                segment.misses++;
+            }
+            return stored;
+        }
+    }
+
+    void put(ExpressionKey key) {
+        Segment segment = segmentFor(key.hash);
+        synchronized (segment) {
+            segment.put(key, key);
+        }
+    }
+
+    private Segment segmentFor(int hash) {
+        // Mix the high bits in, LinkedHashMap only uses the low ones for its buckets
+        return segments[(hash ^ hash >>> 16) * 0x9E3779B9 >>> 16 & segmentMask];
+    }
+
+    public long hitCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.hits;
+            }
+        }
+        return count;
+    }
+
+    public long missCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.misses;
+            }
+        }
+        return count;
+    }
+
+    public long evictionCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.evictions;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Fraction of lookups that were hits, or 0 before the first lookup.
+     */
+    public double hitRatio() {
+        long hitCount = hitCount();
+        long lookups = hitCount + missCount();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Number of results currently cached.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<ExpressionKey, ExpressionKey> {
+
+        private final int capacity;
+        long hits;
+        long misses;
+        long evictions;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ExpressionKey, ExpressionKey> eldest) {
+            if (size() > capacity) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.calculator.logic;
+
+import java.math.BigDecimal;
+
+/**
+ * Formats calculation results the way the calculator display shows them: up to
+ * 15 integer digits in fixed point, otherwise a mantissa plus a separate
+ * exponent clamped to ±999. Holds reusable buffers, so keep one instance per
+ * thread.
+ *
+ * The output matches what the display got from {@code String.format("%.15f")}
+ * and {@code String.format("%.13e")} followed by trimming trailing zeros, but
+ * works from the shortest round-trip digits straight into the buffers, so
+ * formatting allocates nothing once the buffers have grown. Decimal-mode results
+ * go through the same rules from their exact digits, as String.format would
+ * round a BigDecimal.
+ */
+public class ResultFormatter {
+
+    private static final double UNDERFLOW_THRESHOLD = 1e-13;
+    private static final int DISPLAY_DIGITS = 15;          // Integer digits and decimals shown in fixed point
+    private static final int SCIENTIFIC_DIGITS = 14;       // Significant digits shown in scientific notation
+    private static final int MAX_EXPONENT = 999;
+
+    private final StringBuilder digits = new StringBuilder(32);
+    private final StringBuilder exponent = new StringBuilder(8);
+    private final ShortestDigits shortest = new ShortestDigits();
+
+    /**
+     * Formats a result into {@link #digits()} and {@link #exponent()}. The exponent
+     * is empty when the result fits the display in fixed point.
+     */
+    public void format(double result) {
+        digits.setLength(0);
+        exponent.setLength(0);
+
+        if (Math.abs(result) < UNDERFLOW_THRESHOLD && result != 0) {
+            appendScientific(result);
+        } else if (!appendStandard(result, true)) {
+            appendScientific(result);
+        }
+    }
+
+    /**
+     * Formats a decimal-mode result by the same rules as {@link #format(double)}.
+     */
+    public void format(BigDecimal result) {
+        digits.setLength(0);
+        exponent.setLength(0);
+
+        if (result.signum() == 0) {
+            digits.append('0');
+            return;
+        }
+        boolean negative = result.signum() < 0;
+        shortest.set(result);
+        // 0.d1d2... times 10^-13 or less is below the underflow threshold
+        if (shortest.decimalExponent <= -13) {
+            appendScientificDigits(negative);
+        } else if (!appendFixedDigits(negative, true)) {
+            shortest.set(result);
+            appendScientificDigits(negative);
+        }
+    }
+
+    /**
+     * Formats a value in fixed point only, as the display shows an edited operand,
+     * into {@link #digits()}; {@link #exponent()} is left empty.
+     */
+    public void formatStandard(double value) {
+        digits.setLength(0);
+        exponent.setLength(0);
+        appendStandard(value, false);
+    }
+
+    /**
+     * Display digits of the last formatted result.
+     */
+    public CharSequence digits() {
+        return digits;
+    }
+
+    /**
+     * Exponent of the last formatted result, such as {@code E-20}, or empty.
+     */
+    public CharSequence exponent() {
+        return exponent;
+    }
+
+    /**
+     * Appends the fixed-point form of a value. When checkFit is set and the value
+     * needs scientific notation on the display, appends nothing and returns false.
+     */
+    private boolean appendStandard(double value, boolean checkFit) {
+        if (value == (int) value) {
+            digits.append((int) value);
+            return true;
+        }
+        if (Double.isNaN(value)) {
+            digits.append("NaN");
+            return true;
+        }
+        boolean negative = Double.compare(value, 0.0) < 0;
+        if (Double.isInfinite(value)) {
+            digits.append(negative ? "-Infinity" : "Infinity");
+            return true;
+        }
+
+        shortest.set(Math.abs(value));
+        return appendFixedDigits(negative, checkFit);
+    }
+
+    // Fixed-point layout of the digits loaded into shortest
+    private boolean appendFixedDigits(boolean negative, boolean checkFit) {
+        int decimalExponent = shortest.round(shortest.decimalExponent + DISPLAY_DIGITS);
+        char[] d = shortest.digits;
+        int n = shortest.length;
+
+        // Digits shown after the point before trimming, and how many of those are leading zeros
+        int leadingZeros = decimalExponent > 0 ? 0 : Math.min(-decimalExponent, DISPLAY_DIGITS);
+        int fractionDigits = decimalExponent > 0
+                ? Math.max(0, Math.min(n - decimalExponent, DISPLAY_DIGITS))
+                : Math.max(0, Math.min(n, DISPLAY_DIGITS + decimalExponent));
+        int fractionStart = Math.max(decimalExponent, 0);
+        while (fractionDigits > 0 && d[fractionStart + fractionDigits - 1] == '0') {
+            fractionDigits--;
+        }
+
+        if (checkFit) {
+            int integerLength = (negative ? 1 : 0) + Math.max(decimalExponent, 1);
+            boolean tinyFraction = !negative && decimalExponent <= 0 && fractionDigits > 0
+                    && leadingZeros >= DISPLAY_DIGITS - 2;
+            if (integerLength > DISPLAY_DIGITS || tinyFraction) {
+                return false;
+            }
+        }
+
+        if (negative) {
+            digits.append('-');
+        }
+        if (decimalExponent > 0) {
+            digits.append(d, 0, Math.min(n, decimalExponent));
+            for (int i = n; i < decimalExponent; i++) {
+                digits.append('0');
+            }
+        } else {
+            digits.append('0');
+        }
+        if (fractionDigits > 0) {
+            digits.append('.');
+            for (int i = 0; i < leadingZeros; i++) {
+                digits.append('0');
+            }
+            digits.append(d, fractionStart, fractionDigits);
+        }
+        return true;
+    }
+
+    private void appendScientific(double value) {
+        shortest.set(Math.abs(value));
+        appendScientificDigits(Double.compare(value, 0.0) < 0);
+    }
+
+    // Scientific layout of the digits loaded into shortest
+    private void appendScientificDigits(boolean negative) {
+        if (negative) {
+            digits.append('-');
+        }
+        int decimalExponent = shortest.round(SCIENTIFIC_DIGITS);
+        char[] d = shortest.digits;
+
+        int fractionDigits = Math.min(shortest.length, SCIENTIFIC_DIGITS) - 1;
+        while (fractionDigits > 0 && d[fractionDigits] == '0') {
+            fractionDigits--;
+        }
+        digits.append(d[0]);
+        if (fractionDigits > 0) {
+            digits.append('.').append(d, 1, fractionDigits);
+        }
+
+        int clamped = Math.min(Math.max(decimalExponent - 1, -MAX_EXPONENT), MAX_EXPONENT);
+        exponent.append('E').append(clamped < 0 ? '-' : '+').append(Math.abs(clamped));
+    }
+}
@@ -0,0 +1,15 @@
+package com.calculator.logic;
+
+/**
+ * Told about each result a CalculatorController shows, with the expression
+ * that gave it. The character sequences are only valid during the call.
+ */
+@FunctionalInterface
+public interface ResultListener {
+
+    /**
+     * The expression as entered, such as {@code 12.5*3-4}, the result's value
+     * and the result as displayed.
+     */
+    void resultShown(CharSequence expression, double value, CharSequence result);
+}
@@ -0,0 +1,93 @@
+package com.calculator.logic;
+
+/**
+ * The one-operand functions of the keypad. Each applies to the value on the
+ * display and replaces it with the result. Angles are in radians. Powers are
+ * the {@code ^} operator rather than a function.
+ */
+public enum ScientificFunction {
+
+    SIN('s', "sin"),
+    COS('o', "cos"),
+    TAN('t', "tan"),
+    EXP('x', "exp"),
+    LN('l', "ln"),
+    LOG10('g', "log"),
+    SQRT('r', "\u221A");
+
+    private static final ScientificFunction[] BY_KEY = new ScientificFunction[128];
+
+    static {
+        for (ScientificFunction function : values()) {
+            BY_KEY[function.key] = function;
+            BY_KEY[Character.toUpperCase(function.key)] = function;
+        }
+    }
+
+    private final char key;
+    private final String label;
+
+    ScientificFunction(char key, String label) {
+        this.key = key;
+        this.label = label;
+    }
+
+    /**
+     * The key that types the function in {@link Keystrokes}, lower case; upper
+     * case works too.
+     */
+    public char key() {
+        return key;
+    }
+
+    /**
+     * The text of the function's button.
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * The function typed with the key, or null if the key is not a function.
+     */
+    public static ScientificFunction forKey(char key) {
+        return key < BY_KEY.length ? BY_KEY[key] : null;
+    }
+
+    public double apply(double x, FunctionMode mode) {
+        if (mode == FunctionMode.FAST) {
+            return switch (this) {
+                case SIN ->
+                    FastMath.sin(x);
+                case COS ->
+                    FastMath.cos(x);
+                case TAN ->
+                    FastMath.tan(x);
+                case EXP ->
+                    FastMath.exp(x);
+                case LN ->
+                    FastMath.log(x);
+                case LOG10 ->
+                    FastMath.log10(x);
+                case SQRT ->
+                    Math.sqrt(x);
+            };
+        }
+        return switch (this) {
+            case SIN ->
+                StrictMath.sin(x);
+            case COS ->
+                StrictMath.cos(x);
+            case TAN ->
+                StrictMath.tan(x);
+            case EXP ->
+                StrictMath.exp(x);
+            case LN ->
+                StrictMath.log(x);
+            case LOG10 ->
+                StrictMath.log10(x);
+            case SQRT ->
+                StrictMath.sqrt(x);
+        };
+    }
+}
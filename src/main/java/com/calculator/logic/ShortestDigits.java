@@ -0,0 +1,237 @@
+package com.calculator.logic;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Shortest decimal digits that round-trip a double, computed with Giulietti's
+ * Schubfach algorithm. These are the digits Double.toString prints and that
+ * String.format rounds from, so formatting on top of them reproduces
+ * String.format without its allocations. Decimal results are loaded as their
+ * exact digits instead. Holds reusable state; not thread-safe.
+ */
+final class ShortestDigits {
+
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << 52;
+    private static final long C_TINY = 3;
+    private static final long T_MASK = (1L << 52) - 1;
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    // Rounding for display never looks further than 15 integer and 15 fraction digits
+    private static final int MAX_DECIMAL_DIGITS = 31;
+    private static final MathContext TRUNCATE = new MathContext(MAX_DECIMAL_DIGITS, RoundingMode.DOWN);
+
+    // g = floor(10^-k 2^-r) + 1 with r = flog2pow10(-k) - 125, split as g1 2^63 + g0
+    private static final long[] G1 = new long[K_MAX - K_MIN + 1];
+    private static final long[] G0 = new long[K_MAX - K_MIN + 1];
+
+    static {
+        // Built once with BigInteger instead of shipping a 1200-entry literal table
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int r = flog2pow10(-k) - 125;
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger pow = BigInteger.TEN.pow(-k);
+                g = r >= 0 ? pow.shiftRight(r) : pow.shiftLeft(-r);
+            } else {
+                g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(k));
+            }
+            g = g.add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.longValue() & MASK_63;
+        }
+    }
+
+    // Digits as characters, most significant first, without trailing zeros
+    final char[] digits = new char[MAX_DECIMAL_DIGITS + 1];
+    int length;
+    // Decimal point position: the value is 0.d1d2...dn times 10^decimalExponent
+    int decimalExponent;
+
+    /**
+     * Computes the digits of a finite, strictly positive value.
+     */
+    void set(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> 52) & 0x7FF;
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            // Integers below 2^53 are already their own shortest digits
+            if (0 < mq & mq < 53) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    store(f, 0);
+                    return;
+                }
+            }
+            toDecimal(-mq, c, 0);
+        } else if (t < C_TINY) {
+            toDecimal(Q_MIN, 10 * t, -1);
+        } else {
+            toDecimal(Q_MIN, t, 0);
+        }
+    }
+
+    /**
+     * Loads the digits of a non-zero decimal, ignoring its sign. Digits beyond
+     * what display rounding can reach are cut off; half-up rounding only looks
+     * at the first dropped digit, so cutting first does not change the result.
+     */
+    void set(BigDecimal value) {
+        BigDecimal magnitude = value.abs();
+        if (magnitude.precision() > MAX_DECIMAL_DIGITS) {
+            magnitude = magnitude.round(TRUNCATE);
+        }
+        BigInteger unscaled = magnitude.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            store(unscaled.longValue(), -magnitude.scale());
+            return;
+        }
+        String text = unscaled.toString();
+        int n = text.length();
+        while (text.charAt(n - 1) == '0') {
+            n--;
+        }
+        text.getChars(0, n, digits, 0);
+        length = n;
+        decimalExponent = text.length() - magnitude.scale();
+    }
+
+    private void toDecimal(int q, long c, int dk) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            // Regular spacing
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // Irregular spacing at a power of two
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G1[k - K_MIN];
+        long g0 = G0[k - K_MIN];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // sp10 = 10 floor(s / 10)
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                store(upin ? sp10 : tp10, k + dk);
+                return;
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            store(uin ? s : t, k + dk);
+            return;
+        }
+        // Both candidates round-trip: take the closer one, ties to even
+        long cmp = vb - (s + t << 1);
+        store(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    // Stores f 10^e as digits without trailing zeros
+    private void store(long f, int e) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int n = 0;
+        for (long rest = f; rest != 0; rest /= 10) {
+            n++;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + f % 10);
+            f /= 10;
+        }
+        length = n;
+        decimalExponent = n + e;
+    }
+
+    /**
+     * Rounds half-up to keep digits, as String.format does, and returns the
+     * resulting decimal exponent. Rounded-off digits become zeros but stay counted
+     * in length. A negative keep leaves the digits untouched.
+     */
+    int round(int keep) {
+        if (keep >= length || keep < 0) {
+            return decimalExponent;
+        }
+        if (keep == 0) {
+            // Only a single 0 or 1 can survive
+            boolean up = digits[0] >= '5';
+            digits[0] = up ? '1' : '0';
+            fillZeros(1);
+            return up ? ++decimalExponent : decimalExponent;
+        }
+        if (digits[keep] >= '5') {
+            int i = keep - 1;
+            while (i >= 0 && digits[i] == '9') {
+                i--;
+            }
+            if (i < 0) {
+                // Carry out of the leading digit
+                digits[0] = '1';
+                fillZeros(1);
+                return ++decimalExponent;
+            }
+            digits[i]++;
+            fillZeros(i + 1);
+        } else {
+            fillZeros(keep);
+        }
+        return decimalExponent;
+    }
+
+    private void fillZeros(int from) {
+        for (int i = from; i < length; i++) {
+            digits[i] = '0';
+        }
+    }
+
+    // floor(e log10(2))
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    // floor(e log10(2) + log10(3/4))
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    // floor(e log2(10))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+}
@@ -0,0 +1,58 @@
+package com.calculator.logic;
+
+import com.calculator.metrics.CalculatorMetrics;
+import java.math.MathContext;
+
+/**
+ * Runs the keystroke, evaluation and formatting paths on a private controller
+ * until the JIT has compiled them, so the user's first keys do not run
+ * interpreted. It runs on a low-priority daemon thread while the UI is being
+ * built, and touches nothing the UI uses; only the metrics are shared, and they
+ * are cleared when it finishes.
+ */
+public final class StartupWarmup {
+
+    // Integer, decimal, large, tiny and NaN results, so every formatting branch is taken,
+    // and an operand beyond the parser's fast path, so its power table is built here
+    private static final String[] EXPRESSIONS = {
+        "12*3-4/2=", "12.5*3.7-4/2.1=", "99999999*99999999*99999=", "1E-9/3E5=", "5/0=",
+        "2+3*4-57D8N=", "1.5E+3*2+-1=", "6.02E+23*2="
+    };
+    // About 150,000 controller calls, well past the C2 compile thresholds
+    static final int DEFAULT_PASSES = 2_000;
+
+    private StartupWarmup() {
+    }
+
+    /**
+     * Starts warming up in the background and returns the thread doing it.
+     */
+    public static Thread start() {
+        Thread thread = new Thread(() -> run(DEFAULT_PASSES), "calculator-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Types every expression the given number of times, in binary mode and
+     * for one in ten passes in decimal mode.
+     */
+    public static void run(int passes) {
+        MemoryDisplayModel displayModel = new MemoryDisplayModel();
+        CalculatorController controller = new CalculatorController(new CalculatorLogic(), displayModel);
+        CalculatorController decimal = new CalculatorController(new CalculatorLogic(), new MemoryDisplayModel());
+        decimal.setMathContext(MathContext.DECIMAL128);
+        for (int pass = 0; pass < passes; pass++) {
+            for (String expression : EXPRESSIONS) {
+                Keystrokes.replay(controller, expression);
+                if (pass % 10 == 0) {
+                    Keystrokes.replay(decimal, expression);
+                }
+            }
+            controller.handleAllClear();
+        }
+        CalculatorMetrics.reset();
+    }
+}
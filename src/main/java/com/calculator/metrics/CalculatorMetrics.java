@@ -0,0 +1,117 @@
+package com.calculator.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process latency histograms and counters for the calculator, off unless
+ * the JVM is started with {@code -Dcalculator.metrics=true}. The switch is a
+ * constant, so when it is off the JIT removes the timing and counting entirely.
+ * {@link #dump(PrintStream)} prints everything on demand.
+ *
+ * For a timeline of individual actions use the JFR events in this package
+ * instead; they work whether or not these metrics are enabled.
+ */
+public final class CalculatorMetrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("calculator.metrics");
+
+    /** From a key press in the UI until the display is updated. */
+    public static final LatencyHistogram KEY_PRESSES = new LatencyHistogram("UI key press");
+    /** Each call into CalculatorController. */
+    public static final LatencyHistogram ACTIONS = new LatencyHistogram("Controller action");
+    /** Each CalculatorLogic.getResult or getDecimalResult. */
+    public static final LatencyHistogram EVALUATIONS = new LatencyHistogram("Evaluation");
+    /** Formatting a result or preview for the display. */
+    public static final LatencyHistogram FORMATTING = new LatencyHistogram("Result formatting");
+
+    private static final LatencyHistogram[] HISTOGRAMS = {KEY_PRESSES, ACTIONS, EVALUATIONS, FORMATTING};
+    private static final LongAdder KEYSTROKES = new LongAdder();
+    private static final LongAdder REDUCTIONS = new LongAdder();
+    private static final LongAdder NAN_RESULTS = new LongAdder();
+    private static final LongAdder OVERFLOW_RESULTS = new LongAdder();
+
+    private CalculatorMetrics() {
+    }
+
+    /**
+     * A start time for {@link LatencyHistogram#recordSince(long)}, or 0 without
+     * reading the clock when metrics are off.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void keystroke() {
+        if (ENABLED) {
+            KEYSTROKES.increment();
+        }
+    }
+
+    /**
+     * One operator applied to two operands by the engine.
+     */
+    public static void reduction() {
+        if (ENABLED) {
+            REDUCTIONS.increment();
+        }
+    }
+
+    /**
+     * Counts a result that is not a number or overflowed to infinity.
+     */
+    public static void result(double value) {
+        if (ENABLED) {
+            if (Double.isNaN(value)) {
+                NAN_RESULTS.increment();
+            } else if (Double.isInfinite(value)) {
+                OVERFLOW_RESULTS.increment();
+            }
+        }
+    }
+
+    public static long keystrokes() {
+        return KEYSTROKES.sum();
+    }
+
+    public static long reductions() {
+        return REDUCTIONS.sum();
+    }
+
+    public static long nanResults() {
+        return NAN_RESULTS.sum();
+    }
+
+    public static long overflowResults() {
+        return OVERFLOW_RESULTS.sum();
+    }
+
+    /**
+     * Prints the counters and, for each histogram, the count, mean and
+     * percentiles in microseconds.
+     */
+    public static void dump(PrintStream out) {
+        if (!ENABLED) {
+            out.println("Metrics are off; start with -Dcalculator.metrics=true");
+            return;
+        }
+        out.printf("Keystrokes %d, reductions %d, NaN results %d, overflowed results %d%n",
+                keystrokes(), reductions(), nanResults(), overflowResults());
+        out.printf("%-18s %10s %10s %10s %10s %10s %10s%n", "us", "count", "mean", "p50", "p99", "p99.9", "max");
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            out.printf("%-18s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", histogram.name(), histogram.count(),
+                    histogram.mean() / 1e3, histogram.percentile(0.5) / 1e3, histogram.percentile(0.99) / 1e3,
+                    histogram.percentile(0.999) / 1e3, histogram.max() / 1e3);
+        }
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        KEYSTROKES.reset();
+        REDUCTIONS.reset();
+        NAN_RESULTS.reset();
+        OVERFLOW_RESULTS.reset();
+    }
+}
@@ -0,0 +1,16 @@
+package com.calculator.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.calculator.ControllerAction")
+@Label("Controller Action")
+@Category("Calculator")
+@Description("A call into CalculatorController, named by its keystroke")
+public final class ControllerActionEvent extends jdk.jfr.Event {
+
+    @Label("Key")
+    public char key;
+}
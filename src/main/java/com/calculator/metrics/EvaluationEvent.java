@@ -0,0 +1,22 @@
+package com.calculator.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.calculator.Evaluation")
+@Label("Evaluation")
+@Category("Calculator")
+@Description("CalculatorLogic evaluating the pending expression into a result")
+public final class EvaluationEvent extends jdk.jfr.Event {
+
+    @Label("Operands")
+    public int operands;
+
+    @Label("Operators")
+    public int operators;
+
+    @Label("Result")
+    public double result;
+}
@@ -0,0 +1,16 @@
+package com.calculator.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.calculator.KeyPress")
+@Label("Key Press")
+@Category("Calculator")
+@Description("A key press in the calculator window, until the display is updated")
+public final class KeyPressEvent extends jdk.jfr.Event {
+
+    @Label("Key Code")
+    public int keyCode;
+}
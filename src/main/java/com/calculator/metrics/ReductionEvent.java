@@ -0,0 +1,22 @@
+package com.calculator.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One per operator applied, so off by default; enable it in a JFR settings
+ * file to trace single evaluations.
+ */
+@Name("com.calculator.Reduction")
+@Label("Reduction")
+@Category("Calculator")
+@Description("CalculatorLogic applying one operator to the top two operands")
+@Enabled(false)
+public final class ReductionEvent extends jdk.jfr.Event {
+
+    @Label("Operator")
+    public char operator;
+}
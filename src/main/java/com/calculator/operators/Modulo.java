@@ -0,0 +1,32 @@
+package com.calculator.operators;
+
+import com.calculator.logic.Operator;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * {@code a % b}: the remainder of a divided by b, with the sign of a, as Java's
+ * {@code %}. Binds like {@code *} and {@code /}; a zero divisor gives NaN.
+ */
+public final class Modulo implements Operator {
+
+    @Override
+    public char symbol() {
+        return '%';
+    }
+
+    @Override
+    public int precedence() {
+        return 2;
+    }
+
+    @Override
+    public double apply(double left, double right) {
+        return left % right;
+    }
+
+    @Override
+    public BigDecimal apply(BigDecimal left, BigDecimal right, MathContext context) {
+        return right.signum() == 0 ? null : left.remainder(right, context);
+    }
+}
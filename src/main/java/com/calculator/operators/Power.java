@@ -0,0 +1,52 @@
+package com.calculator.operators;
+
+import com.calculator.logic.Operator;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * {@code a ^ b}: a raised to the power b, as Math.pow. Binds tighter than the
+ * built-in operators and from the right, so {@code 2 ^ 3 ^ 2} is 512.
+ */
+public final class Power implements Operator {
+
+    // Largest exponent BigDecimal.pow takes
+    private static final int MAX_EXPONENT = 999_999_999;
+
+    @Override
+    public char symbol() {
+        return '^';
+    }
+
+    @Override
+    public int precedence() {
+        return 3;
+    }
+
+    @Override
+    public boolean isRightAssociative() {
+        return true;
+    }
+
+    @Override
+    public double apply(double left, double right) {
+        return Math.pow(left, right);
+    }
+
+    /**
+     * Whole exponents are exact up to the context's rounding; others go through
+     * doubles.
+     */
+    @Override
+    public BigDecimal apply(BigDecimal left, BigDecimal right, MathContext context) {
+        if (right.stripTrailingZeros().scale() <= 0 && right.abs().compareTo(BigDecimal.valueOf(MAX_EXPONENT)) <= 0) {
+            try {
+                return left.pow(right.intValueExact(), context);
+            } catch (ArithmeticException e) {
+                // Zero to a negative power, or a result out of BigDecimal's range
+                return null;
+            }
+        }
+        return Operator.super.apply(left, right, context);
+    }
+}
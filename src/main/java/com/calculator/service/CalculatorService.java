@@ -0,0 +1,178 @@
+package com.calculator.service;
+
+import com.calculator.logic.CalculatorController;
+import com.calculator.logic.CalculatorLogic;
+import com.calculator.logic.Keystrokes;
+import com.calculator.logic.MemoryDisplayModel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hosts many independent calculator sessions in one process. Each session has
+ * its own controller, engine and display; callers send keystrokes (see
+ * {@link Keystrokes}) and get back the display text.
+ *
+ * Sessions live in a concurrent map and each has its own lock, so requests for
+ * different sessions never contend. Sessions idle longer than the timeout are
+ * evicted by a background virtual thread, and the engines of closed or evicted
+ * sessions are pooled and handed to new sessions. {@link #submit} runs each
+ * request on its own virtual thread.
+ */
+public class CalculatorService implements AutoCloseable {
+
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Session> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong evictions = new AtomicLong();
+    private final long idleTimeoutNanos;
+    private final int maxPooled;
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread evictor;
+
+    public CalculatorService(long idleTimeout, TimeUnit unit, int maxPooled) {
+        if (idleTimeout <= 0) {
+            throw new IllegalArgumentException("Idle timeout must be positive: " + idleTimeout);
+        }
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.maxPooled = maxPooled;
+        this.evictor = Thread.ofVirtual().name("calculator-session-evictor").start(this::evictIdleSessions);
+    }
+
+    /**
+     * Opens a session with a cleared display and returns its id.
+     */
+    public long openSession() {
+        Session session = pool.poll();
+        if (session == null) {
+            session = new Session();
+        } else {
+            pooled.decrementAndGet();
+        }
+        long id = nextId.getAndIncrement();
+        session.lock.lock();
+        try {
+            session.id = id;
+            session.lastUsed = System.nanoTime();
+        } finally {
+            session.lock.unlock();
+        }
+        sessions.put(id, session);
+        return id;
+    }
+
+    /**
+     * Sends keystrokes to a session and returns its display, digits followed by
+     * the exponent if any.
+     *
+     * @throws IllegalArgumentException if the session is closed or was evicted
+     */
+    public String press(long sessionId, CharSequence keys) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("No such session: " + sessionId);
+        }
+        session.lock.lock();
+        try {
+            // The session object may have been evicted and reused since the lookup
+            if (session.id != sessionId) {
+                throw new IllegalArgumentException("No such session: " + sessionId);
+            }
+            session.lastUsed = System.nanoTime();
+            Keystrokes.replay(session.controller, keys);
+            return session.text();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@link #press} on a virtual thread.
+     */
+    public CompletableFuture<String> submit(long sessionId, CharSequence keys) {
+        return CompletableFuture.supplyAsync(() -> press(sessionId, keys), requests);
+    }
+
+    public void closeSession(long sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            recycle(session, sessionId);
+        }
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public long evictedSessions() {
+        return evictions.get();
+    }
+
+    @Override
+    public void close() {
+        evictor.interrupt();
+        requests.close();
+        sessions.clear();
+        pool.clear();
+    }
+
+    private void evictIdleSessions() {
+        long interval = Math.max(TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) / 2, 1);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(interval);
+                long now = System.nanoTime();
+                for (var entry : sessions.entrySet()) {
+                    Session session = entry.getValue();
+                    if (now - session.lastUsed > idleTimeoutNanos && sessions.remove(entry.getKey(), session)) {
+                        evictions.incrementAndGet();
+                        recycle(session, entry.getKey());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Service closed
+        }
+    }
+
+    private void recycle(Session session, long sessionId) {
+        session.lock.lock();
+        try {
+            if (session.id != sessionId) {
+                return;
+            }
+            session.id = 0;
+            session.controller.handleAllClear();
+        } finally {
+            session.lock.unlock();
+        }
+        if (pooled.incrementAndGet() <= maxPooled) {
+            pool.offer(session);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    private static final class Session {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final MemoryDisplayModel displayModel = new MemoryDisplayModel();
+        final CalculatorController controller = new CalculatorController(new CalculatorLogic(), displayModel);
+        long id;                    // Guarded by lock; 0 while pooled
+        volatile long lastUsed;
+
+        String text() {
+            CharSequence exponent = displayModel.getExponent();
+            return exponent.length() == 0
+                    ? displayModel.getDisplay().toString()
+                    : new StringBuilder(displayModel.getDisplay()).append(exponent).toString();
+        }
+    }
+}
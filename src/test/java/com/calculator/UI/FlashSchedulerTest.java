@@ -0,0 +1,103 @@
+package com.calculator.UI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import javax.swing.JButton;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs on the event dispatch thread, as the scheduler must, so that the timer
+ * cannot tick in the middle of a test.
+ */
+class FlashSchedulerTest {
+
+    private static final Color FLASH = Color.GREEN;
+    private static final Color ORIGINAL = Color.GRAY;
+
+    @Test
+    void burstOfFlashesSharesOneTimer() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            FlashScheduler scheduler = new FlashScheduler(FLASH, 100);
+            JButton[] buttons = buttons(scheduler, 20);
+            Timer timer = scheduler.timer;
+            for (int round = 0; round < 50; round++) {
+                for (JButton button : buttons) {
+                    scheduler.flash(button);
+                    assertSame(timer, scheduler.timer);
+                    assertTrue(timer.isRunning());
+                }
+            }
+            // One listener, so one tick however many flashes
+            assertEquals(1, timer.getActionListeners().length);
+            assertEquals(buttons.length, scheduler.litCount());
+            for (JButton button : buttons) {
+                assertEquals(FLASH, button.getBackground());
+            }
+            timer.stop();
+        });
+    }
+
+    @Test
+    void timerStopsWhenEveryFlashHasEnded() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            FlashScheduler scheduler = new FlashScheduler(FLASH, 100);
+            JButton[] buttons = buttons(scheduler, 3);
+            scheduler.flash(buttons[0]);
+            scheduler.flash(buttons[1]);
+            // Not yet due: the buttons stay lit and the timer keeps running
+            scheduler.tick(System.nanoTime());
+            assertEquals(2, scheduler.litCount());
+            assertTrue(scheduler.timer.isRunning());
+            scheduler.tick(System.nanoTime() + 200_000_000L);
+            assertEquals(0, scheduler.litCount());
+            assertFalse(scheduler.timer.isRunning());
+            for (JButton button : buttons) {
+                assertEquals(ORIGINAL, button.getBackground());
+            }
+            // The next flash starts the same timer again
+            Timer timer = scheduler.timer;
+            scheduler.flash(buttons[2]);
+            assertSame(timer, scheduler.timer);
+            assertTrue(timer.isRunning());
+            timer.stop();
+        });
+    }
+
+    @Test
+    void flashAgainKeepsOriginalColor() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            FlashScheduler scheduler = new FlashScheduler(FLASH, 100);
+            JButton button = buttons(scheduler, 1)[0];
+            scheduler.flash(button);
+            scheduler.flash(button);
+            assertEquals(1, scheduler.litCount());
+            scheduler.tick(System.nanoTime() + 200_000_000L);
+            assertEquals(ORIGINAL, button.getBackground());
+        });
+    }
+
+    @Test
+    void unregisteredButtonIsRejected() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            FlashScheduler scheduler = new FlashScheduler(FLASH, 100);
+            assertThrows(IllegalArgumentException.class, () -> scheduler.flash(new JButton("7")));
+        });
+    }
+
+    private static JButton[] buttons(FlashScheduler scheduler, int count) {
+        JButton[] buttons = new JButton[count];
+        for (int i = 0; i < count; i++) {
+            buttons[i] = new JButton(String.valueOf(i));
+            buttons[i].setBackground(ORIGINAL);
+            scheduler.register(buttons[i]);
+        }
+        return buttons;
+    }
+}
@@ -0,0 +1,126 @@
+package com.calculator.UI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.event.KeyEvent;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The keypad's key table against the switch over key codes that CalculatorUI
+ * had before it, kept below as {@link #baseline}: every key code, with and
+ * without Shift, must click the same button.
+ */
+class KeyCommandTableTest {
+
+    private String clicked;
+
+    @Test
+    void keypadMatchesBaselineSwitch() {
+        KeyCommandTable table = keypad();
+        for (int keyCode = -1; keyCode <= 0x400; keyCode++) {
+            for (boolean shift : new boolean[] {false, true}) {
+                clicked = null;
+                boolean bound = table.dispatch(keyCode, shift);
+                String expected = baseline(keyCode, shift);
+                String key = KeyEvent.getKeyText(keyCode) + (shift ? " with Shift" : "");
+                assertEquals(expected, clicked, key);
+                assertEquals(expected != null, bound, key);
+            }
+        }
+    }
+
+    @Test
+    void shiftedKeysHaveTheirOwnCommands() {
+        KeyCommandTable table = keypad();
+        assertTrue(table.dispatch(KeyEvent.VK_8, true));
+        assertEquals("multiply", clicked);
+        assertTrue(table.dispatch(KeyEvent.VK_8, false));
+        assertEquals("8", clicked);
+        assertTrue(table.dispatch(KeyEvent.VK_SLASH, true));
+        assertEquals("equals", clicked);
+        assertTrue(table.dispatch(KeyEvent.VK_SLASH, false));
+        assertEquals("divide", clicked);
+        // Shift without a command of its own runs the plain one
+        assertTrue(table.dispatch(KeyEvent.VK_NUMPAD8, true));
+        assertEquals("8", clicked);
+    }
+
+    @Test
+    void keyCodesOutOfRange() {
+        KeyCommandTable table = new KeyCommandTable();
+        assertThrows(IllegalArgumentException.class, () -> table.bind(() -> { }, -1));
+        assertThrows(IllegalArgumentException.class, () -> table.bindShifted(() -> { }, 0x210));
+        assertFalse(table.dispatch(Integer.MAX_VALUE, false));
+    }
+
+    private KeyCommandTable keypad() {
+        Runnable[] digits = new Runnable[10];
+        for (int digit = 0; digit < digits.length; digit++) {
+            digits[digit] = click(String.valueOf(digit));
+        }
+        Runnable[] operators = {click("plus"), click("minus"), click("multiply"), click("divide")};
+        KeyCommandTable table = new KeyCommandTable();
+        CalculatorUI.bindKeypad(table, digits, click("decimal"), operators, click("equals"), click("delete"),
+                click("signChange"), click("exp"), click("allClear"));
+        return table;
+    }
+
+    private Runnable click(String button) {
+        return () -> clicked = button;
+    }
+
+    /**
+     * The button CalculatorUI.keyPressed clicked for the key before the table.
+     */
+    private static String baseline(int keyCode, boolean shiftDown) {
+        return switch (keyCode) {
+            case KeyEvent.VK_0, KeyEvent.VK_NUMPAD0 ->
+                "0";
+            case KeyEvent.VK_1, KeyEvent.VK_NUMPAD1 ->
+                "1";
+            case KeyEvent.VK_2, KeyEvent.VK_NUMPAD2 ->
+                "2";
+            case KeyEvent.VK_3, KeyEvent.VK_NUMPAD3 ->
+                "3";
+            case KeyEvent.VK_4, KeyEvent.VK_NUMPAD4 ->
+                "4";
+            case KeyEvent.VK_5, KeyEvent.VK_NUMPAD5 ->
+                "5";
+            case KeyEvent.VK_6, KeyEvent.VK_NUMPAD6 ->
+                "6";
+            case KeyEvent.VK_7, KeyEvent.VK_NUMPAD7 ->
+                "7";
+            case KeyEvent.VK_8 ->
+                shiftDown ? "multiply" : "8";
+            case KeyEvent.VK_NUMPAD8 ->
+                "8";
+            case KeyEvent.VK_9, KeyEvent.VK_NUMPAD9 ->
+                "9";
+            case KeyEvent.VK_PLUS, KeyEvent.VK_ADD ->
+                "plus";
+            case KeyEvent.VK_MINUS, KeyEvent.VK_SUBTRACT ->
+                "minus";
+            case KeyEvent.VK_MULTIPLY ->
+                "multiply";
+            case KeyEvent.VK_DIVIDE, KeyEvent.VK_SLASH ->
+                shiftDown ? "equals" : "divide";
+            case KeyEvent.VK_ENTER, KeyEvent.VK_EQUALS ->
+                "equals";
+            case KeyEvent.VK_BACK_SPACE, KeyEvent.VK_DELETE ->
+                "delete";
+            case KeyEvent.VK_ESCAPE ->
+                "allClear";
+            case KeyEvent.VK_PERIOD ->
+                "decimal";
+            case KeyEvent.VK_P, KeyEvent.VK_N ->
+                "signChange";
+            case KeyEvent.VK_E ->
+                "exp";
+            default ->
+                null;
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.MathContext;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Keys typed into the controller as {@link Keystrokes} sends them, checked on
+ * the display, in binary and in decimal mode.
+ */
+class CalculatorControllerTest {
+
+    @Test
+    void notANumberCarriesOnInDecimalMode() {
+        for (String keys : new String[] {"1/0=", "1/0=+", "1/0==", "1/0=+2=", "1/0=*3", "1/0=-("}) {
+            assertEquals(display(keys, false), display(keys, true), keys);
+        }
+        assertEquals("NaN", display("1/0=+2=", true));
+        assertEquals("NaN", preview("1/0=+2", true));
+        // A new operand after the result starts afresh
+        assertEquals("5", display("1/0=5=", true));
+    }
+
+    @Test
+    void deleteLeavingBareSign() {
+        for (boolean decimal : new boolean[] {false, true}) {
+            assertEquals("-", display("+5ND", decimal));
+            assertEquals("", preview("+5ND", decimal));
+            assertEquals("-7", display("+5ND7", decimal));
+            assertEquals("-7", preview("+5ND7", decimal));
+            assertEquals("-7", display("+5ND7=", decimal));
+            assertEquals("-3", display("1+5.ND4=", decimal));
+        }
+    }
+
+    private static String display(String keys, boolean decimal) {
+        return type(keys, decimal).getDisplay().toString();
+    }
+
+    private static String preview(String keys, boolean decimal) {
+        return type(keys, decimal).getPreview().toString();
+    }
+
+    private static MemoryDisplayModel type(String keys, boolean decimal) {
+        MemoryDisplayModel model = new MemoryDisplayModel();
+        CalculatorLogic logic = decimal ? new CalculatorLogic(MathContext.DECIMAL128) : new CalculatorLogic();
+        Keystrokes.replay(new CalculatorController(logic, model), keys);
+        return model;
+    }
+}
@@ -0,0 +1,157 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.Stack;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The primitive-stack engine against the original {@link Stack}-based one,
+ * kept below as {@link BaselineLogic}: the same pushes must give the same
+ * results, bit for bit, including NaN on division by zero.
+ */
+class CalculatorLogicTest {
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/"};
+    private static final double[] OPERANDS = {0, 1, 2, 3, 7, 10, -4, 0.1, 0.2, 2.5, 1e-9, 123456.789, 1e300};
+
+    @Test
+    void divisionByZeroIsNaN() {
+        assertEquals(Double.NaN, matchBaseline(new double[] {5, 0}, "/"));
+        assertEquals(Double.NaN, matchBaseline(new double[] {0, 0}, "/"));
+        assertEquals(Double.NaN, matchBaseline(new double[] {1, 5, 0, 2}, "+", "/", "*"));
+    }
+
+    @Test
+    void reducesOnceBeforeEachOperator() {
+        // 10 - 2 * 3 + 4 is 10 - (6 + 4), as it always has been
+        assertEquals(0, matchBaseline(new double[] {10, 2, 3, 4}, "-", "*", "+"));
+    }
+
+    @Test
+    void matchesBaselineOnRandomKeystrokes() {
+        matchesBaseline(new CalculatorLogic(), 1);
+    }
+
+    @Test
+    void matchesBaselineWithResultCache() {
+        // A small cache, so that expressions are both looked up and evaluated
+        matchesBaseline(new CalculatorLogic(new ResultCache(64)), 2);
+    }
+
+    private static void matchesBaseline(CalculatorLogic logic, long seed) {
+        Random random = new Random(seed);
+        BaselineLogic baseline = new BaselineLogic();
+        for (int trial = 0; trial < 20_000; trial++) {
+            if (random.nextInt(4) == 0) {
+                logic.clear();
+                baseline.clear();
+            }
+            StringBuilder keys = new StringBuilder();
+            int operands = 1 + random.nextInt(random.nextBoolean() ? 4 : 40);
+            for (int i = 0; i < operands; i++) {
+                if (i > 0) {
+                    String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+                    logic.pushOperator(operator);
+                    baseline.pushOperator(operator);
+                    keys.append(operator);
+                    // An operator typed over the last one replaces it
+                    while (random.nextInt(5) == 0) {
+                        operator = OPERATORS[random.nextInt(OPERATORS.length)];
+                        logic.replaceLastOperator(operator);
+                        baseline.replaceLastOperator(operator);
+                        keys.append(operator);
+                    }
+                }
+                double operand = random.nextInt(3) == 0
+                        ? OPERANDS[random.nextInt(OPERANDS.length)]
+                        : random.nextInt(100) / (random.nextBoolean() ? 1.0 : 8.0);
+                logic.pushOperand(operand);
+                baseline.pushOperand(operand);
+                keys.append(operand);
+            }
+            assertEquals(baseline.getResult(), logic.getResult(), keys::toString);
+        }
+    }
+
+    private static double matchBaseline(double[] operands, String... operators) {
+        CalculatorLogic logic = new CalculatorLogic();
+        BaselineLogic baseline = new BaselineLogic();
+        for (int i = 0; i < operands.length; i++) {
+            if (i > 0) {
+                logic.pushOperator(operators[i - 1]);
+                baseline.pushOperator(operators[i - 1]);
+            }
+            logic.pushOperand(operands[i]);
+            baseline.pushOperand(operands[i]);
+        }
+        double result = logic.getResult();
+        assertEquals(baseline.getResult(), result);
+        return result;
+    }
+
+    /**
+     * CalculatorLogic as it was before the primitive stacks.
+     */
+    private static final class BaselineLogic {
+
+        private final Stack<Double> operandStack = new Stack<>();
+        private final Stack<String> operatorStack = new Stack<>();
+
+        void pushOperand(double operand) {
+            operandStack.push(operand);
+        }
+
+        void pushOperator(String operator) {
+            if (!operatorStack.isEmpty() && precedence(operatorStack.peek()) >= precedence(operator)) {
+                evaluateStacks();
+            }
+            operatorStack.push(operator);
+        }
+
+        void replaceLastOperator(String operation) {
+            if (!operatorStack.isEmpty()) {
+                operatorStack.pop();
+            }
+            operatorStack.push(operation);
+        }
+
+        double getResult() {
+            while (!operatorStack.isEmpty()) {
+                evaluateStacks();
+            }
+            return operandStack.isEmpty() ? 0 : operandStack.pop();
+        }
+
+        private void evaluateStacks() {
+            if (operandStack.size() < 2 || operatorStack.isEmpty()) {
+                return;
+            }
+            double operand2 = operandStack.pop();
+            double operand1 = operandStack.pop();
+            String operator = operatorStack.pop();
+            double result = switch (operator) {
+                case "+" -> operand1 + operand2;
+                case "-" -> operand1 - operand2;
+                case "*" -> operand1 * operand2;
+                case "/" -> (operand2 != 0) ? operand1 / operand2 : Double.NaN;
+                default -> 0;
+            };
+            operandStack.push(result);
+        }
+
+        private int precedence(String operator) {
+            return switch (operator) {
+                case "+", "-" -> 1;
+                case "*", "/" -> 2;
+                default -> -1;
+            };
+        }
+
+        void clear() {
+            operandStack.clear();
+            operatorStack.clear();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compiled shapes, both as the hidden {@link CompiledExpressionTemplate}
+ * classes and as interpreted {@link PostfixProgram}s, against CalculatorLogic
+ * given the same operands and operators.
+ */
+class ExpressionCompilerTest {
+
+    private static final String OPERATORS = "+-*/";
+    // With the added operators, ^ among them, an operator can reduce more than once
+    private static final String ALL_OPERATORS = "+-*/%^<>~";
+
+    private final ExpressionCompiler compiler = new ExpressionCompiler(1024);
+
+    @Test
+    void reducesOnceBeforeEachOperator() {
+        // a - b * c + d is a - (b * c + d)
+        assertMatchesEngine("-*+", 10, 2, 3, 4);
+        assertEquals(0, compiler.compile("-*+").eval(new double[] {10, 2, 3, 4}));
+    }
+
+    @Test
+    void divisionByZeroIsNaN() {
+        assertMatchesEngine("/", 5, 0);
+        assertMatchesEngine("+/*", 1, 5, 0, 2);
+        assertEquals(Double.NaN, compiler.compile("/").eval(new double[] {5, 0}));
+        assertEquals(Double.NaN, compiler.compile("+/*").eval(new double[] {1, 5, 0, 2}));
+    }
+
+    @Test
+    void shortShapesAreInlined() {
+        assertTrue(isTemplate(compiler.compile("+*")));
+        assertTrue(isTemplate(compiler.compile("+".repeat(ExpressionCompiler.MAX_INLINED_OPERATORS))));
+        assertFalse(isTemplate(compiler.compile("+".repeat(ExpressionCompiler.MAX_INLINED_OPERATORS + 1))));
+    }
+
+    @Test
+    void randomShapesMatchEngine() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 5_000; trial++) {
+            String operators = trial % 2 == 0 ? OPERATORS : ALL_OPERATORS;
+            // Mostly inlined, some past the limit and interpreted
+            int length = random.nextInt(8) == 0 ? ExpressionCompiler.MAX_INLINED_OPERATORS + random.nextInt(40) : 1 + random.nextInt(12);
+            StringBuilder shape = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                shape.append(operators.charAt(random.nextInt(operators.length())));
+            }
+            double[] operands = new double[length + 1];
+            for (int i = 0; i < operands.length; i++) {
+                operands[i] = random.nextInt(5) == 0 ? 0 : random.nextInt(200) / 8.0 - 5;
+            }
+            assertMatchesEngine(shape.toString(), operands);
+        }
+    }
+
+    // A hidden copy of the template is named after it
+    private static boolean isTemplate(CompiledExpression compiled) {
+        return compiled.getClass().getName().startsWith(CompiledExpressionTemplate.class.getName() + "/");
+    }
+
+    private void assertMatchesEngine(String shape, double... operands) {
+        CalculatorLogic logic = new CalculatorLogic();
+        logic.pushOperand(operands[0]);
+        for (int i = 0; i < shape.length(); i++) {
+            logic.pushOperator(String.valueOf(shape.charAt(i)));
+            logic.pushOperand(operands[i + 1]);
+        }
+        double expected = logic.getResult();
+        PostfixProgram program = PostfixProgram.compile(shape);
+        assertEquals(expected, compiler.compile(shape).eval(operands), shape);
+        assertEquals(expected, program.evaluate(operands, new double[program.maxDepth]), shape);
+    }
+}
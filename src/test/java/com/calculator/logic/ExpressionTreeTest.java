@@ -0,0 +1,123 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A parsed expression must evaluate to what typing it on the keypad shows, and
+ * groups must nest as deep as the text goes without using the call stack.
+ */
+class ExpressionTreeTest {
+
+    private static final String OPERATORS = "+-*/";
+    private static final int DEEP = 100_000;
+
+    private final ExpressionTree tree = new ExpressionTree();
+
+    @Test
+    void evaluatesAsTyped() {
+        assertEquals(14, tree.parse("2 * (3 + 4)").evaluate());
+        // Reduced as on the keypad, not by precedence
+        assertEquals(1 - (2 * 3 + 4), tree.parse("1 - 2 * 3 + 4").evaluate());
+        assertEquals(1.5 + 2, tree.parse("(1.5 + 2)").evaluate());
+        assertEquals(-4e-1, tree.parse("-4E-1").evaluate());
+        assertEquals(7, tree.parse("(((7)))").evaluate());
+        // A group is no node of its own
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    void signBeforeGroup() {
+        assertEquals(1, tree.parse("-(3 - 4)").evaluate());
+        assertEquals(-14, tree.parse("2 * -(3 + 4)").evaluate());
+        assertEquals(2, tree.parse("-(-(2))").evaluate());
+        assertEquals(-2, tree.parse("-(+(2))").evaluate());
+        assertEquals(3 - -(1 * 2), tree.parse("3 - -(1 * 2)").evaluate());
+        // The sign belongs to the group, not to the operators inside it
+        assertEquals(-(1 - 2 * 3), tree.parse("-(1 - 2 * 3)").evaluate());
+        assertEquals(-(2 * 3) + 1, tree.parse("(-(2 * 3)) + 1").evaluate());
+    }
+
+    @Test
+    void unmatchedParentheses() {
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("(1 + 2"));
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("((1) + 2"));
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("-(1"));
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("1 + 2)"));
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("(1))"));
+        assertThrows(IllegalArgumentException.class, () -> tree.parse(")"));
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("()"));
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("(1 +)"));
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("-"));
+        // The tree is whole again after an error
+        assertEquals(3, tree.parse("(1 + 2)").evaluate());
+    }
+
+    @Test
+    void deepNesting() {
+        assertEquals(1, tree.parse("(".repeat(DEEP) + "1" + ")".repeat(DEEP)).evaluate());
+        assertEquals(1, tree.parse("-(".repeat(DEEP) + "1" + ")".repeat(DEEP)).evaluate());
+        assertEquals(-1, tree.parse("-(".repeat(DEEP + 1) + "1" + ")".repeat(DEEP + 1)).evaluate());
+        assertEquals(DEEP + 1, tree.parse("1+(".repeat(DEEP) + "1" + ")".repeat(DEEP)).evaluate());
+        assertEquals(1, tree.parse("1-(".repeat(DEEP) + "1" + ")".repeat(DEEP)).evaluate());
+        assertThrows(IllegalArgumentException.class, () -> tree.parse("(".repeat(DEEP) + "1" + ")".repeat(DEEP - 1)));
+    }
+
+    @Test
+    void deepNestingOnTheKeypad() {
+        int depth = 10_000;
+        assertEquals(String.valueOf(depth + 1), typed("1+(".repeat(depth) + "1" + ")".repeat(depth) + "="));
+        assertEquals("1", typed("1-(".repeat(depth) + "1" + ")".repeat(depth) + "="));
+    }
+
+    @Test
+    void randomExpressionsEvaluateAsTyped() {
+        Random random = new Random(1);
+        ResultFormatter formatter = new ResultFormatter();
+        for (int trial = 0; trial < 5_000; trial++) {
+            StringBuilder text = new StringBuilder();
+            StringBuilder keys = new StringBuilder();
+            appendExpression(random, 1 + random.nextInt(5), text, keys);
+            formatter.format(tree.parse(text).evaluate());
+            String expected = formatter.digits() + "" + formatter.exponent();
+            assertEquals(expected, typed(keys + "="), () -> text + " typed as " + keys);
+        }
+    }
+
+    /**
+     * Appends the same expression as text and as the keys that type it, where
+     * a negative number is its digits then sign change.
+     */
+    private static void appendExpression(Random random, int depth, StringBuilder text, StringBuilder keys) {
+        int operands = 1 + random.nextInt(4);
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) {
+                char operator = OPERATORS.charAt(random.nextInt(OPERATORS.length()));
+                text.append(' ').append(operator).append(' ');
+                keys.append(operator);
+            }
+            if (depth > 0 && random.nextInt(3) == 0) {
+                text.append('(');
+                keys.append('(');
+                appendExpression(random, depth - 1, text, keys);
+                text.append(')');
+                keys.append(')');
+            } else {
+                // Short enough that sign change keeps every digit; never zero, which it leaves unsigned
+                String number = (1 + random.nextInt(999)) + (random.nextBoolean() ? "" : "." + random.nextInt(10));
+                boolean negative = random.nextInt(4) == 0;
+                text.append(negative ? "-" : "").append(number);
+                keys.append(number).append(negative ? "N" : "");
+            }
+        }
+    }
+
+    private static String typed(String keys) {
+        MemoryDisplayModel model = new MemoryDisplayModel();
+        Keystrokes.replay(new CalculatorController(new CalculatorLogic(), model), keys);
+        return model.getDisplay() + "" + model.getExponent();
+    }
+}
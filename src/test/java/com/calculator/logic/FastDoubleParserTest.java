@@ -0,0 +1,219 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Every entry point against {@link Double#parseDouble}, bit for bit, on random
+ * numbers aimed at each path: Clinger's fast path, Eisel-Lemire, and the
+ * fallback for halfway cases, subnormals, long significands and text that is
+ * not a plain decimal number. Each number is also parsed from the middle of a
+ * longer text, padded with digits so that reading past either end would show.
+ */
+class FastDoubleParserTest {
+
+    private static final int COUNT = 100_000;
+    private static final String PADDING = "77";
+
+    @Test
+    void clingerFastPath() {
+        Random random = new Random(1);
+        for (int i = 0; i < COUNT; i++) {
+            // Both the digits and the power of ten are exact doubles
+            long digits = random.nextLong(1_000_000_000_000_000L);
+            assertParses(format(random, Long.toString(digits), random.nextInt(-22, 23)));
+        }
+    }
+
+    @Test
+    void eiselLemire() {
+        Random random = new Random(2);
+        for (int i = 0; i < COUNT; i++) {
+            long digits = random.nextLong(1_000_000_000_000_000_000L);
+            assertParses(format(random, Long.toString(digits), random.nextInt(-340, 309)));
+        }
+    }
+
+    @Test
+    void shortestAndFullDigitsOfRandomDoubles() {
+        Random random = new Random(3);
+        for (int i = 0; i < COUNT; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            assertParses(Double.toString(value));
+            assertParses(String.format("%.17e", value));
+        }
+    }
+
+    @Test
+    void fallbackForHalfwayCases() {
+        Random random = new Random(4);
+        for (int i = 0; i < COUNT / 10; i++) {
+            double value = Math.abs(Double.longBitsToDouble(random.nextLong()));
+            if (!Double.isFinite(value) || value == Double.MAX_VALUE) {
+                continue;
+            }
+            BigDecimal low = new BigDecimal(value);
+            BigDecimal high = new BigDecimal(Math.nextUp(value));
+            // Exactly between two doubles, so it rounds to the one with an even significand
+            BigDecimal halfway = low.add(high).divide(BigDecimal.valueOf(2));
+            assertParses(halfway.toString());
+            assertParses(halfway.toPlainString());
+            assertParses(low.toString());
+        }
+        // Halfway above 2^53, with few enough digits for the fast paths to see
+        assertParses("9007199254740993");
+        assertParses("9007199254740995");
+        assertParses("9007199254740993.000000000000000000000000001");
+    }
+
+    @Test
+    void fallbackForSubnormals() {
+        Random random = new Random(5);
+        for (int i = 0; i < COUNT; i++) {
+            double value = Double.longBitsToDouble(random.nextLong() & 0x800F_FFFF_FFFF_FFFFL);
+            assertParses(Double.toString(value));
+            assertParses(String.format("%.20e", value));
+        }
+        assertParses("4.9E-324");
+        assertParses("2.4703282292062327E-324");
+        assertParses("2.4703282292062328E-324");
+        assertParses("2.2250738585072011E-308");
+    }
+
+    @Test
+    void fallbackForLongSignificands() {
+        Random random = new Random(6);
+        for (int i = 0; i < COUNT; i++) {
+            StringBuilder digits = new StringBuilder();
+            int length = 20 + random.nextInt(30);
+            for (int j = 0; j < length; j++) {
+                // Runs of zeros after 19 digits leave the value exact
+                digits.append(random.nextInt(3) == 0 ? '0' : (char) ('0' + random.nextInt(10)));
+            }
+            assertParses(format(random, digits.toString(), random.nextInt(-330, 310)));
+        }
+        assertParses("1234567890123456789000000000");
+        assertParses("0.000000000000000000000000000012345678901234567890");
+    }
+
+    @Test
+    void edgesOfTheRange() {
+        String[] texts = {
+            "0", "-0", "+0", "0.0", "-0.0E5", "000", "00012.500", ".5", "5.", "-.5E1", "0E999999999",
+            "1E308", "1.7976931348623157E308", "1.7976931348623158E308", "1.8E308", "1E309", "-1E400",
+            "1E-320", "1E-324", "1E-400", "1E2147483648", "1E-2147483649", "1E99999999999",
+            "123456789012345678", "1234567890123456789", "12345678901234567890", "18446744073709551615",
+            "18446744073709551616", "9223372036854775807", "9223372036854775808", "0.1", "0.2", "0.3"
+        };
+        for (String text : texts) {
+            assertParses(text);
+        }
+    }
+
+    @Test
+    void textThatIsNotAPlainNumber() {
+        String[] texts = {
+            "", "-", "+", ".", "-.", "E5", "1E", "1E+", "1E-", "1.2.3", "1..2", "--1", "+-1", "1-", "1E5.5", "1E+-5",
+            "abc", "1_000", "NaN", "-Infinity", "Infinity", "0x1p3", "1d", "1F", " 1", "1 ", "\t2.5\n"
+        };
+        for (String text : texts) {
+            assertParses(text);
+        }
+    }
+
+    @Test
+    void significandAndExponentRanges() {
+        assertEquals(-12500.0, FastDoubleParser.parseDouble("-12.5", 0, 5, "+3", 0, 2));
+        assertEquals(-0.0125, FastDoubleParser.parseDouble("-12.5", 0, 5, "-3", 0, 2));
+        assertEquals(12.5, FastDoubleParser.parseDouble("x12.5x", 1, 5, "", 0, 0));
+        assertThrows(NumberFormatException.class, () -> FastDoubleParser.parseDouble("12.5", 0, 4, "+", 0, 1));
+    }
+
+    @Test
+    void eiselLemireDecidesAlmostEverything() {
+        Random random = new Random(7);
+        int decided = 0;
+        for (int i = 0; i < COUNT; i++) {
+            long digits = random.nextLong();
+            // Within the normal range, where only a few near-halfway products are left undecided
+            int power = random.nextInt(-300, 280);
+            String text = Long.toUnsignedString(digits) + "E" + power;
+            double value = FastDoubleParser.toDouble(false, digits, power, false);
+            if (!Double.isNaN(value)) {
+                assertEquals(Double.parseDouble(text), value, text);
+                decided++;
+            }
+            // Digits dropped after these: any value between digits and digits + 1 must round the same
+            String inside = Long.toUnsignedString(digits) + "5E" + (power - 1);
+            double truncated = FastDoubleParser.toDouble(false, digits, power, true);
+            if (!Double.isNaN(truncated)) {
+                assertEquals(Double.parseDouble(inside), truncated, inside);
+            }
+        }
+        assertTrue(decided > COUNT * 99 / 100, "only " + decided + " decided without the fallback");
+    }
+
+    /**
+     * Writes digits with the decimal point somewhere among or around them and
+     * an exponent making up the rest of power, so the value is digits times ten
+     * to the power.
+     */
+    private static String format(Random random, String digits, int power) {
+        StringBuilder text = new StringBuilder();
+        if (random.nextBoolean()) {
+            text.append('-');
+        }
+        int point = random.nextInt(digits.length() + 1);
+        if (point == 0 && random.nextBoolean()) {
+            text.append('0');
+        }
+        text.append(digits, 0, point);
+        if (point < digits.length() || random.nextBoolean()) {
+            text.append('.');
+        }
+        text.append(digits, point, digits.length());
+        int exponent = power + digits.length() - point;
+        if (exponent != 0 || random.nextBoolean()) {
+            text.append(random.nextBoolean() ? 'E' : 'e').append(exponent);
+        }
+        return text.toString();
+    }
+
+    private static void assertParses(String text) {
+        Double expected;
+        try {
+            expected = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            expected = null;
+        }
+        String padded = PADDING + text + PADDING;
+        int start = PADDING.length();
+        int end = start + text.length();
+        assertSame(expected, text, () -> FastDoubleParser.parseDouble(text));
+        assertSame(expected, text, () -> FastDoubleParser.parseDouble(padded, start, end));
+        assertSame(expected, text, () -> FastDoubleParser.parseDouble(padded.toCharArray(), start, end));
+        assertSame(expected, text, () -> FastDoubleParser.parseDouble(padded.getBytes(StandardCharsets.ISO_8859_1), start, end));
+        int e = Math.max(text.indexOf('E'), text.indexOf('e'));
+        // The display's form: the significand and the exponent kept apart
+        if (e < 0) {
+            assertSame(expected, text, () -> FastDoubleParser.parseDouble(padded, start, end, padded, 0, 0));
+        } else if (e + 1 < text.length()) {
+            assertSame(expected, text, () -> FastDoubleParser.parseDouble(padded, start, start + e, padded, start + e + 1, end));
+        }
+    }
+
+    private static void assertSame(Double expected, String text, DoubleSupplier parse) {
+        if (expected == null) {
+            assertThrows(NumberFormatException.class, parse::getAsDouble, text);
+        } else {
+            assertEquals(expected, parse.getAsDouble(), text);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks both function modes against StrictMath. {@link FunctionMode#STRICT}
+ * must give StrictMath's bits. {@link FunctionMode#FAST} must stay within the
+ * bound FastMath documents for each function, at most
+ * {@link FastMath#MAX_ULPS} ulp. Each function gets random arguments drawn
+ * three ways: bit patterns spread evenly over every finite double it is
+ * defined for, so every exponent is covered alike; uniformly over the range
+ * where results are ordinary numbers, which is what a calculator sees; and
+ * close to 1 for the logarithms, where cancellation is worst. Arguments at the
+ * edges, such as subnormals, the overflow and underflow thresholds and the end
+ * of the fast reduction, are checked too. Special arguments (zeros,
+ * infinities, NaN, and powers of ten for log10) must give the same bits in
+ * both modes.
+ */
+class FunctionAccuracyTest {
+
+    private static final int SAMPLES = 200_000;
+    private static final long SEED = 42;
+
+    private static final double[] SPECIAL = {
+        0.0, -0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN, 1e300, -1e300
+    };
+    // Where exp overflows and vanishes
+    private static final double[] EXP_SPECIAL = {709.7827128933841, 710, -745.1332191019412, -746};
+    private static final double[] LOG_SPECIAL = {
+        1, -1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final double[] EDGES = {
+        Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL, -Double.MIN_NORMAL, Double.MAX_VALUE, -Double.MAX_VALUE,
+        2, 0.5, 0.1, 1e23, Math.E, 709.782712893384, 709.78, -745.1332191019411, -708.4, -720, -744,
+        Math.PI, Math.PI / 2, Math.PI / 4, -Math.PI, 0x1p-27, 0x1p-28, 0x1p19 * Math.PI / 2, Math.nextUp(0x1p19 * Math.PI / 2)
+    };
+
+    @ParameterizedTest
+    @EnumSource(ScientificFunction.class)
+    void strictIsStrictMath(ScientificFunction function) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (double x : EDGES) {
+            assertEquals(strictMath(function, x), function.apply(x, FunctionMode.STRICT), () -> function + "(" + x + ")");
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = argument(function, random);
+            assertEquals(strictMath(function, x), function.apply(x, FunctionMode.STRICT), () -> function + "(" + x + ")");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ScientificFunction.class)
+    void fastSpecialValuesAreStrict(ScientificFunction function) {
+        assertSame(function, SPECIAL);
+        if (function == ScientificFunction.EXP) {
+            assertSame(function, EXP_SPECIAL);
+        } else if (function == ScientificFunction.LN || function == ScientificFunction.LOG10) {
+            assertSame(function, LOG_SPECIAL);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ScientificFunction.class)
+    void fastIsWithinBound(ScientificFunction function) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Worst worst = new Worst();
+        for (double x : EDGES) {
+            worst.check(function, x);
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            worst.check(function, argument(function, random));
+            worst.check(function, ordinary(function, random));
+            if (isPositive(function)) {
+                worst.check(function, random.nextDouble(0.5, 2));
+            }
+        }
+        int bound = bound(function);
+        assertTrue(bound <= FastMath.MAX_ULPS);
+        assertTrue(worst.ulps <= bound, () -> function + " is " + worst.ulps + " ulp from StrictMath at " + worst.argument);
+    }
+
+    /**
+     * The bound FastMath documents for the function.
+     */
+    private static int bound(ScientificFunction function) {
+        return switch (function) {
+            case SIN, COS, EXP, LN ->
+                1;
+            case LOG10 ->
+                2;
+            case TAN ->
+                3;
+            case SQRT ->
+                0;
+        };
+    }
+
+    private static double strictMath(ScientificFunction function, double x) {
+        return switch (function) {
+            case SIN ->
+                StrictMath.sin(x);
+            case COS ->
+                StrictMath.cos(x);
+            case TAN ->
+                StrictMath.tan(x);
+            case EXP ->
+                StrictMath.exp(x);
+            case LN ->
+                StrictMath.log(x);
+            case LOG10 ->
+                StrictMath.log10(x);
+            case SQRT ->
+                StrictMath.sqrt(x);
+        };
+    }
+
+    private static boolean isPositive(ScientificFunction function) {
+        return function == ScientificFunction.LN || function == ScientificFunction.LOG10 || function == ScientificFunction.SQRT;
+    }
+
+    private static void assertSame(ScientificFunction function, double[] arguments) {
+        for (double x : arguments) {
+            assertEquals(function.apply(x, FunctionMode.STRICT), function.apply(x, FunctionMode.FAST), () -> function + "(" + x + ")");
+        }
+    }
+
+    /**
+     * Every finite double, or every positive one, with equal weight per bit pattern.
+     */
+    private static double argument(ScientificFunction function, SplittableRandom random) {
+        double x = Double.longBitsToDouble(random.nextLong(0, 0x7FF0_0000_0000_0000L));
+        return isPositive(function) || random.nextBoolean() ? x : -x;
+    }
+
+    /**
+     * Arguments whose results are neither overflowing nor vanishing.
+     */
+    private static double ordinary(ScientificFunction function, SplittableRandom random) {
+        return switch (function) {
+            case SIN, COS, TAN ->
+                random.nextBoolean() ? random.nextDouble(-10, 10) : random.nextDouble(-0x1p20, 0x1p20);
+            case EXP ->
+                random.nextDouble(-745.2, 709.8);
+            default ->
+                random.nextDouble(0, 1e6);
+        };
+    }
+
+    private static final class Worst {
+
+        long ulps;
+        double argument;
+
+        void check(ScientificFunction function, double x) {
+            double fast = function.apply(x, FunctionMode.FAST);
+            double strict = function.apply(x, FunctionMode.STRICT);
+            long difference = Math.abs(ordered(fast) - ordered(strict));
+            if (Double.isNaN(fast) != Double.isNaN(strict)) {
+                difference = Long.MAX_VALUE;
+            } else if (Double.isNaN(fast)) {
+                difference = 0;
+            }
+            if (difference > ulps) {
+                ulps = difference;
+                argument = x;
+            }
+        }
+
+        /**
+         * The bits as a count of doubles from zero, negative below it, so that
+         * neighbouring doubles differ by one across zero too.
+         */
+        private static long ordered(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            return bits < 0 ? Long.MIN_VALUE - bits : bits;
+        }
+    }
+}
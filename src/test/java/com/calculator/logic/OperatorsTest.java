@@ -0,0 +1,100 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Added operators, with the test operators in
+ * {@code com.calculator.operators.TestOperators} putting {@code ^} and
+ * {@code ~} at opcodes of 8 and up, where the packed operator byte is negative.
+ */
+class OperatorsTest {
+
+    private static final String[] EXPRESSIONS = {
+        "1~2~3", "3^2~4", "1~+2", "1+~2", "2~^3<4>1", "8-3~4*2", "2^3^2~1", "5>7~1<2"
+    };
+
+    @Test
+    void testOperatorsHaveHighOpcodes() {
+        assertEquals(8, Operators.opcode('^'));
+        assertEquals(9, Operators.opcode('~'));
+    }
+
+    @Test
+    void packedOperatorsReadBack() {
+        for (byte typed = 0; typed < Operators.MAX_OPCODES; typed++) {
+            for (byte replacement = 0; replacement < Operators.MAX_OPCODES; replacement++) {
+                byte packed = Operators.pack(typed, replacement);
+                assertEquals(typed, Operators.typed(packed));
+                assertEquals(replacement, Operators.replacement(packed));
+            }
+        }
+    }
+
+    @Test
+    void cachedEngineMatchesEagerEngine() {
+        CalculatorLogic cached = new CalculatorLogic(new ResultCache(16));
+        CalculatorLogic eager = new CalculatorLogic();
+        assertEquals(Math.sqrt(14), evaluate(cached, "1~2~3"));
+        for (String expression : EXPRESSIONS) {
+            double expected = evaluate(eager, expression);
+            // Recorded and evaluated, then found in the cache
+            assertEquals(expected, evaluate(cached, expression), expression);
+            assertEquals(expected, evaluate(cached, expression), expression);
+        }
+    }
+
+    @Test
+    void pasteMatchesTyping() {
+        for (String expression : EXPRESSIONS) {
+            assertPasteMatchesTyping("", expression + "=");
+            assertPasteMatchesTyping("", expression + "~");
+            // A leading operator applies to the result on the display
+            assertPasteMatchesTyping("4=", "~" + expression + "=");
+        }
+    }
+
+    @Test
+    void leadingOperatorIsNotEmpty() {
+        assertFalse(PastedExpression.parse("~").isEmpty());
+        assertFalse(PastedExpression.parse("~^").isEmpty());
+        assertTrue(PastedExpression.parse(" ").isEmpty());
+    }
+
+    /**
+     * Pushes an expression of one-digit operands, where an operator straight
+     * after another replaces it, as the keypad does.
+     */
+    private static double evaluate(CalculatorLogic logic, String expression) {
+        boolean afterOperator = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c >= '0' && c <= '9') {
+                logic.pushOperand(c - '0');
+                afterOperator = false;
+            } else if (afterOperator) {
+                logic.replaceLastOperator(String.valueOf(c));
+            } else {
+                logic.pushOperator(String.valueOf(c));
+                afterOperator = true;
+            }
+        }
+        return logic.getResult();
+    }
+
+    private static void assertPasteMatchesTyping(String before, String text) {
+        MemoryDisplayModel typed = new MemoryDisplayModel();
+        CalculatorController typing = new CalculatorController(new CalculatorLogic(new ResultCache(16)), typed);
+        Keystrokes.replay(typing, before + text);
+        MemoryDisplayModel pasted = new MemoryDisplayModel();
+        CalculatorController pasting = new CalculatorController(new CalculatorLogic(new ResultCache(16)), pasted);
+        Keystrokes.replay(pasting, before);
+        pasting.paste(PastedExpression.parse(text));
+        assertEquals(typed.getDisplay().toString(), pasted.getDisplay().toString(), text);
+        assertEquals(typed.getOperator().toString(), pasted.getOperator().toString(), text);
+        assertEquals(typed.getPreview().toString(), pasted.getPreview().toString(), text);
+    }
+}
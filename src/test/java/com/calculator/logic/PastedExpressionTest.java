@@ -0,0 +1,161 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.MathContext;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pasting an expression must leave the controller exactly as typing the same
+ * keys does: the same display and the same state, engine included, so that
+ * the next key does the same too.
+ */
+class PastedExpressionTest {
+
+    private static final String OPERATORS = "+-*/";
+
+    @Test
+    void pasteEqualsTyping() {
+        assertPasteMatchesTyping("", "12+3*4");
+        assertPasteMatchesTyping("", "12+3*4=");
+        assertPasteMatchesTyping("", "0.1+0.2=");
+        assertPasteMatchesTyping("", "1.5E3/2=");
+    }
+
+    @Test
+    void operatorReplacesTheOneBefore() {
+        assertPasteMatchesTyping("", "6+*2=");
+        assertPasteMatchesTyping("", "6+*-2");
+        assertPasteMatchesTyping("", "6*2+");
+        assertPasteMatchesTyping("", "6*2-/");
+        // Before the first operand, operators apply to the result on the display
+        assertPasteMatchesTyping("9=", "*-3=");
+    }
+
+    @Test
+    void firstOperandReplacesTheOneBeingTyped() {
+        assertPasteMatchesTyping("3*4", "596=", "3*596=");
+        assertPasteMatchesTyping("3*4", "+1", "3*4+1");
+    }
+
+    @Test
+    void typingRulesForOperands() {
+        // Leading zeros, a second point, and digits past the display and the exponent
+        assertPasteMatchesTyping("", "007.5.5+1234567890123456789=");
+        assertPasteMatchesTyping("", "2E1234+1=");
+        assertPasteMatchesTyping("", "2E0005*3");
+    }
+
+    @Test
+    void displaySymbolsAndWhitespace() {
+        MemoryDisplayModel pasted = new MemoryDisplayModel();
+        CalculatorController controller = new CalculatorController(new CalculatorLogic(), pasted);
+        controller.paste(PastedExpression.parse(" 6 \u00D7 2 \u2212 3 \u00F7 3 = "));
+        assertEquals("11", pasted.getDisplay().toString());
+    }
+
+    @Test
+    void rejectsWhatCannotBeTyped() {
+        assertThrows(IllegalArgumentException.class, () -> PastedExpression.parse("1+a"));
+        assertThrows(IllegalArgumentException.class, () -> PastedExpression.parse("1=+2"));
+    }
+
+    @Test
+    void randomPastesEqualTyping() {
+        Random random = new Random(1);
+        String[] before = {"", "7=", "12+", "(2+"};
+        for (int trial = 0; trial < 5_000; trial++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextInt(8) == 0) {
+                text.append(OPERATORS.charAt(random.nextInt(OPERATORS.length())));
+            }
+            int operands = 1 + random.nextInt(6);
+            for (int i = 0; i < operands; i++) {
+                if (i > 0) {
+                    do {
+                        text.append(OPERATORS.charAt(random.nextInt(OPERATORS.length())));
+                    } while (random.nextInt(4) == 0);
+                }
+                appendOperand(random, text);
+            }
+            switch (random.nextInt(3)) {
+                case 0 ->
+                    text.append('=');
+                case 1 ->
+                    text.append(OPERATORS.charAt(random.nextInt(OPERATORS.length())));
+                default -> {
+                }
+            }
+            assertPasteMatchesTyping(before[random.nextInt(before.length)], text.toString());
+        }
+    }
+
+    private static void appendOperand(Random random, StringBuilder text) {
+        int digits = 1 + random.nextInt(random.nextInt(5) == 0 ? 20 : 4);
+        int point = random.nextInt(3) == 0 ? random.nextInt(digits + 1) : -1;
+        for (int i = 0; i < digits; i++) {
+            if (i == point) {
+                text.append('.');
+            }
+            text.append((char) ('0' + random.nextInt(10)));
+        }
+        // A sign straight after the E would be the exponent's when pasted, so not an operator
+        if (random.nextInt(6) == 0) {
+            text.append('E');
+            for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+    }
+
+    private static void assertPasteMatchesTyping(String before, String text) {
+        assertPasteMatchesTyping(before, text, before + text);
+    }
+
+    /**
+     * Types the keys; and types before, then pastes the text. In binary mode
+     * with a result cache and in decimal mode.
+     */
+    private static void assertPasteMatchesTyping(String before, String text, String keys) {
+        for (int mode = 0; mode < 2; mode++) {
+            MemoryDisplayModel typed = new MemoryDisplayModel();
+            CalculatorController typing = new CalculatorController(engine(mode), typed);
+            Keystrokes.replay(typing, keys);
+            MemoryDisplayModel pasted = new MemoryDisplayModel();
+            CalculatorController pasting = new CalculatorController(engine(mode), pasted);
+            Keystrokes.replay(pasting, before);
+            pasting.paste(PastedExpression.parse(text));
+            String message = before + " then " + text + (mode == 0 ? "" : " in decimal mode");
+            assertEquals(typed.getDisplay().toString(), pasted.getDisplay().toString(), message);
+            assertEquals(typed.getOperator().toString(), pasted.getOperator().toString(), message);
+            assertEquals(typed.getExponent().toString(), pasted.getExponent().toString(), message);
+            assertEquals(typed.getPreview().toString(), pasted.getPreview().toString(), message);
+            assertArrayEquals(state(typing), state(pasting), message);
+            // And the next keys carry on the same
+            Keystrokes.replay(typing, "5=");
+            Keystrokes.replay(pasting, "5=");
+            assertEquals(typed.getDisplay().toString(), pasted.getDisplay().toString(), message);
+        }
+    }
+
+    private static CalculatorLogic engine(int mode) {
+        return mode == 0 ? new CalculatorLogic(new ResultCache(64)) : new CalculatorLogic(MathContext.DECIMAL64);
+    }
+
+    private static byte[] state(CalculatorController controller) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            controller.writeState(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
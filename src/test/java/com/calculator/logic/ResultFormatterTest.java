@@ -0,0 +1,176 @@
+package com.calculator.logic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ResultFormatter against the String.format formatting the display had before
+ * it, kept below as {@link #legacyFormat(double)} and its helpers, in
+ * Locale.ROOT: every result must give the same digits and exponent, up to the
+ * 15-digit limit and the ±999 exponent clamp. Doubles are drawn from every bit
+ * pattern, NaNs included, and decimal-mode results from any unscaled value and
+ * scale the clamp can reach.
+ */
+class ResultFormatterTest {
+
+    private static final int SAMPLES = 200_000;
+    private static final long SEED = 42;
+
+    private static final double[] EDGES = {
+        Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.0, -0.0,
+        Double.MIN_VALUE, -Double.MIN_VALUE, 2 * Double.MIN_VALUE, Math.nextDown(Double.MIN_NORMAL),
+        Double.MIN_NORMAL, -Double.MIN_NORMAL, Double.MAX_VALUE, -Double.MAX_VALUE,
+        // Scientific below 1e-13 and from 16 integer digits up
+        1e-13, Math.nextDown(1e-13), -1e-13, Math.nextDown(-1e-13), 1.5e-13, 1e-12, 1.0000000000001e-12,
+        1e15, 999999999999999.0, 999999999999999.9, 9999999999999999.0, 1e16, -999999999999999.9, -1e15,
+        // Integers in and just out of int range
+        Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE + 1.0, Integer.MIN_VALUE - 1.0, Integer.MAX_VALUE + 0.5,
+        // Rounding at the 15th decimal and the 14th significant digit
+        0.1, 0.2, 0.3, 0.1 + 0.2, 1.0 / 3, 2.0 / 3, -2.0 / 3, 0.0000000000000005, 0.000000000000001,
+        0.9999999999999999, 99999999999999.99, 9.99999999999995e-14, 9.999999999999949e-14, 1.23456789012345e300
+    };
+
+    private static final String[] DECIMAL_EDGES = {
+        "0", "0E+1200", "-0.000", "1", "-1", "0.1", "1E-13", "9.99E-14", "-1E-13", "1E15", "999999999999999.9",
+        "1E998", "9.99999999999995E998", "1E999", "-1E999", "9.99999999999995E999", "1E1000", "1E1200",
+        "1E-998", "1E-999", "1.5E-999", "9.99999999999995E-1000", "1E-1000", "1E-1200", "-1E-1200"
+    };
+
+    private final ResultFormatter formatter = new ResultFormatter();
+
+    @Test
+    void formatMatchesStringFormat() {
+        for (double value : EDGES) {
+            assertFormat(value);
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertFormat(Double.longBitsToDouble(random.nextLong()));
+            assertFormat(ordinary(random));
+        }
+    }
+
+    @Test
+    void formatStandardMatchesStringFormat() {
+        for (double value : EDGES) {
+            assertFormatStandard(value);
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertFormatStandard(Double.longBitsToDouble(random.nextLong()));
+            assertFormatStandard(ordinary(random));
+        }
+    }
+
+    @Test
+    void decimalFormatMatchesStringFormat() {
+        for (String value : DECIMAL_EDGES) {
+            assertFormat(new BigDecimal(value));
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES / 10; i++) {
+            BigInteger unscaled = BigInteger.valueOf(random.nextLong() >> random.nextInt(64));
+            if (random.nextInt(4) == 0) {
+                // More digits than DECIMAL128 keeps, as a long-scaled operand can have
+                unscaled = unscaled.multiply(BigInteger.valueOf(random.nextLong()));
+            }
+            assertFormat(new BigDecimal(unscaled, random.nextInt(-1050, 1050)));
+        }
+    }
+
+    /**
+     * Results a calculator sees: a few digits, near a power of ten that puts
+     * them on either side of the display limits.
+     */
+    private static double ordinary(SplittableRandom random) {
+        double digits = random.nextInt(1, 1_000_000) / 1000.0;
+        double value = digits * Math.pow(10, random.nextInt(-20, 20));
+        return random.nextBoolean() ? value : -value;
+    }
+
+    private void assertFormat(double value) {
+        formatter.format(value);
+        assertEquals(legacyFormat(value), formatter.digits() + "|" + formatter.exponent(), () -> Double.toString(value));
+    }
+
+    private void assertFormatStandard(double value) {
+        formatter.formatStandard(value);
+        assertEquals(formatForStandardDisplay(value), formatter.digits().toString(), () -> Double.toString(value));
+        assertEquals("", formatter.exponent().toString());
+    }
+
+    private void assertFormat(BigDecimal value) {
+        formatter.format(value);
+        assertEquals(legacyFormat(value), formatter.digits() + "|" + formatter.exponent(), value::toString);
+    }
+
+    /**
+     * The digits and exponent ResultFormatter.format gave before it stopped
+     * using String.format, joined by a bar.
+     */
+    private static String legacyFormat(double result) {
+        if (Math.abs(result) < 1e-13 && result != 0) {
+            return splitExponent(formatToScientific(result));
+        }
+        String resultString = formatForStandardDisplay(result);
+        return shouldUseScientificNotation(resultString) ? splitExponent(formatToScientific(result)) : resultString + "|";
+    }
+
+    /**
+     * The same for a decimal-mode result, where String.format rounds the exact
+     * value.
+     */
+    private static String legacyFormat(BigDecimal result) {
+        if (result.signum() != 0 && result.abs().compareTo(new BigDecimal("1E-13")) < 0) {
+            return splitExponent(formatToScientific(result));
+        }
+        String resultString = removeTrailingDecimalPoint(trimTrailingZeros(String.format(Locale.ROOT, "%.15f", result)));
+        return shouldUseScientificNotation(resultString) ? splitExponent(formatToScientific(result)) : resultString + "|";
+    }
+
+    private static String formatForStandardDisplay(double value) {
+        if (value == (int) value) {
+            return Integer.toString((int) value);
+        }
+        String valueStr = String.format(Locale.ROOT, "%.15f", value);
+        return removeTrailingDecimalPoint(trimTrailingZeros(valueStr));
+    }
+
+    private static String formatToScientific(Object value) {
+        String formatted = String.format(Locale.ROOT, "%.13e", value);
+        return removeTrailingDecimalPoint(trimTrailingZeros(formatted));
+    }
+
+    private static boolean shouldUseScientificNotation(String resultString) {
+        String[] integerAndDecimal = resultString.split("\\.");
+        String integerPart = integerAndDecimal[0];
+        return integerPart.length() > 15 || (integerPart.equals("0") && integerAndDecimal.length > 1
+                && integerAndDecimal[1].startsWith("0000000000000"));
+    }
+
+    private static String splitExponent(String resultString) {
+        String[] parts = resultString.split("e");
+        return trimTrailingZeros(parts[0]).replaceAll("\\.$", "") + "|E"
+                + String.format(Locale.ROOT, "%+d", Math.min(Math.max(Integer.parseInt(parts[1]), -999), 999));
+    }
+
+    private static String trimTrailingZeros(String value) {
+        int eIndex = value.indexOf('e');
+        String mantissa = eIndex < 0 ? value : value.substring(0, eIndex);
+        int i = mantissa.length() - 1;
+        while (i > 0 && mantissa.charAt(i) == '0') {
+            i--;
+        }
+        mantissa = mantissa.substring(0, i + 1);
+        return eIndex < 0 ? mantissa : removeTrailingDecimalPoint(mantissa) + value.substring(eIndex);
+    }
+
+    private static String removeTrailingDecimalPoint(String value) {
+        return value.endsWith(".") ? value.substring(0, value.length() - 1) : value;
+    }
+}
@@ -0,0 +1,68 @@
+package com.calculator.operators;
+
+import com.calculator.logic.Operator;
+
+/**
+ * Operators added for the tests only. With {@link Modulo} and {@link Power}
+ * they fill opcodes 5 to 9 in order of symbol, {@code % < > ^ ~}, so that
+ * {@code ^} and {@code ~} get opcodes of 8 and up.
+ */
+public final class TestOperators {
+
+    private TestOperators() {
+    }
+
+    public static final class Minimum implements Operator {
+
+        @Override
+        public char symbol() {
+            return '<';
+        }
+
+        @Override
+        public int precedence() {
+            return 1;
+        }
+
+        @Override
+        public double apply(double left, double right) {
+            return Math.min(left, right);
+        }
+    }
+
+    public static final class Maximum implements Operator {
+
+        @Override
+        public char symbol() {
+            return '>';
+        }
+
+        @Override
+        public int precedence() {
+            return 1;
+        }
+
+        @Override
+        public double apply(double left, double right) {
+            return Math.max(left, right);
+        }
+    }
+
+    public static final class Hypotenuse implements Operator {
+
+        @Override
+        public char symbol() {
+            return '~';
+        }
+
+        @Override
+        public int precedence() {
+            return 2;
+        }
+
+        @Override
+        public double apply(double left, double right) {
+            return Math.hypot(left, right);
+        }
+    }
+}